@@ -94,6 +94,8 @@ public class DocumentUpdater {
         if (!newDocument.getReasonerType().equals(originalDocument.getConfig().getReasonerType())) {
             originalDocument.getConfig().setReasonerType(newDocument.getReasonerType());
         }
+        originalDocument.getConfig().setModuleExtractionType(newDocument.getModuleExtractionType());
+        originalDocument.getConfig().setStreaming(newDocument.isStreaming());
         originalDocument.getConfig().setOboSlims(newDocument.isOboSlims());
 
         originalDocument.getConfig().setLabelProperty(newDocument.getLabelProperty());
@@ -140,6 +140,25 @@ public class LoadingApplication implements CommandLineRunner {
         long start = System.currentTimeMillis();
         StringBuilder exceptions = new StringBuilder();
 
+        // one indexing session, so indexers can keep their stores open and a blue/green Neo4j store only goes live
+        // once every ontology is indexed or dropped. The indexers are told which ontologies are reloaded or deleted,
+        // so they can drop them all at once
+        Collection<OntologyDocument> documentsToLoad = forcedOntologies.length > 0 || deleteOntologies.length > 0 ?
+                Collections.<OntologyDocument>emptyList() :
+                ontologyRepositoryService.getAllDocumentsByStatus(Status.TOLOAD);
+        List<String> reloadedOntologies = new ArrayList<>();
+        if (forcedOntologies.length > 0) {
+            reloadedOntologies.addAll(Arrays.asList(forcedOntologies));
+        }
+        else if (deleteOntologies.length > 0) {
+            reloadedOntologies.addAll(Arrays.asList(deleteOntologies));
+        }
+        else {
+            for (OntologyDocument document : documentsToLoad) {
+                reloadedOntologies.add(document.getOntologyId());
+            }
+        }
+        ontologyIndexingService.beginSession(reloadedOntologies);
         if (forcedOntologies.length > 0) {
             for (String ontologyName : forcedOntologies) {
                 OntologyDocument document = ontologyRepositoryService.get(ontologyName);
@@ -175,7 +194,7 @@ public class LoadingApplication implements CommandLineRunner {
         }
         else {
             // otherwise load everything set TOLOAD
-            for (OntologyDocument document : ontologyRepositoryService.getAllDocumentsByStatus(Status.TOLOAD)) {
+            for (OntologyDocument document : documentsToLoad) {
                 try {
                     boolean loadResult = ontologyIndexingService.indexOntologyDocument(document);
                     if (loadResult)
@@ -194,6 +213,14 @@ public class LoadingApplication implements CommandLineRunner {
                 }
             }
         }
+        try {
+            ontologyIndexingService.endSession();
+        } catch (Throwable t) {
+            logger.error("Application failed finishing indexes: " + t.getMessage(), t);
+            exceptions.append(t.getMessage());
+            exceptions.append("\n");
+            haserror = true;
+        }
 
         for (OntologyDocument document : ontologyRepositoryService.getAllDocumentsByStatus(Status.FAILED)) {
             failingOntologies.put(document.getOntologyId(), document.getMessage());
@@ -10,6 +10,8 @@ import uk.ac.ebi.spot.ols.config.PropertyBasedLoadingService;
 import uk.ac.ebi.spot.ols.loader.BatchNeo4JIndexer;
 import uk.ac.ebi.spot.ols.loader.OntologyLoader;
 
+import java.util.Collections;
+
 /**
  * @author Simon Jupp
  * @date 30/04/2015
@@ -36,8 +38,11 @@ public class GraphLoaderApplication implements CommandLineRunner {
 
         // get the ontology loader
         OntologyLoader loader = propertyBasedLoadingService.getLoader();
+        // in a session, so with blue/green indexing the new store only goes live once it is complete
+        batchNeo4JIndexer.beginSession(Collections.singleton(loader.getOntologyName()));
         batchNeo4JIndexer.dropIndex(loader);
         batchNeo4JIndexer.createIndex(loader);
+        batchNeo4JIndexer.endSession();
 
 
     }
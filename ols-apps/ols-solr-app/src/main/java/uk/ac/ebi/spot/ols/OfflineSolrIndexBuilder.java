@@ -0,0 +1,142 @@
+package uk.ac.ebi.spot.ols;
+
+import org.apache.lucene.util.Version;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.core.CoreContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.solr.core.SolrTemplate;
+import uk.ac.ebi.spot.ols.exception.IndexingException;
+import uk.ac.ebi.spot.ols.indexer.SolrIndexer;
+import uk.ac.ebi.spot.ols.loader.OntologyLoader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds the ontology and autosuggest cores on the indexer host with an embedded Solr, so the documents are written
+ * straight to Lucene segments instead of being sent over HTTP. The Solr home is laid out like solr/solr-5-config, one
+ * directory per core with its core.properties, conf and data, so once the build is done the core directories can be
+ * copied or mounted over the production ones, which then only need a core reload.
+ *
+ * The embedded Solr is the version SolrJ comes with, older than the production Solr, so the luceneMatchVersion of the
+ * copied configuration is set to the embedded Lucene version while building and put back afterwards. Newer Solr
+ * versions read the segments written by the previous major version.
+ *
+ * Building into an existing Solr home adds to the cores, so all ontologies can be built into the same home one run at
+ * a time.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class OfflineSolrIndexBuilder implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineSolrIndexBuilder.class);
+
+    private static final List<String> CORES = Arrays.asList("ontology", "autosuggest");
+    private static final String SOLR_CONFIG = "conf/solrconfig.xml";
+
+    private final File configHome;
+    private final File solrHome;
+    private final CoreContainer container;
+    private final SolrIndexer indexer;
+
+    /**
+     * @param configHome the Solr home to copy the configuration from, such as solr/solr-5-config
+     * @param solrHome   where the cores are built
+     */
+    public OfflineSolrIndexBuilder(File configHome, File solrHome) throws IOException {
+        this.configHome = configHome;
+        this.solrHome = solrHome;
+
+        copyConfig(configHome, solrHome);
+        for (String core : CORES) {
+            setLuceneMatchVersion(new File(solrHome, core + "/" + SOLR_CONFIG), Version.LATEST.toString());
+        }
+
+        container = new CoreContainer(solrHome.getAbsolutePath());
+        container.load();
+        indexer = new SolrIndexer(template("ontology"), template("autosuggest"));
+        // the commit policy sees the whole build as one run, so it can merge the segments once it is done
+        indexer.beginSession();
+        log.info("Building Solr cores " + CORES + " in " + solrHome.getAbsolutePath() + " with embedded Solr " +
+                Version.LATEST);
+    }
+
+    /**
+     * Replaces the documents of the ontology in the cores being built
+     */
+    public void index(OntologyLoader loader) throws IndexingException {
+        long start = System.currentTimeMillis();
+        indexer.dropIndex(loader);
+        indexer.createIndex(loader);
+        log.info("#### Monitoring " + loader.getOntologyName() + ":Offline Solr build:" +
+                (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Commits and, if ols.solr.optimize is set, merges the cores, then closes them and puts the copied configuration
+     * back as it was, the Solr home is then ready to be used
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            indexer.endSession();
+        }
+        finally {
+            container.shutdown();
+        }
+        for (String core : CORES) {
+            Files.copy(new File(configHome, core + "/" + SOLR_CONFIG).toPath(),
+                    new File(solrHome, core + "/" + SOLR_CONFIG).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.info("Solr cores " + CORES + " built in " + solrHome.getAbsolutePath() + ", copy the core directories " +
+                "to the Solr home of the server and reload the cores");
+    }
+
+    private SolrTemplate template(String core) {
+        SolrTemplate template = new SolrTemplate(new EmbeddedSolrServer(container, core));
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * Copies solr.xml and the core directories without their data, the configuration of a previous build is
+     * overwritten and its data is kept
+     */
+    private static void copyConfig(File configHome, File solrHome) throws IOException {
+        Path source = configHome.toPath();
+        Path target = solrHome.toPath();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(source)) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(path -> !isData(source.relativize(path)))
+                    .collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            Path copy = target.resolve(source.relativize(file).toString());
+            Files.createDirectories(copy.getParent());
+            Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // core/data/...
+    private static boolean isData(Path path) {
+        return path.getNameCount() > 2 && path.getName(1).toString().equals("data");
+    }
+
+    private static void setLuceneMatchVersion(File solrConfig, String version) throws IOException {
+        String config = new String(Files.readAllBytes(solrConfig.toPath()), StandardCharsets.UTF_8);
+        config = config.replaceAll("<luceneMatchVersion>[^<]*</luceneMatchVersion>",
+                "<luceneMatchVersion>" + version + "</luceneMatchVersion>");
+        Files.write(solrConfig.toPath(), config.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -8,6 +8,8 @@ import uk.ac.ebi.spot.ols.config.PropertyBasedLoadingService;
 import uk.ac.ebi.spot.ols.indexer.SolrIndexer;
 import uk.ac.ebi.spot.ols.loader.OntologyLoader;
 
+import java.io.File;
+
 /**
  * @author Simon Jupp
  * @date 30/01/2015
@@ -27,7 +29,20 @@ public class OntologySolrApplication implements CommandLineRunner {
 
         System.setProperty("entityExpansionLimit", "10000000");
         OntologyLoader loader = propertyBasedLoadingService.getLoader();
-        solrIndexingService.dropIndex(loader);
+
+        // builds the cores locally with an embedded Solr, instead of sending the documents to the Solr server
+        String offlineHome = System.getProperty("ols.solr.offline.home");
+        if (offlineHome != null) {
+            File configHome = new File(System.getProperty("ols.solr.offline.config", "solr/solr-5-config"));
+            try (OfflineSolrIndexBuilder builder = new OfflineSolrIndexBuilder(configHome, new File(offlineHome))) {
+                builder.index(loader);
+            }
+            return;
+        }
+
+        if (!solrIndexingService.replacesIndex()) {
+            solrIndexingService.dropIndex(loader);
+        }
         solrIndexingService.createIndex(loader);
    	}
 
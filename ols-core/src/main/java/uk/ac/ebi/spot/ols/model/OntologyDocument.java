@@ -6,6 +6,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import uk.ac.ebi.spot.ols.config.OntologyResourceConfig;
 
 import java.util.Date;
+import java.util.Map;
 
 /**
  * @author Simon Jupp
@@ -44,6 +45,9 @@ public class OntologyDocument {
 
     private OntologyResourceConfig config;
 
+    // status of the ontology in each indexer, by indexer name
+    private Map<String, Status> indexerStatus;
+
     public OntologyDocument(String ontologyId, Date updated, Status status, String message, String localPath,
                             String fileHash, int loadAttempts,
                             int numberOfTerms, int numberOfProperties, int numberOfIndividuals,
@@ -174,4 +178,12 @@ public class OntologyDocument {
     public void setLoadAttempts(int n) {
         this.loadAttempts = n;
     }
+
+    public Map<String, Status> getIndexerStatus() {
+        return indexerStatus;
+    }
+
+    public void setIndexerStatus(Map<String, Status> indexerStatus) {
+        this.indexerStatus = indexerStatus;
+    }
 }
@@ -24,4 +24,37 @@ public interface OntologyIndexer {
 
     void dropIndex (OntologyLoader loader) throws IndexingException;
 
+    /**
+     * Whether {@link #createIndex(OntologyLoader)} replaces the ontology's existing index once the new one is complete,
+     * in which case the index must not be dropped first. By default the index is dropped before it is created.
+     */
+    default boolean replacesIndex() {
+        return false;
+    }
+
+    /**
+     * Starts a session in which several ontologies are indexed one after the other, e.g. all the ontologies set to
+     * load in a loading run. Indexers can keep expensive resources open between ontologies until
+     * {@link #endSession()} is called. By default nothing is kept open.
+     */
+    default void beginSession() throws IndexingException {
+    }
+
+    /**
+     * Starts a session in which the given ontologies are reloaded, see {@link #beginSession()}. Indexers that can't
+     * drop an index cheaply while indexing may drop the indexes of all of them up front, so an ontology that then
+     * fails to load is left out of the index, as it is when creating its index fails. By default the indexes are
+     * dropped one by one with {@link #dropIndex(String)}.
+     */
+    default void beginSession(Collection<String> reloadedOntologies) throws IndexingException {
+        beginSession();
+    }
+
+    /**
+     * Ends the session started with {@link #beginSession()}, releasing anything that was kept open and finishing
+     * any work that was deferred to the end of the session.
+     */
+    default void endSession() throws IndexingException {
+    }
+
 }
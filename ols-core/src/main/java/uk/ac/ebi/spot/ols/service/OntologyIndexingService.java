@@ -3,6 +3,8 @@ package uk.ac.ebi.spot.ols.service;
 import uk.ac.ebi.spot.ols.exception.IndexingException;
 import uk.ac.ebi.spot.ols.model.OntologyDocument;
 
+import java.util.Collection;
+
 /**
  * @author Simon Jupp
  * @date 04/03/2015
@@ -17,4 +19,24 @@ public interface OntologyIndexingService {
 
     void removeOntologyDocumentFromIndex(OntologyDocument document) throws IndexingException;
 
+    /**
+     * Starts indexing a batch of ontology documents, see {@link uk.ac.ebi.spot.ols.model.OntologyIndexer#beginSession()}
+     */
+    default void beginSession() throws IndexingException {
+    }
+
+    /**
+     * Starts indexing a batch of ontology documents that reloads the given ontologies, see
+     * {@link uk.ac.ebi.spot.ols.model.OntologyIndexer#beginSession(Collection)}
+     */
+    default void beginSession(Collection<String> reloadedOntologies) throws IndexingException {
+        beginSession();
+    }
+
+    /**
+     * Ends the batch of ontology documents started with {@link #beginSession()}
+     */
+    default void endSession() throws IndexingException {
+    }
+
 }
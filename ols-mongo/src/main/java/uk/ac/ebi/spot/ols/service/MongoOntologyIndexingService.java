@@ -21,10 +21,18 @@ import uk.ac.ebi.spot.ols.xrefs.DatabaseService;
 import uk.ac.ebi.spot.usage.ResourceUsage;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Simon Jupp
@@ -48,6 +56,9 @@ public class MongoOntologyIndexingService implements OntologyIndexingService{
     @Autowired 
     OntologyLoadingConfiguration ontologyLoadingConfiguration;
 
+    /** documents indexed in the open session, only loaded once the session ends, null when there is no session */
+    private List<OntologyDocument> sessionDocuments;
+
     @Override
     public boolean indexOntologyDocument(OntologyDocument document) throws IndexingException {
 
@@ -72,7 +83,10 @@ public class MongoOntologyIndexingService implements OntologyIndexingService{
                 loader.setOntologyResource(new FileSystemResource(document.getLocalPath()));
             }
             classes = loader.getAllClasses();
-            properties = loader.getAllObjectPropertyIRIs();
+            // object, data and annotation properties, the Neo4j indexer used to add the others to the object properties
+            properties = new LinkedHashSet<>(loader.getAllObjectPropertyIRIs());
+            properties.addAll(loader.getAllDataPropertyIRIs());
+            properties.addAll(loader.getAllAnnotationPropertyIRIs());
             individuals = loader.getAllIndividualIRIs();
 
 
@@ -104,14 +118,9 @@ public class MongoOntologyIndexingService implements OntologyIndexingService{
         try {
 
             // get all the available indexers
-            for (OntologyIndexer indexer : indexers) {
-                // create the new index
-                indexer.dropIndex(loader.getOntologyName());
-                ResourceUsage.logUsage(logger, "#### Monitoring ",document.getOntologyId() +
-                        ":After dropping index" + indexer.toString(), ":");
-                indexer.createIndex(loader);
-                ResourceUsage.logUsage(logger, "#### Monitoring ", document.getOntologyId() +
-                        ":After after creating index for " + indexer.toString(), ":");
+            Map<OntologyIndexer, Throwable> failures = runIndexers(document, loader);
+            if (!failures.isEmpty() && failures.size() == indexers.size()) {
+                throw failures.values().iterator().next();
             }
 
             // update any ontology meta data
@@ -159,9 +168,22 @@ public class MongoOntologyIndexingService implements OntologyIndexingService{
             document.setNumberOfTerms(classes.size());
             document.setNumberOfProperties(properties.size());
             document.setNumberOfIndividuals(individuals.size());
-            status = Status.LOADED;
-            document.setLoaded(new Date());
-            result = true;
+            if (failures.isEmpty() && sessionDocuments != null) {
+                // indexers may only publish the index when the session ends, see endSession()
+                message = "Indexed, waiting for the indexing session to end";
+                sessionDocuments.add(document);
+                result = true;
+            }
+            else if (failures.isEmpty()) {
+                status = Status.LOADED;
+                document.setLoaded(new Date());
+                result = true;
+            }
+            else {
+                // partially indexed, failed so it is loaded again
+                status = Status.FAILED;
+                message = describeFailures(failures);
+            }
         } catch (Throwable t) {
         	logger.error("Error indexing " + document.getOntologyId(), t);
             status = Status.FAILED;
@@ -177,6 +199,146 @@ public class MongoOntologyIndexingService implements OntologyIndexingService{
         }
     }
 
+    /**
+     * Drops and recreates the index of the ontology in every indexer. The indexers run concurrently on the loaded
+     * ontology, which is only read, unless ols.indexing.concurrent is false. A failing indexer doesn't stop the
+     * others, the status of each is recorded in the document.
+     *
+     * @return the indexers that failed, with their error
+     */
+    private Map<OntologyIndexer, Throwable> runIndexers(OntologyDocument document, OntologyLoader loader) {
+        Map<OntologyIndexer, Throwable> failures = new LinkedHashMap<>();
+        Map<String, Status> indexerStatus = new LinkedHashMap<>();
+
+        if (indexers.size() < 2 || !Boolean.parseBoolean(System.getProperty("ols.indexing.concurrent", "true"))) {
+            for (OntologyIndexer indexer : indexers) {
+                Throwable failure = runIndexer(indexer, document, loader);
+                if (failure != null) {
+                    failures.put(indexer, failure);
+                }
+            }
+        }
+        else {
+            ExecutorService executor = Executors.newFixedThreadPool(indexers.size());
+            try {
+                Map<OntologyIndexer, Future<Throwable>> running = new LinkedHashMap<>();
+                for (OntologyIndexer indexer : indexers) {
+                    running.put(indexer, executor.submit(() -> runIndexer(indexer, document, loader)));
+                }
+                for (Map.Entry<OntologyIndexer, Future<Throwable>> indexer : running.entrySet()) {
+                    try {
+                        Throwable failure = indexer.getValue().get();
+                        if (failure != null) {
+                            failures.put(indexer.getKey(), failure);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        failures.put(indexer.getKey(), e);
+                    } catch (ExecutionException e) {
+                        failures.put(indexer.getKey(), e.getCause());
+                    }
+                }
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+
+        for (OntologyIndexer indexer : indexers) {
+            indexerStatus.put(indexerName(indexer), failures.containsKey(indexer) ? Status.FAILED : Status.LOADED);
+        }
+        document.setIndexerStatus(indexerStatus);
+        return failures;
+    }
+
+    private Throwable runIndexer(OntologyIndexer indexer, OntologyDocument document, OntologyLoader loader) {
+        try {
+            // create the new index
+            if (!indexer.replacesIndex()) {
+                indexer.dropIndex(loader.getOntologyName());
+                ResourceUsage.logUsage(logger, "#### Monitoring ",document.getOntologyId() +
+                        ":After dropping index" + indexer.toString(), ":");
+            }
+            indexer.createIndex(loader);
+            ResourceUsage.logUsage(logger, "#### Monitoring ", document.getOntologyId() +
+                    ":After after creating index for " + indexer.toString(), ":");
+            return null;
+        } catch (Throwable t) {
+            logger.error("Error indexing " + document.getOntologyId() + " with " + indexerName(indexer), t);
+            return t;
+        }
+    }
+
+    private static String describeFailures(Map<OntologyIndexer, Throwable> failures) {
+        StringBuilder message = new StringBuilder("Partially indexed, failed in");
+        for (Map.Entry<OntologyIndexer, Throwable> failure : failures.entrySet()) {
+            message.append(" ").append(indexerName(failure.getKey())).append(": ")
+                    .append(failure.getValue().getMessage()).append(";");
+        }
+        return message.toString();
+    }
+
+    private static String indexerName(OntologyIndexer indexer) {
+        return indexer.getClass().getSimpleName();
+    }
+
+    @Override
+    public void beginSession() throws IndexingException {
+        beginSession(Collections.<String>emptyList());
+    }
+
+    @Override
+    public void beginSession(Collection<String> reloadedOntologies) throws IndexingException {
+        sessionDocuments = new ArrayList<>();
+        if (indexers == null) {
+            return;
+        }
+        for (OntologyIndexer indexer : indexers) {
+            indexer.beginSession(reloadedOntologies);
+        }
+    }
+
+    /**
+     * Ends the session of every indexer, then marks the documents indexed in the session as loaded, or as failed if
+     * an indexer couldn't end its session
+     */
+    @Override
+    public void endSession() throws IndexingException {
+        // end every indexer's session even if one of them fails, whatever the exception
+        RuntimeException failure = null;
+        for (OntologyIndexer indexer : indexers == null ? Collections.<OntologyIndexer>emptyList() : indexers) {
+            try {
+                indexer.endSession();
+            } catch (RuntimeException e) {
+                logger.error("Error ending indexing session for " + indexer.toString(), e);
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        List<OntologyDocument> documents = sessionDocuments == null ?
+                Collections.<OntologyDocument>emptyList() : sessionDocuments;
+        sessionDocuments = null;
+        for (OntologyDocument document : documents) {
+            if (failure == null) {
+                document.setStatus(Status.LOADED);
+                document.setLoaded(new Date());
+                document.setMessage("");
+            }
+            else {
+                document.setStatus(Status.FAILED);
+                document.setMessage("Indexing session failed: " + failure.getMessage());
+            }
+            document.setUpdated(new Date());
+            ontologyRepositoryService.update(document);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
     @Override
     public void removeOntologyDocumentFromIndex(OntologyDocument document) throws IndexingException {
         String message = "";
@@ -0,0 +1,83 @@
+package uk.ac.ebi.spot.ols.config;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs Spring transactions, e.g. those of @Transactional methods and Spring Data Neo4j repositories, as Neo4j
+ * transactions begun with {@link GraphDatabaseService#beginTx()}. The transaction manager Spring Data Neo4j builds
+ * holds on to components of the store it was built with, so with blue/green indexing (see
+ * {@link ReloadableGraphDatabase}) this one is used instead, it begins every transaction on the store in use.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+class GraphTransactionManager extends AbstractPlatformTransactionManager {
+
+    private final GraphDatabaseService graphDatabase;
+
+    GraphTransactionManager(GraphDatabaseService graphDatabase) {
+        this.graphDatabase = graphDatabase;
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new GraphTransaction((Transaction) TransactionSynchronizationManager.getResource(graphDatabase));
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((GraphTransaction) transaction).transaction != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        GraphTransaction graphTransaction = (GraphTransaction) transaction;
+        graphTransaction.transaction = graphDatabase.beginTx();
+        TransactionSynchronizationManager.bindResource(graphDatabase, graphTransaction.transaction);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        Transaction transaction = ((GraphTransaction) status.getTransaction()).transaction;
+        try {
+            transaction.success();
+            transaction.close();
+        } catch (RuntimeException e) {
+            throw new TransactionSystemException("Couldn't commit the Neo4j transaction", e);
+        }
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        Transaction transaction = ((GraphTransaction) status.getTransaction()).transaction;
+        try {
+            transaction.failure();
+            transaction.close();
+        } catch (RuntimeException e) {
+            throw new TransactionSystemException("Couldn't roll back the Neo4j transaction", e);
+        }
+    }
+
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        ((GraphTransaction) status.getTransaction()).transaction.failure();
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(graphDatabase);
+    }
+
+    private static final class GraphTransaction {
+        private Transaction transaction;
+
+        private GraphTransaction(Transaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package uk.ac.ebi.spot.ols.config;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sizes the Neo4j page cache from the size of the store and the memory of the machine, so the whole store can be
+ * cached when there is room for it. The heap is already fixed when this runs, so the heap size that would leave room
+ * for the page cache is only recommended in the log.
+ *
+ * The page cache size can be set with ols.neo4j.pagecache.memory (a Neo4j size such as 2g), in which case it isn't
+ * tuned.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class Neo4jMemoryTuner {
+
+    private static final Logger log = LoggerFactory.getLogger(Neo4jMemoryTuner.class);
+
+    private static final long MB = 1024 * 1024;
+    private static final long MIN_PAGE_CACHE = 64 * MB;
+    private static final long MIN_OS_RESERVE = 512 * MB;
+    private static final long MIN_RECOMMENDED_HEAP = 512 * MB;
+    // larger heaps lose compressed object pointers
+    private static final long MAX_RECOMMENDED_HEAP = 31 * 1024 * MB;
+
+    private final long storeBytes;
+    private final long physicalBytes;
+    private final long maxHeapBytes;
+    private final long pageCacheBytes;
+    private final String pageCacheSetting;
+
+    private Neo4jMemoryTuner(long storeBytes, long physicalBytes, long maxHeapBytes) {
+        this.storeBytes = storeBytes;
+        this.physicalBytes = physicalBytes;
+        this.maxHeapBytes = maxHeapBytes;
+
+        String configured = System.getProperty("ols.neo4j.pagecache.memory");
+        if (configured != null) {
+            this.pageCacheBytes = -1;
+            this.pageCacheSetting = configured.trim();
+        }
+        else if (physicalBytes > 0) {
+            this.pageCacheBytes = pageCacheSize(storeBytes, physicalBytes, maxHeapBytes);
+            this.pageCacheSetting = String.valueOf(pageCacheBytes);
+        }
+        else {
+            // physical memory isn't known, leave the Neo4j default
+            this.pageCacheBytes = -1;
+            this.pageCacheSetting = null;
+        }
+    }
+
+    /**
+     * Sizes the page cache for the store in the given directory
+     */
+    public static Neo4jMemoryTuner forStore(File storeDirectory) {
+        Neo4jMemoryTuner tuner = new Neo4jMemoryTuner(storeSize(storeDirectory), physicalMemory(),
+                Runtime.getRuntime().maxMemory());
+        tuner.logSizing(storeDirectory);
+        return tuner;
+    }
+
+    /**
+     * The page cache is the store plus a fifth for growth, within the memory that is left once the heap and a reserve
+     * for the operating system are taken
+     */
+    static long pageCacheSize(long storeBytes, long physicalBytes, long maxHeapBytes) {
+        long available = physicalBytes - maxHeapBytes - osReserve(physicalBytes);
+        return Math.max(MIN_PAGE_CACHE, Math.min(wantedPageCache(storeBytes), available));
+    }
+
+    /**
+     * The heap that leaves room for the store plus a fifth in the page cache and for the reserve of the operating
+     * system, at least 512 MB and at most 31 GB
+     */
+    static long recommendedHeapSize(long storeBytes, long physicalBytes) {
+        long heap = physicalBytes - wantedPageCache(storeBytes) - osReserve(physicalBytes);
+        return Math.max(MIN_RECOMMENDED_HEAP, Math.min(heap, MAX_RECOMMENDED_HEAP));
+    }
+
+    private static long wantedPageCache(long storeBytes) {
+        return Math.max(MIN_PAGE_CACHE, storeBytes + storeBytes / 5);
+    }
+
+    /**
+     * @return the heap that leaves room for the page cache, or -1 if the page cache wasn't tuned
+     */
+    public long getRecommendedHeapBytes() {
+        if (pageCacheBytes < 0) {
+            return -1;
+        }
+        return recommendedHeapSize(storeBytes, physicalBytes);
+    }
+
+    /**
+     * @return the Neo4j settings for the embedded database and the batch inserter
+     */
+    public Map<String, String> getConfig() {
+        Map<String, String> config = new HashMap<>();
+        if (pageCacheSetting != null) {
+            config.put(GraphDatabaseSettings.pagecache_memory.name(), pageCacheSetting);
+        }
+        return config;
+    }
+
+    public long getStoreBytes() {
+        return storeBytes;
+    }
+
+    public long getPhysicalBytes() {
+        return physicalBytes;
+    }
+
+    public long getMaxHeapBytes() {
+        return maxHeapBytes;
+    }
+
+    /**
+     * @return the tuned page cache size, or -1 if it was configured or left to Neo4j
+     */
+    public long getPageCacheBytes() {
+        return pageCacheBytes;
+    }
+
+    private void logSizing(File storeDirectory) {
+        log.info("Neo4j store " + storeDirectory + " is " + storeBytes / MB + " MB, physical memory " +
+                (physicalBytes > 0 ? physicalBytes / MB + " MB" : "unknown") + ", max heap " + maxHeapBytes / MB +
+                " MB, page cache " + (pageCacheSetting == null ? "Neo4j default" :
+                pageCacheBytes < 0 ? pageCacheSetting : pageCacheBytes / MB + " MB"));
+        if (pageCacheBytes > 0 && pageCacheBytes < storeBytes) {
+            long heap = getRecommendedHeapBytes();
+            long pageCache = physicalBytes - heap - osReserve(physicalBytes);
+            if (pageCache >= storeBytes) {
+                log.warn("The Neo4j store doesn't fit in the page cache, a heap of " + heap / MB +
+                        " MB would leave room for " + pageCache / MB + " MB of page cache");
+            }
+            else {
+                log.warn("The Neo4j store doesn't fit in the page cache, and wouldn't with a heap of " + heap / MB +
+                        " MB either, the machine needs more memory");
+            }
+        }
+    }
+
+    private static long osReserve(long physicalBytes) {
+        return Math.max(MIN_OS_RESERVE, physicalBytes / 10);
+    }
+
+    private static long physicalMemory() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+        }
+        return -1;
+    }
+
+    // the neostore files are the ones that are paged, schema indexes and logs are not
+    private static long storeSize(File storeDirectory) {
+        long size = 0;
+        File[] files = storeDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && file.getName().startsWith("neostore")) {
+                    size += file.length();
+                }
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,159 @@
+package uk.ac.ebi.spot.ols.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Blue/green layout of the Neo4j store. When enabled with ols.neo4j.bluegreen the Neo4j path (see
+ * {@link OlsNeo4jConfiguration#getNeo4JPath()}) is a symbolic link to one of two sibling directories, neo4j-blue and
+ * neo4j-green. The indexer rebuilds the store in the directory that isn't live and then repoints the link with an
+ * atomic rename, so readers only ever see a complete store.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class Neo4jStoreSwitcher {
+
+    private static final Logger log = LoggerFactory.getLogger(Neo4jStoreSwitcher.class);
+
+    private static final String BLUE = "-blue";
+    private static final String GREEN = "-green";
+
+    /** held by the process that has the store open, not part of the store */
+    private static final Set<String> LOCK_FILES = new HashSet<>(Arrays.asList("lock", "store_lock"));
+
+    // notified when the web application has opened a store the link was switched to
+    private static final List<Runnable> switchListeners = new CopyOnWriteArrayList<>();
+
+    private Neo4jStoreSwitcher() {
+    }
+
+    /**
+     * @param listener run once the embedded database follows the link to a new store, see
+     * {@link ReloadableGraphDatabase}
+     */
+    public static void addSwitchListener(Runnable listener) {
+        switchListeners.add(listener);
+    }
+
+    static void storeSwitched() {
+        for (Runnable listener : switchListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.error("Neo4j store switch listener failed", e);
+            }
+        }
+    }
+
+    public static boolean isBlueGreen() {
+        return Boolean.parseBoolean(System.getProperty("ols.neo4j.bluegreen", "false"));
+    }
+
+    /**
+     * Prepares the directory the next store is built in, as a copy of the live store so ontologies that aren't
+     * reindexed are kept. The live store can be open in the web application while it is copied, which is safe as the
+     * web application opens it read only (see {@link OlsNeo4jConfiguration}), and nothing else writes to a live store
+     * in blue/green mode. The lock files of the live store aren't copied. The first time this is called on a plain store directory, the directory is moved to
+     * neo4j-blue and replaced by a link, no process should have the store open while that happens.
+     */
+    public static File prepareNextStore() throws IOException {
+        Path live = Paths.get(OlsNeo4jConfiguration.getNeo4JPath()).toAbsolutePath();
+        Path blue = sibling(live, BLUE);
+
+        if (!Files.exists(live, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(blue);
+            Files.createSymbolicLink(live, blue.getFileName());
+        }
+        else if (!Files.isSymbolicLink(live)) {
+            log.warn("Moving Neo4j store " + live + " to " + blue + " for blue/green indexing");
+            Files.move(live, blue);
+            Files.createSymbolicLink(live, blue.getFileName());
+        }
+
+        Path current = live.toRealPath();
+        Path next = Files.exists(blue) && current.equals(blue.toRealPath()) ? sibling(live, GREEN) : blue;
+
+        long start = System.currentTimeMillis();
+        delete(next);
+        copy(current, next);
+        log.info("Copied Neo4j store " + current + " to " + next + " in " +
+                (System.currentTimeMillis() - start) + " ms");
+        return next.toFile();
+    }
+
+    /**
+     * Makes the store in the given directory live by atomically replacing the link at the Neo4j path
+     */
+    public static void switchTo(File store) throws IOException {
+        Path live = Paths.get(OlsNeo4jConfiguration.getNeo4JPath()).toAbsolutePath();
+        Path target = store.toPath().toAbsolutePath();
+        Path link = live.resolveSibling(live.getFileName() + ".switch");
+
+        Files.deleteIfExists(link);
+        Files.createSymbolicLink(link, target.getFileName());
+        // rename(2) replaces the old link in one step
+        Files.move(link, live, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Neo4j store " + live + " now points to " + target);
+    }
+
+    private static Path sibling(Path live, String suffix) {
+        return live.resolveSibling(live.getFileName() + suffix);
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        Files.walkFileTree(from, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(to.resolve(from.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (LOCK_FILES.contains(file.getFileName().toString())) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Files.copy(file, to.resolve(from.relativize(file)), StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -1,16 +1,22 @@
 package uk.ac.ebi.spot.ols.config;
 
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.kernel.api.exceptions.index.ExceptionDuringFlipKernelException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.neo4j.config.Neo4jConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
 import uk.ac.ebi.spot.ols.util.OLSEnv;
 
 import javax.naming.InitialContext;
@@ -27,6 +33,8 @@ import java.nio.file.Files;
 public class OlsNeo4jConfiguration extends Neo4jConfiguration {
 
     private static Logger log = LoggerFactory.getLogger(OlsNeo4jConfiguration.class);
+
+    private static volatile Neo4jMemoryTuner memorySizing;
     public Logger getLog() {
         return log;
     }
@@ -39,11 +47,14 @@ public class OlsNeo4jConfiguration extends Neo4jConfiguration {
     static GraphDatabaseService graphDatabaseService() {
         GraphDatabaseService service = null;
      try {
-         service =  new GraphDatabaseFactory().newEmbeddedDatabaseBuilder(getNeo4JPath())
- //                .setConfig(GraphDatabaseSettings.read_only, "true")
-                 .setConfig( GraphDatabaseSettings.dump_configuration, "true" )
-                 .setConfig( GraphDatabaseSettings.keep_logical_logs, "false" )
-                 .newGraphDatabase();
+         if (Neo4jStoreSwitcher.isBlueGreen()) {
+             // follow the store link, so a store rebuilt by the indexer is picked up without a restart. The live
+             // store is opened read only, as the indexer copies its files while it is open
+             service = ReloadableGraphDatabase.create(getNeo4JPath(), path -> newEmbeddedDatabase(path, true));
+         }
+         else {
+             service = newEmbeddedDatabase(getNeo4JPath(), isReadOnly());
+         }
 
          registerShutdownHook(service);
 
@@ -55,6 +66,35 @@ public class OlsNeo4jConfiguration extends Neo4jConfiguration {
         return service;
     }
 
+    /**
+     * With blue/green indexing the Neo4j transaction manager is replaced by one that follows the store link, see
+     * {@link GraphTransactionManager}
+     */
+    @Bean
+    static BeanPostProcessor blueGreenTransactionManager() {
+        return new BlueGreenTransactionManager();
+    }
+
+    private static GraphDatabaseService newEmbeddedDatabase(String path, boolean readOnly) {
+        Neo4jMemoryTuner tuner = Neo4jMemoryTuner.forStore(new File(path));
+        memorySizing = tuner;
+        GraphDatabaseBuilder builder = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder(path)
+                 .setConfig(tuner.getConfig())
+                 .setConfig( GraphDatabaseSettings.dump_configuration, "true" )
+                 .setConfig( GraphDatabaseSettings.keep_logical_logs, "false" );
+        if (readOnly) {
+            builder.setConfig(GraphDatabaseSettings.read_only, "true");
+        }
+        return builder.newGraphDatabase();
+    }
+
+    /**
+     * @return the memory sizing of the last embedded database that was opened, or null if none was
+     */
+    public static Neo4jMemoryTuner getMemorySizing() {
+        return memorySizing;
+    }
+
     private static void registerShutdownHook( final GraphDatabaseService graphDb )
     {
         // Registers a shutdown hook for the Neo4j instance so that it
@@ -77,4 +117,69 @@ public class OlsNeo4jConfiguration extends Neo4jConfiguration {
         }
         return OLSEnv.getOLSHome() + File.separator + "neo4j";
     }
+
+    /**
+     * Whether the embedded database is opened read only, set with ols.neo4j.readonly for the web application
+     */
+    public static boolean isReadOnly() {
+        return Boolean.parseBoolean(System.getProperty("ols.neo4j.readonly", "false"));
+    }
+
+    /**
+     * Whether the ancestors of each term are written as ANCESTOR and HIERARCHICALANCESTOR relationships while batch
+     * indexing, set with ols.neo4j.closure. Ancestor and descendant queries then don't need variable length paths.
+     */
+    public static boolean isClosureIndexed() {
+        return Boolean.parseBoolean(System.getProperty("ols.neo4j.closure", "false"));
+    }
+
+    /**
+     * Whether relationships are written in the slim layout, set with ols.neo4j.relation.slim. Relationship types that
+     * aren't mapped to an entity then only store the uri and label, see RelationPropertyRegistry.
+     */
+    public static boolean isRelationPropertiesSlim() {
+        return Boolean.parseBoolean(System.getProperty("ols.neo4j.relation.slim", "false"));
+    }
+
+    /**
+     * Number of threads used to build node properties while batch indexing, set with ols.neo4j.indexing.threads.
+     * Nodes are still written to the batch inserter by a single thread.
+     */
+    public static int getIndexingThreads() {
+        String threads = System.getProperty("ols.neo4j.indexing.threads");
+        if (threads != null) {
+            try {
+                return Math.max(1, Integer.parseInt(threads.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid ols.neo4j.indexing.threads value: " + threads);
+            }
+        }
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    private static final class BlueGreenTransactionManager implements BeanPostProcessor, BeanFactoryAware {
+
+        private BeanFactory beanFactory;
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) {
+            this.beanFactory = beanFactory;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (Neo4jStoreSwitcher.isBlueGreen() && "neo4jTransactionManager".equals(beanName) &&
+                    bean instanceof PlatformTransactionManager) {
+                log.info("Using a Neo4j transaction manager that follows the blue/green store link");
+                return new GraphTransactionManager(beanFactory.getBean("graphDatabaseService",
+                        GraphDatabaseService.class));
+            }
+            return bean;
+        }
+    }
 }
@@ -0,0 +1,319 @@
+package uk.ac.ebi.spot.ols.config;
+
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A {@link GraphDatabaseService} that follows the blue/green Neo4j store link (see {@link Neo4jStoreSwitcher}). A
+ * daemon thread checks where the link points to, and when the indexer has switched it the new store is opened and
+ * new work is sent to it from then on.
+ *
+ * A transaction begun with {@link GraphDatabaseService#beginTx()} binds its store to the thread until it is closed, so
+ * every call made in the transaction goes to the same store even if the link is switched meanwhile. Calls outside a
+ * transaction use the current store for the duration of the call. Each store counts the transactions and calls using
+ * it, and a store that has been replaced is shut down once nothing uses it any more. Results that are read lazily
+ * after the call returned, outside a transaction, aren't counted, so a replaced store is also kept for at least one
+ * poll interval.
+ *
+ * Components looked up once through {@link GraphDatabaseAPI#getDependencyResolver()}, e.g. by Spring Data Neo4j,
+ * would otherwise stay with the first store. The resolver resolves from the store in use on every call, and a
+ * dependency resolved by an interface is a proxy that resolves it again from the store in use on every call. A
+ * dependency resolved by a class stays with the store it was resolved from. The transactions of @Transactional
+ * methods are begun through {@link GraphTransactionManager}, which follows the store too.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+class ReloadableGraphDatabase implements InvocationHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReloadableGraphDatabase.class);
+
+    private final String path;
+    private final Function<String, GraphDatabaseService> opener;
+    private final long pollMillis;
+
+    private volatile Store current;
+    private volatile boolean shutdown = false;
+
+    /** stores that have been replaced, only used by the watcher thread */
+    private final List<Store> retired = new ArrayList<>();
+
+    private final ThreadLocal<Binding> bound = new ThreadLocal<>();
+
+    ReloadableGraphDatabase(String path, Function<String, GraphDatabaseService> opener, long pollMillis)
+            throws IOException {
+        this.path = path;
+        this.opener = opener;
+        this.pollMillis = pollMillis;
+        Path directory = Paths.get(path).toRealPath();
+        this.current = new Store(opener.apply(directory.toString()), directory);
+    }
+
+    /**
+     * @param opener opens an embedded database in the given directory
+     */
+    static GraphDatabaseService create(String path, Function<String, GraphDatabaseService> opener) throws IOException {
+        long pollSeconds = Long.parseLong(System.getProperty("ols.neo4j.bluegreen.poll.seconds", "60"));
+        ReloadableGraphDatabase handler = new ReloadableGraphDatabase(path, opener,
+                TimeUnit.SECONDS.toMillis(pollSeconds));
+        GraphDatabaseService proxy = handler.proxy();
+
+        Thread watcher = new Thread(handler::watch, "neo4j-store-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        return proxy;
+    }
+
+    GraphDatabaseService proxy() {
+        Class<?>[] interfaces = current.db instanceof GraphDatabaseAPI ?
+                new Class<?>[] {GraphDatabaseAPI.class} : new Class<?>[] {GraphDatabaseService.class};
+        return (GraphDatabaseService) Proxy.newProxyInstance(
+                ReloadableGraphDatabase.class.getClassLoader(), interfaces, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // the proxy is the same database whichever store it uses, e.g. as the key of a bound Spring transaction
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "ReloadableGraphDatabase[" + path + "]";
+            }
+        }
+        if (method.getParameterCount() == 0 && "shutdown".equals(method.getName())) {
+            shutdown = true;
+            current.close();
+            return null;
+        }
+        if (method.getParameterCount() == 0 && "beginTx".equals(method.getName())) {
+            return beginTx(method);
+        }
+        if (method.getParameterCount() == 0 && "getDependencyResolver".equals(method.getName())) {
+            return dependencyResolver();
+        }
+        return inStore(store -> call(store.db, method, args));
+    }
+
+    /**
+     * Makes a call on the store bound to this thread, or else on the current store for the duration of the call
+     */
+    private Object inStore(StoreCall call) throws Throwable {
+        Binding binding = bound.get();
+        if (binding != null) {
+            return call.call(binding.store);
+        }
+        Store store = acquire();
+        try {
+            return call.call(store);
+        }
+        finally {
+            store.users.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return a resolver that resolves from the store in use on each call
+     */
+    private DependencyResolver dependencyResolver() {
+        return (DependencyResolver) Proxy.newProxyInstance(ReloadableGraphDatabase.class.getClassLoader(),
+                new Class<?>[] {DependencyResolver.class}, (proxy, method, args) -> {
+                    Object dependency = inStore(store -> resolve(store, method, args));
+                    boolean byInterface = args != null && args.length > 0 && args[0] instanceof Class &&
+                            ((Class<?>) args[0]).isInterface();
+                    if (dependency == null || !byInterface) {
+                        return dependency;
+                    }
+                    return Proxy.newProxyInstance(ReloadableGraphDatabase.class.getClassLoader(),
+                            new Class<?>[] {(Class<?>) args[0]}, (resolved, resolvedMethod, resolvedArgs) ->
+                                    inStore(store -> call(resolve(store, method, args), resolvedMethod, resolvedArgs)));
+                });
+    }
+
+    private static Object resolve(Store store, Method method, Object[] args) throws Throwable {
+        return call(((GraphDatabaseAPI) store.db).getDependencyResolver(), method, args);
+    }
+
+    /**
+     * Begins a transaction on the store bound to this thread, binding the current store if there is none
+     */
+    private Transaction beginTx(Method method) throws Throwable {
+        Binding binding = bound.get();
+        if (binding == null) {
+            binding = new Binding(acquire());
+            bound.set(binding);
+        }
+        binding.depth++;
+        try {
+            Transaction transaction = (Transaction) call(binding.store.db, method, null);
+            return (Transaction) Proxy.newProxyInstance(ReloadableGraphDatabase.class.getClassLoader(),
+                    new Class<?>[] {Transaction.class}, new BoundTransaction(transaction, binding));
+        } catch (Throwable t) {
+            unbind(binding);
+            throw t;
+        }
+    }
+
+    private void unbind(Binding binding) {
+        if (--binding.depth == 0) {
+            if (bound.get() == binding) {
+                bound.remove();
+            }
+            binding.store.users.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the current store, counted as used until its users are decremented
+     */
+    private Store acquire() {
+        while (true) {
+            Store store = current;
+            store.users.incrementAndGet();
+            if (store == current) {
+                return store;
+            }
+            // switched meanwhile, use the new store
+            store.users.decrementAndGet();
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void watch() {
+        while (!shutdown) {
+            try {
+                Thread.sleep(pollMillis);
+                Path directory = Paths.get(path).toRealPath();
+                if (!shutdown && !directory.equals(current.directory)) {
+                    reopen(directory);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Couldn't check the Neo4j store at " + path + ", keeping " + current.directory, e);
+            }
+            closeUnused();
+        }
+    }
+
+    void reopen(Path directory) {
+        log.info("Neo4j store " + path + " was switched to " + directory + ", reopening");
+        Store previous = current;
+        current = new Store(opener.apply(directory.toString()), directory);
+        previous.retiredAt = System.currentTimeMillis();
+        retired.add(previous);
+        log.info("Serving Neo4j store " + directory);
+        Neo4jStoreSwitcher.storeSwitched();
+    }
+
+    /**
+     * Shuts down the replaced stores that nothing uses, at least a poll interval after they were replaced
+     */
+    void closeUnused() {
+        for (Iterator<Store> stores = retired.iterator(); stores.hasNext(); ) {
+            Store store = stores.next();
+            if (store.users.get() == 0 && System.currentTimeMillis() - store.retiredAt >= pollMillis) {
+                store.close();
+                stores.remove();
+                log.info("Closed Neo4j store " + store.directory);
+            }
+            else {
+                log.debug("Neo4j store " + store.directory + " still has " + store.users.get() + " users");
+            }
+        }
+    }
+
+    private interface StoreCall {
+        Object call(Store store) throws Throwable;
+    }
+
+    private static final class Store {
+        private final GraphDatabaseService db;
+        private final Path directory;
+        private final AtomicInteger users = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long retiredAt;
+
+        private Store(GraphDatabaseService db, Path directory) {
+            this.db = db;
+            this.directory = directory;
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                db.shutdown();
+            }
+        }
+    }
+
+    /**
+     * The store of the transactions open on a thread, nested transactions share the store of the outermost one
+     */
+    private static final class Binding {
+        private final Store store;
+        private int depth;
+
+        private Binding(Store store) {
+            this.store = store;
+        }
+    }
+
+    /**
+     * Releases the store of a transaction when the transaction is closed
+     */
+    private final class BoundTransaction implements InvocationHandler {
+        private final Transaction transaction;
+        private final Binding binding;
+        private final AtomicBoolean ended = new AtomicBoolean();
+
+        private BoundTransaction(Transaction transaction, Binding binding) {
+            this.transaction = transaction;
+            this.binding = binding;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean ends = method.getParameterCount() == 0 &&
+                    ("close".equals(method.getName()) || "finish".equals(method.getName()));
+            try {
+                return method.invoke(transaction, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            finally {
+                if (ends && ended.compareAndSet(false, true)) {
+                    unbind(binding);
+                }
+            }
+        }
+    }
+}
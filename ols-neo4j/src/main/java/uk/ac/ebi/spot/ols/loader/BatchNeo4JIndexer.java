@@ -3,37 +3,47 @@ package uk.ac.ebi.spot.ols.loader;
 import static uk.ac.ebi.spot.ols.loader.Neo4JIndexerConstants.*;
 import static uk.ac.ebi.spot.ols.config.OntologyDefaults.THING;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.neo4j.graphdb.DynamicLabel;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
-import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.schema.Schema;
-import org.neo4j.helpers.collection.MapUtil;
-import org.neo4j.index.lucene.unsafe.batchinsert.LuceneBatchInserterIndexProvider;
+import org.neo4j.tooling.GlobalGraphOperations;
 import org.neo4j.unsafe.batchinsert.BatchInserter;
-import org.neo4j.unsafe.batchinsert.BatchInserterIndex;
-import org.neo4j.unsafe.batchinsert.BatchInserterIndexProvider;
 import org.semanticweb.owlapi.model.IRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import uk.ac.ebi.spot.ols.config.Neo4jStoreSwitcher;
 import uk.ac.ebi.spot.ols.config.OlsNeo4jConfiguration;
 import uk.ac.ebi.spot.ols.exception.IndexingException;
 import uk.ac.ebi.spot.ols.model.OntologyIndexer;
+import uk.ac.ebi.spot.ols.neo4j.model.Neo4JNodePropertyNameConstants;
 
 /**
  * @author Simon Jupp
@@ -44,8 +54,20 @@ import uk.ac.ebi.spot.ols.model.OntologyIndexer;
 public class BatchNeo4JIndexer implements OntologyIndexer {
     private Logger logger = LoggerFactory.getLogger(getClass());
     private BatchInserter inserter;
-    private BatchInserterIndex index;
-    private BatchInserterIndexProvider indexProvider;
+    private MergedNodeDictionary mergedNodes = MergedNodeDictionary.inMemory();
+
+    // while a session is open the batch inserter is kept open between ontologies, see beginSession()
+    private boolean inSession = false;
+    private Set<String> ontologyLabelsInStore;
+    // the store being built while a blue/green session is open, see Neo4jStoreSwitcher
+    private File nextStore;
+
+    // hierarchy edges of the ontology being indexed, only kept when ols.neo4j.closure is set
+    private ClosureBuilder subClassClosure;
+    private ClosureBuilder hierarchicalClosure;
+    // parents of each class by relation label, written as jstree_parents for the class jstree
+    private Map<Long, Map<String, Set<Long>>> treeParents;
+    private static final ObjectMapper mapper = new ObjectMapper();
 
     public Logger getLogger() {
         return logger;
@@ -54,9 +76,10 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
     @Autowired
     private GraphDatabaseService db;
 
-    private Map<String, Object> isaProperties = new HashMap<>();
-    private Map<String, Object> subPropertyProperties = new HashMap<>();
-    private Map<String, Object> rdfTypeProperties = new HashMap<>();
+    private RelationPropertyRegistry relationProperties;
+    private Map<String, Object> isaProperties;
+    private Map<String, Object> subPropertyProperties;
+    private Map<String, Object> rdfTypeProperties;
 
     private Label nodeOntologyLabel;
 
@@ -71,103 +94,125 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
 
     }
 
-    protected BatchNeo4JIndexer(String ontologyName, BatchInserterIndex batchInserterIndex,
-    		BatchInserterIndexProvider batchInserterIndexProvider, BatchInserter batchInserter) {
+    protected BatchNeo4JIndexer(String ontologyName, BatchInserter batchInserter) {
     	
     	nodeOntologyLabel = DynamicLabel.label(ontologyName.toUpperCase());
-    	index = batchInserterIndex;
-    	indexProvider = batchInserterIndexProvider;
     	inserter = batchInserter;
+    	setRelationProperties(ontologyName);
     }
     
-    private Long getOrCreateMergedNode(BatchInserter inserter, Map<String, Long> mergedNodeMap,
-    		OntologyLoader loader, IRI classIri, Label ... nodeLabel) {
-
-        if (!mergedNodeMap.containsKey(classIri.toString())) {
+    private Long getOrCreateMergedNode(BatchInserter inserter, OntologyLoader loader, IRI classIri,
+    		Label ... nodeLabel) {
 
-            // link to merged node
-            IndexHits<Long> hits = null;
+        long mergedNode = mergedNodes.get(classIri.toString());
+        if (mergedNode == MergedNodeDictionary.NOT_FOUND) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("iri", classIri.toString());
+            properties.put("label", loader.getTermLabels().get(classIri));
 
-            try {
-                getLogger().debug("classIri = " + classIri);
-                hits = index.get("iri", classIri);
-            } catch (Throwable t) {
-                getLogger().error(t.getMessage(), t);
-            }
+            mergedNode = inserter.createNode(properties, nodeLabel);
+            mergedNodes.put(classIri.toString(), mergedNode);
+        }
+        return mergedNode;
+    }
 
-            if (hits != null && hits.size() == 0) {
-                Map<String, Object> properties = new HashMap<>();
-                properties.put("iri", classIri.toString());
-                properties.put("label", loader.getTermLabels().get(classIri));
+    /**
+     * Opens the merged node dictionary kept in the Neo4j directory, and checks it against the merged nodes of the
+     * store. The dictionary is rebuilt from the store if it is missing, e.g. for stores that were built before the
+     * dictionary existed, or if the store has merged nodes that weren't flushed to it, e.g. when the indexer stopped
+     * between shutting down the batch inserter and flushing the dictionary.
+     */
+    private void openMergedNodeDictionary() throws IndexingException {
+        File neo4jDirectory = new File(getStorePath());
+        try {
+            mergedNodes = MergedNodeDictionary.open(neo4jDirectory);
+        } catch (IOException e) {
+            throw new IndexingException("Couldn't read the merged node dictionary in " + neo4jDirectory, e);
+        }
+        if (!new File(neo4jDirectory, "neostore").exists()) {
+            // a new store, there are no merged nodes yet
+            return;
+        }
 
-                Long hit = inserter.createNode(properties, nodeLabel);
-                index.add(hit, properties);
-                mergedNodeMap.put(classIri.toString(), hit);
-            }
-            else {
-                if (hits != null && hits.size() > 1) {
-                    System.out.println("WARING: found more than one iri in merged terms for: " + classIri);
+        GraphDatabaseService graphDatabase = getGraphDatabase();
+        try (Transaction tx = graphDatabase.beginTx()) {
+            Object maxId = graphDatabase.execute(
+                    "match (n:" + mergedClassLabel.name() + ") return max(id(n)) as maxId").next().get("maxId");
+            long storeMaxId = maxId == null ? MergedNodeDictionary.NOT_FOUND : ((Number) maxId).longValue();
+
+            if (!mergedNodes.isConsistentWith(storeMaxId)) {
+                getLogger().warn("Merged node dictionary in " + neo4jDirectory + " is up to node " +
+                        mergedNodes.getHighWaterMark() + ", the merged nodes of the store are up to node " +
+                        storeMaxId + ", rebuilding it from the store");
+                mergedNodes = MergedNodeDictionary.rebuild(neo4jDirectory);
+                Result result = graphDatabase.execute(
+                        "match (n:" + mergedClassLabel.name() + ") return n.iri as iri, id(n) as id");
+                while (result.hasNext()) {
+                    Map<String, Object> row = result.next();
+                    if (row.get("iri") != null) {
+                        mergedNodes.put(row.get("iri").toString(), (Long) row.get("id"));
+                    }
                 }
-                Long mergedNode = hits.getSingle();
-                mergedNodeMap.put(classIri.toString(), mergedNode);
+                flushMergedNodeDictionary();
             }
+            tx.success();
+        } catch (IOException e) {
+            throw new IndexingException("Couldn't rebuild the merged node dictionary in " + neo4jDirectory, e);
+        }
+        finally {
+            graphDatabase.shutdown();
+        }
+    }
+
+    private void flushMergedNodeDictionary() throws IndexingException {
+        try {
+            mergedNodes.flush();
+        } catch (IOException e) {
+            throw new IndexingException("Couldn't write the merged node dictionary", e);
         }
-        return mergedNodeMap.get(classIri.toString());
     }
 
     private void setOntologyLabel (String ontologyName) {
         nodeOntologyLabel   = DynamicLabel.label(ontologyName.toUpperCase());
     }
 
-    private BatchInserter getBatchIndexer (String ontologyName) {
-        inserter = OLSBatchIndexerCreator.createBatchInserter(inserter, 
-        		OlsNeo4jConfiguration.getNeo4JPath());
-
-        OLSBatchIndexerCreator.createSchemaIndexes(inserter);
-
-        isaProperties.put("uri", "http://www.w3.org/2000/01/rdf-schema#subClassOf");
-        isaProperties.put("label", "is a");
-        isaProperties.put("ontology_name", ontologyName);
-        isaProperties.put("__type__", "SubClassOf");
+    BatchInserter getBatchIndexer (String ontologyName) {
+        if (!inSession || inserter == null) {
+            inserter = createBatchInserter();
 
-        subPropertyProperties.put("uri", "http://www.w3.org/2000/01/rdf-schema#subPropertyOf");
-        subPropertyProperties.put("label", "sub property of");
-        subPropertyProperties.put("ontology_name", ontologyName);
-        subPropertyProperties.put("__type__", "SubPropertyOf");
-
-        rdfTypeProperties.put("uri", "http://www.w3.org/1999/02/22-rdf-syntax-ns#type>");
-        rdfTypeProperties.put("label", "type");
-        rdfTypeProperties.put("ontology_name", ontologyName);
-        rdfTypeProperties.put("__type__", "Type");
+            // deferred schema indexes are populated when the inserter is shut down
+            OLSBatchIndexerCreator.createSchemaIndexes(inserter);
+        }
 
-       	index = getBatchInserterIndex(getIndexProvider(inserter));
+        setRelationProperties(ontologyName);
 
         return inserter;
 
     }
 
-    private BatchInserterIndexProvider getIndexProvider (BatchInserter inserter) {
-
-        indexProvider =
-            new LuceneBatchInserterIndexProvider(inserter);
-        return indexProvider;
+    protected BatchInserter createBatchInserter() {
+        return OLSBatchIndexerCreator.createBatchInserter(inserter, getStorePath());
     }
 
-    private BatchInserterIndex getBatchInserterIndex(BatchInserterIndexProvider indexProvider) {
-        BatchInserterIndex entities = null;
-        try {
-            entities = indexProvider.nodeIndex("Resource", MapUtil.stringMap("type", "exact"));
-            entities.setCacheCapacity("iri", 1000000);
-        } catch (Throwable t) {
-            getLogger().error(t.getMessage(), t);
-        }
-        return entities;
+    /**
+     * Starts the relationship property maps of an ontology, each is built once and shared by its relationships
+     */
+    private void setRelationProperties(String ontologyName) {
+        relationProperties = new RelationPropertyRegistry(ontologyName,
+                OlsNeo4jConfiguration.isRelationPropertiesSlim());
+        isaProperties = relationProperties.get("SubClassOf",
+                "http://www.w3.org/2000/01/rdf-schema#subClassOf", "is a");
+        subPropertyProperties = relationProperties.get("SubPropertyOf",
+                "http://www.w3.org/2000/01/rdf-schema#subPropertyOf", "sub property of");
+        rdfTypeProperties = relationProperties.get("Type",
+                "http://www.w3.org/1999/02/22-rdf-syntax-ns#type>", "type");
     }
 
-    private void indexProperties(BatchInserter inserter, OntologyLoader loader, Map<String, Long> nodeMap, Map<String, Long> mergedNodeMap) {
+    private void indexProperties(BatchInserter inserter, OntologyLoader loader, Map<String, Long> nodeMap) {
 
         // index relations
-        Collection<IRI> allRelations = loader.getAllObjectPropertyIRIs();
+        // a copy, the loader's collections are shared with the other indexers
+        Collection<IRI> allRelations = new LinkedHashSet<>(loader.getAllObjectPropertyIRIs());
         allRelations.addAll(loader.getAllDataPropertyIRIs());
         allRelations.addAll(loader.getAllAnnotationPropertyIRIs());
         getLogger().debug("Creating Neo4j index for " + allRelations.size() + " properties");
@@ -176,8 +221,7 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
             Long node = NodeCreator.getOrCreateNode(inserter, nodeMap,loader, objectPropertyIri, 
             		new LinkedList<Label>(Arrays.asList(relationLabel, _relationLabel, 
             				nodeOntologyLabel)));
-            Long mergedNode = getOrCreateMergedNode(inserter, mergedNodeMap, loader, 
-            		objectPropertyIri, mergedClassLabel);
+            Long mergedNode = getOrCreateMergedNode(inserter, loader, objectPropertyIri, mergedClassLabel);
 
             // add refers link
             inserter.createRelationship( node, mergedNode, refersTo, null);
@@ -204,18 +248,21 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
     }
 
     private void indexIndividuals(BatchInserter inserter, OntologyLoader loader, 
-    		Map<String, Long> nodeMap, Map<String, Long> mergedNodeMap, Map<String, Long> classNodeMap) {
+    		Map<String, Long> nodeMap, Map<String, Long> classNodeMap) {
         
     	getLogger().debug("Creating Neo4j index for " + loader.getAllIndividualIRIs().size() + " individuals");
 
+        ParallelNodeCreator.createNodes(inserter, nodeMap, loader, loader.getAllIndividualIRIs(),
+        		() -> new LinkedList<Label>(Arrays.asList(instanceLabel, _instanceLabel, nodeOntologyLabel)),
+        		OlsNeo4jConfiguration.getIndexingThreads());
+
         for (IRI individualIri : loader.getAllIndividualIRIs()) {
 
             Long node = NodeCreator.getOrCreateNode(inserter, nodeMap,loader, individualIri, 
             		new LinkedList<Label>(Arrays.asList(instanceLabel, _instanceLabel, 
             				nodeOntologyLabel)));
 
-            Long mergedNode = getOrCreateMergedNode(inserter, mergedNodeMap, loader, individualIri, 
-            		mergedClassLabel);
+            Long mergedNode = getOrCreateMergedNode(inserter, loader, individualIri, mergedClassLabel);
 
             // add refers link
             inserter.createRelationship( node, mergedNode, refersTo, null);
@@ -256,11 +303,8 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
     		Collection<Label> nodeLabels) {
     	
         for (IRI relation : relatedIndividuals.keySet()) {
-            Map<String, Object> relatedProperties = new HashMap<>();
-            relatedProperties.put("uri", relation.toString());
-            relatedProperties.put("label", loader.getTermLabels().get(relation));
-            relatedProperties.put("ontology_name", loader.getOntologyName());
-            relatedProperties.put("__type__", "Related");
+            Map<String, Object> relatedProperties = relationProperties.get("Related", relation.toString(),
+                    loader.getTermLabels().get(relation));
 
             for (IRI relatedTerm : relatedIndividuals.get(relation)) {
                 //TODO review right parameters
@@ -287,11 +331,8 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
     		Collection<Label> nodeLabels) {
         
     	for (IRI relation : relatedIndividuals.keySet()) {
-            Map<String, Object> relatedProperties = new HashMap<>();
-            relatedProperties.put("uri", relation.toString());
-            relatedProperties.put("label", loader.getTermLabels().get(relation));
-            relatedProperties.put("ontology_name", loader.getOntologyName());
-            relatedProperties.put("__type__", "RelatedIndividual");
+            Map<String, Object> relatedProperties = relationProperties.get("RelatedIndividual",
+                    relation.toString(), loader.getTermLabels().get(relation));
 
             for (IRI relatedTerm : relatedIndividuals.get(relation)) {
                 //TODO review right parameters
@@ -303,17 +344,29 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
         }
     }
 
-    void indexClasses(BatchInserter inserter, OntologyLoader loader, Map<String, Long> nodeMap, 
-    		Map<String, Long> mergedNodeMap) {
+    void indexClasses(BatchInserter inserter, OntologyLoader loader, Map<String, Long> nodeMap) {
         getLogger().debug("Creating Neo4j index for " + loader.getAllClasses().size() + " classes");
 
+        // the class nodes are built in parallel up front, the loop below then finds them in nodeMap
+        ParallelNodeCreator.createNodes(inserter, nodeMap, loader, loader.getAllClasses(),
+        		() -> new LinkedList<Label>(Arrays.asList(nodeLabel, nodeOntologyLabel, _nodeLabel)),
+        		OlsNeo4jConfiguration.getIndexingThreads());
+
+        boolean closureIndexed = OlsNeo4jConfiguration.isClosureIndexed();
+        subClassClosure = closureIndexed ? new ClosureBuilder() : null;
+        hierarchicalClosure = closureIndexed ? new ClosureBuilder() : null;
+        treeParents = closureIndexed ? new HashMap<>() : null;
+
         for (IRI classIri : loader.getAllClasses()) {
 
             Long node = NodeCreator.getOrCreateNode(inserter, nodeMap,loader, classIri, 
             		new LinkedList<Label>(Arrays.asList(nodeLabel, nodeOntologyLabel, _nodeLabel)));
+            if (hierarchicalClosure != null) {
+                subClassClosure.addNode(node);
+                hierarchicalClosure.addNode(node);
+            }
 
-            Long mergedNode = getOrCreateMergedNode(inserter, mergedNodeMap, loader, classIri, 
-            		mergedClassLabel);
+            Long mergedNode = getOrCreateMergedNode(inserter, loader, classIri, mergedClassLabel);
 
             // add refers link
             inserter.createRelationship( node, mergedNode, refersTo, null);
@@ -331,6 +384,65 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
             		loader,nodeMap, new LinkedList<Label>(Arrays.asList(
                             instanceLabel, nodeOntologyLabel, _instanceLabel)));
         }
+
+        if (hierarchicalClosure != null) {
+            indexClosure(inserter, loader);
+        }
+    }
+
+    /**
+     * Writes an ANCESTOR relationship from every class to each of its SUBCLASSOF ancestors, and a
+     * HIERARCHICALANCESTOR relationship to each of its SUBCLASSOF and RelatedTree ancestors. The classes are marked
+     * with closure_indexed so queries know the relationships are there.
+     *
+     * The direct SUBCLASSOF and RelatedTree parents of each class, grouped by relation label, are written as JSON in
+     * jstree_parents. Together with the closure that is all that is needed to build the class jstree, see
+     * ClassJsTreeBuilder.
+     */
+    private void indexClosure(BatchInserter inserter, OntologyLoader loader) {
+        long start = System.currentTimeMillis();
+        long ancestors = 0;
+        long hierarchicalAncestors = 0;
+        try {
+            for (Long node : hierarchicalClosure.getNodes()) {
+                for (long ancestorNode : subClassClosure.getAncestors(node)) {
+                    inserter.createRelationship(node, ancestorNode, ancestor, null);
+                    ancestors++;
+                }
+                for (long ancestorNode : hierarchicalClosure.getAncestors(node)) {
+                    inserter.createRelationship(node, ancestorNode, hierarchicalAncestor, null);
+                    hierarchicalAncestors++;
+                }
+                inserter.setNodeProperty(node, Neo4JNodePropertyNameConstants.CLOSURE_INDEXED, true);
+                if (treeParents.containsKey(node)) {
+                    inserter.setNodeProperty(node, Neo4JNodePropertyNameConstants.JSTREE_PARENTS,
+                            mapper.writeValueAsString(treeParents.get(node)));
+                }
+            }
+        }
+        catch (JsonProcessingException e) {
+            throw new IndexingException("Couldn't write the jstree parents for " + loader.getOntologyName(), e);
+        }
+        finally {
+            subClassClosure = null;
+            hierarchicalClosure = null;
+            treeParents = null;
+        }
+        getLogger().info("#### Monitoring " + loader.getOntologyName() + ":Closure:" + ancestors + " ancestor and " +
+                hierarchicalAncestors + " hierarchical ancestor relationships in " +
+                (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void recordHierarchyEdge(long child, long parent, Object relationLabel, boolean subClassOf) {
+        if (hierarchicalClosure != null) {
+            if (subClassOf) {
+                subClassClosure.addEdge(child, parent);
+            }
+            hierarchicalClosure.addEdge(child, parent);
+            treeParents.computeIfAbsent(child, k -> new LinkedHashMap<>())
+                    .computeIfAbsent(String.valueOf(relationLabel), k -> new LinkedHashSet<>())
+                    .add(parent);
+        }
     }
 
 	private void addParentAndRelatedParentNodesWithRelationships(BatchInserter inserter, OntologyLoader loader,
@@ -342,6 +454,7 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
 		        		new LinkedList<Label>(Arrays.asList(nodeLabel, nodeOntologyLabel, _nodeLabel)));
 		        // create local relationship
 		        inserter.createRelationship(node, parentNode, isa, isaProperties);
+		        recordHierarchyEdge(node, parentNode, isaProperties.get("label"), true);
 		    }
 		}
 		else if (loader.getRelatedParentTerms(classIri).isEmpty()) {
@@ -349,11 +462,11 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
 		    		IRI.create(THING), new LinkedList<Label>(Arrays.asList(nodeLabel, nodeOntologyLabel, 
 		    		    _nodeLabel, rootLabel)));
 		    inserter.createRelationship( node, thing, isa, isaProperties);
+		    recordHierarchyEdge(node, thing, isaProperties.get("label"), true);
 		}
 	}
     
-    void indexClassesDeprecated(BatchInserter inserter, OntologyLoader loader, Map<String, Long> nodeMap, 
-    		Map<String, Long> mergedNodeMap) {
+    void indexClassesDeprecated(BatchInserter inserter, OntologyLoader loader, Map<String, Long> nodeMap) {
     	
         getLogger().debug("Creating Neo4j index for " + loader.getAllClasses().size() + " classes");
 
@@ -362,8 +475,7 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
             Long node = NodeCreator.getOrCreateNode(inserter, nodeMap,loader, classIri, 
             		new LinkedList<Label>(Arrays.asList(nodeLabel, nodeOntologyLabel, _nodeLabel)));
 
-            Long mergedNode = getOrCreateMergedNode(inserter, mergedNodeMap, loader, classIri, 
-            		mergedClassLabel);
+            Long mergedNode = getOrCreateMergedNode(inserter, loader, classIri, mergedClassLabel);
 
             // add refers link
             inserter.createRelationship( node, mergedNode, refersTo, null);
@@ -387,17 +499,10 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
 
 
 		for (IRI relation : relatedterms.keySet()) {
-		    Map<String, Object> relatedProperties = new HashMap<>();
-		    relatedProperties.put("uri", relation.toString());
-		    relatedProperties.put("label", loader.getTermLabels().get(relation));
-		    relatedProperties.put("ontology_name", loader.getOntologyName());
-		    relatedProperties.put("__type__", "Related");
-
-		    Map<String, Object> relatedTreeProperties = new HashMap<>();
-		    relatedTreeProperties.put("uri", relation.toString());
-		    relatedTreeProperties.put("label", loader.getTermLabels().get(relation));
-		    relatedTreeProperties.put("ontology_name", loader.getOntologyName());
-		    relatedTreeProperties.put("__type__", "RelatedTree");
+		    Map<String, Object> relatedProperties = relationProperties.get("Related", relation.toString(),
+		    		loader.getTermLabels().get(relation));
+		    Map<String, Object> relatedTreeProperties = relationProperties.get("RelatedTree",
+		    		relation.toString(), loader.getTermLabels().get(relation));
 
 		    for (IRI relatedTerm : relatedterms.get(relation)) {
 		        Long relatedNode =  NodeCreator.getOrCreateNode(inserter, nodeMap,loader, relatedTerm, 
@@ -409,6 +514,7 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
 		            if (loader.getRelatedParentTerms(classIri).containsKey(relation)) {
 		                inserter.createRelationship(node, relatedNode, treeRelation, 
 		                		relatedTreeProperties);
+		                recordHierarchyEdge(node, relatedNode, relatedTreeProperties.get("label"), false);
 		            }
 		        }
 		    }
@@ -424,9 +530,11 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
         Map<String, Long> propertyNodeMap = new HashMap<>();
         Map<String, Long> individualNodeMap = new HashMap<>();
 
-        // store a local cache of merged term nodes
-        Map<String, Long> mergedNodeMap = new HashMap<>();
-
+        requireSessionForBlueGreen("index " + loaders.size() + " ontologies");
+        if (!inSession) {
+            // merged term nodes are shared by all ontologies in the store
+            openMergedNodeDictionary();
+        }
 
         for (OntologyLoader loader : loaders) {
 
@@ -434,32 +542,165 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
             
             setOntologyLabel(loader.getOntologyName());
             // index classes
-            indexClasses(inserter, loader, classNodeMap, mergedNodeMap);
+            indexClasses(inserter, loader, classNodeMap);
             // index properties
-            indexProperties(inserter, loader, propertyNodeMap, mergedNodeMap);
+            indexProperties(inserter, loader, propertyNodeMap);
             // index individuals
             // avoid duplicating Thing in the graph
             if (classNodeMap.containsKey("http://www.w3.org/2002/07/owl#Thing")) {
                 individualNodeMap.put("http://www.w3.org/2002/07/owl#Thing", classNodeMap.get("http://www.w3.org/2002/07/owl#Thing"));
             }
-            indexIndividuals(inserter, loader, individualNodeMap, mergedNodeMap, classNodeMap);
-
-            OLSBatchIndexerCreator.createSchemaIndexes(inserter);
+            indexIndividuals(inserter, loader, individualNodeMap, classNodeMap);
 
             getLogger().info("Neo4j index for " + loader.getAllClasses().size() + " classes complete");
             getLogger().info("Neo4j index for " + loader.getAllObjectPropertyIRIs().size() + " object properties complete");
             getLogger().info("Neo4j index for " + loader.getAllAnnotationPropertyIRIs().size() + " annotation  properties complete");
             getLogger().info("Neo4j index for " + loader.getAllDataPropertyIRIs().size() + " data properties complete");
             getLogger().info("Neo4j index for " + loader.getAllIndividualIRIs().size() + " individuals complete");
+            getLogger().info("#### Monitoring " + loader.getOntologyName() + ":Relations:" +
+                    relationProperties.size() + " relationship property maps" +
+                    (relationProperties.isSlim() ? ", slim layout" : ""));
 
-            indexProvider.shutdown();
-            inserter.shutdown();
+            if (inSession) {
+                ontologyLabelsInStore.add(nodeOntologyLabel.name());
+            }
+            else {
+                closeBatchIndexer();
+            }
         }
 
+        if (!inSession) {
+            awaitSchemaIndexes();
+        }
+    }
 
-        // check indexes online
+    /**
+     * Keeps a single batch inserter open for all the ontologies indexed until {@link #endSession()}, so the store is
+     * only opened and closed once and the schema indexes are only populated once, at the end of the session.
+     *
+     * Nodes can't be deleted with a batch inserter. Ontologies that aren't in the store yet are dropped without
+     * touching it, but dropping an ontology that is in the store closes the inserter, and the next ontology reopens
+     * it. Ontologies passed to {@link #beginSession(Collection)} are dropped before the inserter is first opened.
+     *
+     * With blue/green indexing (see {@link Neo4jStoreSwitcher}) the session works on a copy of the live store, which
+     * replaces the live store in {@link #endSession()} once its schema indexes are online.
+     */
+    @Override
+    public void beginSession() throws IndexingException {
+        beginSession(Collections.<String>emptyList());
+    }
 
-//        db.shutdown();
+    /**
+     * Starts a session, see {@link #beginSession()}, and drops the given ontologies that are in the store with a
+     * single opening of the store, so reloading them doesn't close and reopen the batch inserter
+     */
+    @Override
+    public void beginSession(Collection<String> reloadedOntologies) throws IndexingException {
+        // shutdown any autowired graph dbs for batch loading
+        if (db != null) {
+            db.shutdown();
+        }
+        if (Neo4jStoreSwitcher.isBlueGreen()) {
+            try {
+                nextStore = Neo4jStoreSwitcher.prepareNextStore();
+            } catch (IOException e) {
+                throw new IndexingException("Couldn't prepare the next Neo4j store", e);
+            }
+            getLogger().info("Building the next Neo4j store in " + nextStore);
+        }
+        openMergedNodeDictionary();
+
+        ontologyLabelsInStore = new HashSet<>();
+        db = getGraphDatabase();
+        try {
+            try (Transaction tx = db.beginTx()) {
+                for (Label label : GlobalGraphOperations.at(db).getAllLabelsInUse()) {
+                    ontologyLabelsInStore.add(label.name());
+                }
+                tx.success();
+            }
+            for (String ontologyName : reloadedOntologies) {
+                if (ontologyLabelsInStore.remove(ontologyName.toUpperCase())) {
+                    deleteNodes(ontologyName);
+                }
+            }
+        }
+        finally {
+            db.shutdown();
+            db = null;
+        }
+        inSession = true;
+        getLogger().info("Started Neo4j indexing session, " + ontologyLabelsInStore.size() + " labels in store");
+    }
+
+    @Override
+    public void endSession() throws IndexingException {
+        if (!inSession) {
+            return;
+        }
+        try {
+            closeBatchIndexer();
+        }
+        finally {
+            inSession = false;
+            ontologyLabelsInStore = null;
+        }
+        try {
+            awaitSchemaIndexes();
+            if (nextStore != null) {
+                // only a store with all its schema indexes online goes live
+                Neo4jStoreSwitcher.switchTo(nextStore);
+            }
+        } catch (IOException e) {
+            throw new IndexingException("Couldn't switch to the Neo4j store in " + nextStore, e);
+        }
+        finally {
+            nextStore = null;
+        }
+        getLogger().info("Finished Neo4j indexing session");
+    }
+
+    /**
+     * With blue/green indexing the live store is read only, it is only replaced at the end of a session, so writing
+     * outside a session is refused
+     */
+    private void requireSessionForBlueGreen(String operation) throws IndexingException {
+        if (Neo4jStoreSwitcher.isBlueGreen() && !inSession) {
+            throw new IndexingException("Can't " + operation + " outside an indexing session with blue/green Neo4j " +
+                    "indexing, the live store is only replaced by endSession()", new IllegalStateException());
+        }
+    }
+
+    /**
+     * Shuts down the batch inserter, if one is open, and records the merged nodes it created. They are recorded once
+     * they are in the store, if the indexer stops in between the dictionary is rebuilt when it is next opened.
+     */
+    private void closeBatchIndexer() throws IndexingException {
+        if (inserter != null) {
+            inserter.shutdown();
+            inserter = null;
+            flushMergedNodeDictionary();
+            logStoreSize();
+        }
+    }
+
+    /**
+     * Logs the size of the relationship and property stores, to compare the relationship property layouts
+     */
+    private void logStoreSize() {
+        StringBuilder sizes = new StringBuilder("#### Monitoring Neo4j store sizes:");
+        for (String storeFile : new String[] {"neostore.relationshipstore.db", "neostore.propertystore.db",
+                "neostore.propertystore.db.strings"}) {
+            File file = new File(getStorePath(), storeFile);
+            sizes.append(" ").append(storeFile).append("=").append(file.length() / 1024).append("KB");
+        }
+        getLogger().info(sizes.toString());
+    }
+
+    /**
+     * Waits for the deferred schema indexes created by the batch inserter to come online
+     */
+    private void awaitSchemaIndexes() throws IndexingException {
         db = getGraphDatabase();
 
         Transaction tx = db.beginTx();
@@ -494,7 +735,14 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
     }
 
     protected GraphDatabaseService getGraphDatabase () {
-   		return new GraphDatabaseFactory().newEmbeddedDatabase(neo4jConfiguration.getNeo4JPath());
+   		return new GraphDatabaseFactory().newEmbeddedDatabase(getStorePath());
+    }
+
+    /**
+     * @return the directory of the store being indexed, the next store while a blue/green session is open
+     */
+    protected String getStorePath() {
+        return nextStore != null ? nextStore.getAbsolutePath() : OlsNeo4jConfiguration.getNeo4JPath();
     }
 
     public void dropIndex(OntologyLoader loader) throws IndexingException {
@@ -504,8 +752,19 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
     @Override
     public void dropIndex(String ontologyId) throws IndexingException {
 
-        // shutdown any autowired graph dbs for batch loading
-        db.shutdown();
+        requireSessionForBlueGreen("drop " + ontologyId);
+        if (inSession) {
+            if (!ontologyLabelsInStore.remove(ontologyId.toUpperCase())) {
+                getLogger().debug(ontologyId + " isn't in the Neo4j store, nothing to drop");
+                return;
+            }
+            // the batch inserter holds the store lock, it is reopened by the next createIndex
+            closeBatchIndexer();
+        }
+        else if (db != null) {
+            // shutdown any autowired graph dbs for batch loading
+            db.shutdown();
+        }
         db = getGraphDatabase();
 
         deleteNodes(ontologyId);
@@ -515,75 +774,74 @@ public class BatchNeo4JIndexer implements OntologyIndexer {
 
     }
 
+    /**
+     * Deletes all the nodes of an ontology, and their relationships. The ids of the nodes are collected with a single
+     * scan of the ontology label, then the nodes are deleted by id in transactions of at most DELETE_SIZE deletions.
+     * A node with more relationships than that is deleted over several transactions, its relationships first and the
+     * node itself once they are all gone. Merged nodes aren't labelled with the ontology so they are kept.
+     */
     private void deleteNodes(String ontologyName) {
-
-        int count = getNodeCount(
-                "match (n:" + ontologyName.toUpperCase() + ")-[r]->() return count(r) as count", ontologyName);
-
-        for (int x = 0; x < count ; x +=DELETE_SIZE) {
-
-            Transaction tx = db.beginTx();
-
-            try {
-                String cypherDelete =
-                        "match (n:" + ontologyName.toUpperCase() + ")-[r]->() with r limit " + 
-                        		DELETE_SIZE + " delete r";
-                getLogger().info("executing delete: " + cypherDelete);
-                Result result = db.execute(cypherDelete);
-                getLogger().info(result.resultAsString());
-
+        long start = System.currentTimeMillis();
+        long[] nodeIds = getNodeIds(ontologyName);
+        int deleteSize = getDeleteSize();
+
+        long deletedRelationships = 0;
+        int next = 0;
+        while (next < nodeIds.length) {
+            int deletions = 0;
+            try (Transaction tx = db.beginTx()) {
+                while (next < nodeIds.length && deletions < deleteSize) {
+                    Node node = db.getNodeById(nodeIds[next]);
+                    Iterator<Relationship> relationships = node.getRelationships().iterator();
+                    while (relationships.hasNext() && deletions < deleteSize) {
+                        relationships.next().delete();
+                        deletions++;
+                        deletedRelationships++;
+                    }
+                    if (relationships.hasNext()) {
+                        // the rest of the relationships, and the node, are deleted in the next transaction
+                        break;
+                    }
+                    node.delete();
+                    deletions++;
+                    next++;
+                }
                 tx.success();
             } catch (Exception e) {
-                tx.failure();
                 throw new IndexingException("Couldn't drop: " + ontologyName, e);
             }
-            tx.close();
+            getLogger().debug("Deleted " + next + " of " + nodeIds.length + " nodes of " + ontologyName);
         }
 
-        count = getNodeCount(
-                "match (n:" + ontologyName.toUpperCase() + ") return count(n) as count", ontologyName
-        );
-        for (int x = 0; x < count ; x +=DELETE_SIZE) {
-
-            Transaction tx = db.beginTx();
-
-            try {
-                String cypherDelete =
-                        "match (n:" + ontologyName.toUpperCase() + ") with n limit " + DELETE_SIZE + " delete n";
-                getLogger().info("executing delete: " + cypherDelete);
-                Result result = db.execute(cypherDelete);
-                getLogger().info(result.resultAsString());
-
-                tx.success();
-            } catch (Exception e) {
-                tx.failure();
-                throw new IndexingException("Couldn't drop: " + ontologyName, e);
-            }
-            tx.close();
-        }
+        getLogger().info("#### Monitoring " + ontologyName + ":Dropped Neo4j index:" + nodeIds.length + " nodes and " +
+                deletedRelationships + " relationships in " + (System.currentTimeMillis() - start) + " ms");
     }
 
-    private int getNodeCount(String nodeCountCypher, String ontologyName) {
-
-        Long count;
+    /**
+     * @return the most nodes and relationships deleted in one transaction
+     */
+    protected int getDeleteSize() {
+        return DELETE_SIZE;
+    }
 
-        Transaction tx = db.beginTx();
-        try {
-            getLogger().debug("executing count: " + nodeCountCypher);
-            Result result = db.execute(nodeCountCypher);
+    private long[] getNodeIds(String ontologyName) {
+        long[] nodeIds = new long[1024];
+        int count = 0;
 
-            count = (Long) result.next().get("count");
-            getLogger().debug("query count " + count);
+        try (Transaction tx = db.beginTx();
+             ResourceIterator<Node> nodes = db.findNodes(DynamicLabel.label(ontologyName.toUpperCase()))) {
+            while (nodes.hasNext()) {
+                if (count == nodeIds.length) {
+                    nodeIds = Arrays.copyOf(nodeIds, count * 2);
+                }
+                nodeIds[count++] = nodes.next().getId();
+            }
             tx.success();
         }
         catch (Exception e) {
-            tx.failure();
-            throw new IndexingException("Couldn't count: " + ontologyName, e);
-        }
-        finally {
-            tx.close();
+            throw new IndexingException("Couldn't find the nodes of: " + ontologyName, e);
         }
-        return count.intValue();
+        return Arrays.copyOf(nodeIds, count);
     }
 
 
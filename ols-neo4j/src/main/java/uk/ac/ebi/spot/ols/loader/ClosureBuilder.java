@@ -0,0 +1,76 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the hierarchy edges written for an ontology, as node ids, and computes the transitive closure of each node
+ * from them. The closure is computed from the edges that are actually in the graph, so it gives the same nodes as a
+ * variable length traversal of those relationships, including owl:Thing above the root terms.
+ *
+ * Samples, Phenotypes and Ontologies Team
+ * EMBL-EBI
+ */
+class ClosureBuilder {
+
+	private static final long[] NONE = new long[0];
+
+	private final Set<Long> nodes = new LinkedHashSet<>();
+	private final Map<Long, long[]> parents = new HashMap<>();
+
+	void addNode(long node) {
+		nodes.add(node);
+	}
+
+	void addEdge(long child, long parent) {
+		nodes.add(child);
+		nodes.add(parent);
+		long[] nodeParents = parents.getOrDefault(child, NONE);
+		for (long existing : nodeParents) {
+			if (existing == parent) {
+				return;
+			}
+		}
+		nodeParents = Arrays.copyOf(nodeParents, nodeParents.length + 1);
+		nodeParents[nodeParents.length - 1] = parent;
+		parents.put(child, nodeParents);
+	}
+
+	Set<Long> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return all the nodes reachable from the node, without the node itself
+	 */
+	long[] getAncestors(long node) {
+		long[] direct = parents.get(node);
+		if (direct == null) {
+			return NONE;
+		}
+		Set<Long> visited = new HashSet<>();
+		Deque<Long> stack = new ArrayDeque<>();
+		visited.add(node);
+		stack.push(node);
+		long[] ancestors = new long[direct.length];
+		int count = 0;
+		while (!stack.isEmpty()) {
+			for (long parent : parents.getOrDefault(stack.pop(), NONE)) {
+				if (visited.add(parent)) {
+					if (count == ancestors.length) {
+						ancestors = Arrays.copyOf(ancestors, count * 2);
+					}
+					ancestors[count++] = parent;
+					stack.push(parent);
+				}
+			}
+		}
+		return Arrays.copyOf(ancestors, count);
+	}
+}
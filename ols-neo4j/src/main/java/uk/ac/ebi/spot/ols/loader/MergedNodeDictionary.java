@@ -0,0 +1,274 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent dictionary from the IRI of a merged {@link Neo4JIndexerConstants#mergedClassLabel} node to its node id.
+ * It replaces the legacy Lucene "Resource" index that used to be queried for every term.
+ *
+ * IRIs are stored as 128 bit MD5 hashes in an open addressing table of primitive arrays, 24 bytes per entry. The
+ * table is kept in a file in the Neo4j directory, so it is removed together with the store. The file is an append
+ * only journal of (hash, node id) entries. It is memory mapped and read once when the dictionary is opened, and
+ * {@link #flush()} only appends the entries added since the last flush.
+ *
+ * Each flush ends with a mark, an entry with an all zero hash that holds the highest merged node id in the
+ * dictionary. The nodes are written to the store before they are flushed, so if the indexer stops in between the store
+ * has merged nodes above the mark, and the dictionary has to be rebuilt from the store (see
+ * {@link #isConsistentWith(long)}).
+ *
+ * Samples, Phenotypes and Ontologies Team
+ * EMBL-EBI
+ */
+class MergedNodeDictionary {
+
+	private static final Logger logger = LoggerFactory.getLogger(MergedNodeDictionary.class);
+
+	static final String FILE_NAME = "ols-merged-nodes.dict";
+
+	private static final long MAGIC = 0x4f4c534d45524745L;
+	private static final int HEADER_SIZE = 8;
+	private static final int ENTRY_SIZE = 24;
+	private static final int INITIAL_CAPACITY = 1 << 16;
+
+	static final long NOT_FOUND = -1;
+
+	private final File file;
+	private final MessageDigest digest;
+
+	private long[] hashHigh;
+	private long[] hashLow;
+	private long[] nodeIds;
+	private int size = 0;
+	private long maxNodeId = NOT_FOUND;
+	// the highest node id in the last mark of the journal
+	private long highWaterMark = NOT_FOUND;
+
+	// entries added since the last flush, as (high, low, node id) triples
+	private long[] pending = new long[3 * 1024];
+	private int pendingCount = 0;
+
+	private MergedNodeDictionary(File file) {
+		this.file = file;
+		try {
+			this.digest = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("MD5 is not available", e);
+		}
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * A dictionary that isn't persisted, for indexers that don't own a Neo4j directory
+	 */
+	static MergedNodeDictionary inMemory() {
+		return new MergedNodeDictionary(null);
+	}
+
+	/**
+	 * Opens the dictionary stored in the Neo4j directory, or an empty one if there is no dictionary file yet
+	 */
+	static MergedNodeDictionary open(File neo4jDirectory) throws IOException {
+		MergedNodeDictionary dictionary = new MergedNodeDictionary(new File(neo4jDirectory, FILE_NAME));
+		dictionary.load();
+		return dictionary;
+	}
+
+	/**
+	 * Deletes the dictionary stored in the Neo4j directory, for it to be rebuilt from the store
+	 */
+	static MergedNodeDictionary rebuild(File neo4jDirectory) throws IOException {
+		Files.deleteIfExists(new File(neo4jDirectory, FILE_NAME).toPath());
+		return open(neo4jDirectory);
+	}
+
+	/**
+	 * @return true if the dictionary was read from a file. Without a file it can't be relied on for stores that
+	 * were built before the dictionary existed.
+	 */
+	boolean isPersisted() {
+		return file != null && file.exists();
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the highest node id in the last mark of the journal, or NOT_FOUND if it has no mark
+	 */
+	long getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	/**
+	 * @param storeMaxNodeId the highest id of the merged nodes in the store, NOT_FOUND if there are none
+	 * @return true if the journal was completely written after the last merged nodes were added to the store
+	 */
+	boolean isConsistentWith(long storeMaxNodeId) {
+		return isPersisted() && highWaterMark == storeMaxNodeId && highWaterMark == maxNodeId;
+	}
+
+	long get(String iri) {
+		byte[] hash = hash(iri);
+		long high = toLong(hash, 0);
+		long low = toLong(hash, 8);
+		int mask = nodeIds.length - 1;
+		for (int slot = (int) low & mask; ; slot = (slot + 1) & mask) {
+			if (nodeIds[slot] == NOT_FOUND) {
+				return NOT_FOUND;
+			}
+			if (hashHigh[slot] == high && hashLow[slot] == low) {
+				return nodeIds[slot];
+			}
+		}
+	}
+
+	void put(String iri, long nodeId) {
+		byte[] hash = hash(iri);
+		long high = toLong(hash, 0);
+		long low = toLong(hash, 8);
+		if (insert(high, low, nodeId) && file != null) {
+			if (pendingCount * 3 == pending.length) {
+				pending = Arrays.copyOf(pending, pending.length * 2);
+			}
+			pending[pendingCount * 3] = high;
+			pending[pendingCount * 3 + 1] = low;
+			pending[pendingCount * 3 + 2] = nodeId;
+			pendingCount++;
+		}
+	}
+
+	/**
+	 * Appends the entries added since the last flush to the dictionary file, followed by a mark. This should be
+	 * called once the nodes have been written to the store, i.e. after the batch inserter has been shut down.
+	 */
+	void flush() throws IOException {
+		if (file == null || (pendingCount == 0 && file.exists())) {
+			return;
+		}
+		boolean newFile = !file.exists();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file, true), 1 << 16))) {
+			if (newFile) {
+				out.writeLong(MAGIC);
+			}
+			for (int i = 0; i < pendingCount * 3; i++) {
+				out.writeLong(pending[i]);
+			}
+			out.writeLong(0);
+			out.writeLong(0);
+			out.writeLong(maxNodeId);
+		}
+		highWaterMark = maxNodeId;
+		logger.debug("Appended " + pendingCount + " merged nodes to " + file);
+		pendingCount = 0;
+	}
+
+	private void load() throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+				FileChannel channel = randomAccessFile.getChannel()) {
+			long length = channel.size();
+			if (length < HEADER_SIZE) {
+				throw new IOException("Merged node dictionary " + file + " is truncated");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			if (buffer.getLong() != MAGIC) {
+				throw new IOException(file + " is not a merged node dictionary");
+			}
+			// a partially written entry at the end of the journal is ignored
+			long entries = (length - HEADER_SIZE) / ENTRY_SIZE;
+			int capacity = INITIAL_CAPACITY;
+			while (capacity < entries * 2) {
+				capacity *= 2;
+			}
+			allocate(capacity);
+			for (long i = 0; i < entries; i++) {
+				long high = buffer.getLong();
+				long low = buffer.getLong();
+				long nodeId = buffer.getLong();
+				if (high == 0 && low == 0) {
+					highWaterMark = nodeId;
+				}
+				else {
+					insert(high, low, nodeId);
+				}
+			}
+		}
+		logger.info("Loaded " + size + " merged nodes from " + file + ", up to node " + highWaterMark);
+	}
+
+	/**
+	 * @return false if the hash was already present
+	 */
+	private boolean insert(long high, long low, long nodeId) {
+		if ((size + 1) * 2 > nodeIds.length) {
+			rehash();
+		}
+		int mask = nodeIds.length - 1;
+		int slot = (int) low & mask;
+		while (nodeIds[slot] != NOT_FOUND) {
+			if (hashHigh[slot] == high && hashLow[slot] == low) {
+				nodeIds[slot] = nodeId;
+				maxNodeId = Math.max(maxNodeId, nodeId);
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		hashHigh[slot] = high;
+		hashLow[slot] = low;
+		nodeIds[slot] = nodeId;
+		size++;
+		maxNodeId = Math.max(maxNodeId, nodeId);
+		return true;
+	}
+
+	private void rehash() {
+		long[] oldHigh = hashHigh;
+		long[] oldLow = hashLow;
+		long[] oldNodeIds = nodeIds;
+		allocate(oldNodeIds.length * 2);
+		for (int i = 0; i < oldNodeIds.length; i++) {
+			if (oldNodeIds[i] != NOT_FOUND) {
+				insert(oldHigh[i], oldLow[i], oldNodeIds[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		hashHigh = new long[capacity];
+		hashLow = new long[capacity];
+		nodeIds = new long[capacity];
+		Arrays.fill(nodeIds, NOT_FOUND);
+		size = 0;
+	}
+
+	private byte[] hash(String iri) {
+		return digest.digest(iri.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static long toLong(byte[] bytes, int offset) {
+		long value = 0;
+		for (int i = offset; i < offset + 8; i++) {
+			value = (value << 8) | (bytes[i] & 0xff);
+		}
+		return value;
+	}
+}
@@ -38,6 +38,9 @@ class Neo4JIndexerConstants {
     static final RelationshipType related = DynamicRelationshipType.withName("Related");
     static final RelationshipType relatedIndividual = DynamicRelationshipType.withName("RelatedIndividual");
     static final RelationshipType treeRelation = DynamicRelationshipType.withName("RelatedTree");
+    // closure of SUBCLASSOF, and of SUBCLASSOF and RelatedTree, only written when ols.neo4j.closure is set
+    static final RelationshipType ancestor = DynamicRelationshipType.withName("ANCESTOR");
+    static final RelationshipType hierarchicalAncestor = DynamicRelationshipType.withName("HIERARCHICALANCESTOR");
 
 	private Neo4JIndexerConstants() {
 	}
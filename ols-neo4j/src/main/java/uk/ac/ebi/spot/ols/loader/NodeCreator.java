@@ -1,6 +1,7 @@
 package uk.ac.ebi.spot.ols.loader;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +37,9 @@ class NodeCreator {
 	
 	protected static Logger logger = LoggerFactory.getLogger(NodeCreator.class);
 	
+	// ObjectMapper is thread safe once configured, so one instance is shared by all node payload producers
+	private static final ObjectMapper mapper = new ObjectMapper();
+	
 	protected NodeCreator() {
 	}
 
@@ -43,6 +47,16 @@ class NodeCreator {
     		OntologyLoader loader, IRI classIri, Collection<Label> nodeLabels) {
     	
         if (!nodeMap.containsKey(classIri.toString())) {
+        	createNode(inserter, nodeMap, createNodePayload(loader, classIri, nodeLabels));
+        }
+        return nodeMap.get(classIri.toString());
+    }
+    
+    /**
+     * Builds the properties and labels of the node for classIri. This only reads from the loader, so payloads can
+     * be built concurrently, see {@link ParallelNodeCreator}.
+     */
+    static NodePayload createNodePayload(OntologyLoader loader, IRI classIri, Collection<Label> nodeLabels) {
             Map<String, Object> nodeProperties = new HashMap<>();
             
             nodeProperties.put(OLS_ID, generateOlsId(loader.getOntologyName(), classIri));
@@ -75,21 +89,45 @@ class NodeCreator {
             addOboRelatedPropertiesConditionally(loader, classIri, nodeProperties);
             addObsoleteLabelConditionally(loader, classIri, nodeLabels);
             
-        	Label labelArray[] = nodeLabels.toArray(new Label[nodeLabels.size()]);
-        	logger.debug("classIri = " + classIri);
-        	logger.debug("nodeLabels = " + nodeLabels);
+            return new NodePayload(classIri.toString(), nodeProperties, 
+            		nodeLabels.toArray(new Label[nodeLabels.size()]));
+    }
+    
+    /**
+     * Writes a node to the batch inserter, unless a node for the same IRI is already in nodeMap. The batch inserter
+     * isn't thread safe so this must only be called from one thread.
+     */
+    static Long createNode(BatchInserter inserter, Map<String, Long> nodeMap, NodePayload payload) {
+        if (!nodeMap.containsKey(payload.iri)) {
+        	logger.debug("classIri = " + payload.iri);
+        	logger.debug("nodeLabels = " + Arrays.toString(payload.labels));
         	logger.debug("inserter = " + inserter);
 
 			long classNode = 0;
         	try {
-				classNode = inserter.createNode(nodeProperties, labelArray);
+				classNode = inserter.createNode(payload.properties, payload.labels);
 			} catch (Throwable t) {
         		logger.error(t.getMessage(), t);
 			}
 
-            nodeMap.put(classIri.toString(), classNode);
+            nodeMap.put(payload.iri, classNode);
         }
-        return nodeMap.get(classIri.toString());
+        return nodeMap.get(payload.iri);
+    }
+    
+    /**
+     * The properties and labels of a node that is ready to be written
+     */
+    static class NodePayload {
+    	private final String iri;
+    	private final Map<String, Object> properties;
+    	private final Label[] labels;
+    	
+    	NodePayload(String iri, Map<String, Object> properties, Label[] labels) {
+    		this.iri = iri;
+    		this.properties = properties;
+    		this.labels = labels;
+    	}
     }
 
 	protected static void addPreferredRootPropertyConditionally(OntologyLoader loader, IRI classIri,
@@ -112,7 +150,6 @@ class NodeCreator {
 
 	protected static void addOboRelatedPropertiesConditionally(OntologyLoader loader, IRI classIri,
 			Map<String, Object> nodeProperties) {
-		ObjectMapper mapper = new ObjectMapper();            
 		addOboDefinitionCitationPropertyConditionally(mapper, loader, classIri, nodeProperties);
 		addOboSynonymsPropertyConditionally(mapper, loader, classIri, nodeProperties);
 		addOboXRefsConditionally(mapper, loader, classIri, nodeProperties);
@@ -9,15 +9,13 @@ import java.io.File;
 
 import org.neo4j.graphdb.ConstraintViolationException;
 import org.neo4j.graphdb.Label;
-import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.kernel.DefaultFileSystemAbstraction;
 import org.neo4j.unsafe.batchinsert.BatchInserter;
-import org.neo4j.unsafe.batchinsert.BatchInserterIndex;
-import org.neo4j.unsafe.batchinsert.BatchInserterIndexProvider;
 import org.neo4j.unsafe.batchinsert.BatchInserters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.ac.ebi.spot.ols.config.Neo4jMemoryTuner;
 import uk.ac.ebi.spot.ols.config.OlsNeo4jConfiguration;
 
 /**
@@ -41,7 +39,8 @@ class OLSBatchIndexerCreator {
 		
 			inserter = BatchInserters.inserter(
                 file.getAbsolutePath(),
-                new DefaultFileSystemAbstraction());
+                new DefaultFileSystemAbstraction(),
+                Neo4jMemoryTuner.forStore(file).getConfig());
 //		}
 		
 		return inserter;
@@ -51,17 +50,6 @@ class OLSBatchIndexerCreator {
 		return createBatchInserter(null, OlsNeo4jConfiguration.getNeo4JPath());
 	}
 	
-	static BatchInserterIndex createBatchInserterIndex(BatchInserterIndexProvider indexProvider) {
-		BatchInserterIndex batchInserterIndex = null;
-		try {
-			batchInserterIndex = indexProvider.nodeIndex("Resource", MapUtil.stringMap("type", "exact"));
-			batchInserterIndex.setCacheCapacity("iri", 1000000);
-		} catch (Throwable t) {
-			logger.error(t.getMessage(), t);
-		}
-        return batchInserterIndex;
-	}
-	
     static void createSchemaIndexes(BatchInserter inserter) {
         createSchemaIndexIfNotExists(inserter, mergedClassLabel, 
         		NodeLabelPropertyEnum.IRI.getPropertyName());
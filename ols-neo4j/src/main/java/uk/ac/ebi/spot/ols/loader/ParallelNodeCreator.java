@@ -0,0 +1,133 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.ebi.spot.ols.exception.IndexingException;
+
+/**
+ * Creates the nodes for a collection of terms with a pool of producer threads that build the node properties
+ * (labels, synonyms, annotations, JSON serialised OBO data...) and a single consumer, the calling thread, that writes
+ * them to the batch inserter. The batch inserter isn't thread safe, but building the property maps is most of the work
+ * of creating a node, so it is spread across the cores.
+ *
+ * Terms are handed to the producers in chunks and only a few chunks are in flight at a time, which bounds the memory
+ * held by payloads that haven't been written yet. Chunks are written in submission order, so node ids are assigned in
+ * the same order as when the nodes are created sequentially.
+ *
+ * Samples, Phenotypes and Ontologies Team
+ * EMBL-EBI
+ */
+class ParallelNodeCreator {
+
+	private static final Logger logger = LoggerFactory.getLogger(ParallelNodeCreator.class);
+
+	private static final int CHUNK_SIZE = 1000;
+	private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+	private ParallelNodeCreator() {
+	}
+
+	/**
+	 * Creates a node for every IRI that isn't in nodeMap yet.
+	 *
+	 * @param nodeLabels supplies a new label collection for every node, as the labels of a node are added to while its
+	 * properties are built
+	 */
+	static void createNodes(BatchInserter inserter, Map<String, Long> nodeMap, OntologyLoader loader,
+			Collection<IRI> iris, Supplier<Collection<Label>> nodeLabels, int threads) {
+
+		long start = System.currentTimeMillis();
+		int created = nodeMap.size();
+
+		if (threads <= 1 || iris.size() <= CHUNK_SIZE) {
+			for (IRI iri : iris) {
+				NodeCreator.getOrCreateNode(inserter, nodeMap, loader, iri, nodeLabels.get());
+			}
+		} else {
+			ExecutorService producers = Executors.newFixedThreadPool(threads, new ProducerThreadFactory());
+			try {
+				Iterator<IRI> remaining = iris.iterator();
+				Deque<Future<List<NodeCreator.NodePayload>>> inFlight = new ArrayDeque<>();
+				while (remaining.hasNext() && inFlight.size() < threads * CHUNKS_IN_FLIGHT_PER_THREAD) {
+					inFlight.add(submitChunk(producers, nodeMap, loader, remaining, nodeLabels));
+				}
+				while (!inFlight.isEmpty()) {
+					List<NodeCreator.NodePayload> payloads = inFlight.poll().get();
+					// keep the producers busy while this chunk is written
+					if (remaining.hasNext()) {
+						inFlight.add(submitChunk(producers, nodeMap, loader, remaining, nodeLabels));
+					}
+					for (NodeCreator.NodePayload payload : payloads) {
+						NodeCreator.createNode(inserter, nodeMap, payload);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IndexingException("Interrupted while creating nodes for " + loader.getOntologyName(), e);
+			} catch (ExecutionException e) {
+				throw new IndexingException("Failed to create nodes for " + loader.getOntologyName(), e.getCause());
+			} finally {
+				producers.shutdownNow();
+			}
+		}
+
+		created = nodeMap.size() - created;
+		long elapsed = Math.max(1, System.currentTimeMillis() - start);
+		logger.info("#### Monitoring " + loader.getOntologyName() + ":Created nodes:" + created + " in " + elapsed +
+				" ms with " + threads + " threads (" + (created * 1000L / elapsed) + " nodes/s)");
+	}
+
+	/**
+	 * Takes the next chunk of IRIs on the calling thread, so nodeMap is only ever read by the consumer, and builds
+	 * their payloads on a producer thread.
+	 */
+	private static Future<List<NodeCreator.NodePayload>> submitChunk(ExecutorService producers,
+			Map<String, Long> nodeMap, OntologyLoader loader, Iterator<IRI> remaining,
+			Supplier<Collection<Label>> nodeLabels) {
+
+		List<IRI> chunk = new ArrayList<>(CHUNK_SIZE);
+		while (remaining.hasNext() && chunk.size() < CHUNK_SIZE) {
+			IRI iri = remaining.next();
+			if (!nodeMap.containsKey(iri.toString())) {
+				chunk.add(iri);
+			}
+		}
+		return producers.submit(() -> {
+			List<NodeCreator.NodePayload> payloads = new ArrayList<>(chunk.size());
+			for (IRI iri : chunk) {
+				payloads.add(NodeCreator.createNodePayload(loader, iri, nodeLabels.get()));
+			}
+			return payloads;
+		});
+	}
+
+	private static class ProducerThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "neo4j-node-builder-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
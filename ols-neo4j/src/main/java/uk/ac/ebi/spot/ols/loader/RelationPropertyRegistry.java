@@ -0,0 +1,64 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Relationship property maps of the ontology being indexed, built once for each relationship type and relation and
+ * shared by all the relationships written for it, instead of a new map for every relationship.
+ *
+ * In the slim layout (ols.neo4j.relation.slim) relationships only get the uri and label that queries read. The
+ * ontology_name and __type__ are only kept on the types mapped to a relationship entity, such as Related, the others
+ * get them from their start node and relationship type.
+ *
+ * Samples, Phenotypes and Ontologies Team
+ * EMBL-EBI
+ */
+class RelationPropertyRegistry {
+
+	// types read through a @RelationshipEntity
+	private static final Set<String> MAPPED_TYPES = new HashSet<>(Arrays.asList("Related", "RelatedIndividual"));
+
+	private final String ontologyName;
+	private final boolean slim;
+	private final Map<String, Map<String, Object>> properties = new HashMap<>();
+
+	RelationPropertyRegistry(String ontologyName, boolean slim) {
+		this.ontologyName = ontologyName;
+		this.slim = slim;
+	}
+
+	/**
+	 * @param type value of __type__, the kind of relationship
+	 * @return the properties of a relationship of that type for the relation, not to be modified
+	 */
+	Map<String, Object> get(String type, String uri, String label) {
+		return properties.computeIfAbsent(type + " " + uri, k -> create(type, uri, label));
+	}
+
+	/**
+	 * @return the number of distinct property maps
+	 */
+	int size() {
+		return properties.size();
+	}
+
+	boolean isSlim() {
+		return slim;
+	}
+
+	private Map<String, Object> create(String type, String uri, String label) {
+		Map<String, Object> relationProperties = new HashMap<>();
+		relationProperties.put("uri", uri);
+		relationProperties.put("label", label);
+		if (!slim || MAPPED_TYPES.contains(type)) {
+			relationProperties.put("ontology_name", ontologyName);
+			relationProperties.put("__type__", type);
+		}
+		return Collections.unmodifiableMap(relationProperties);
+	}
+}
@@ -22,6 +22,8 @@ public class Neo4JNodePropertyNameConstants {
 	public final static String OBO_XREF = "obo_xref";
 	public final static String OBO_SYNONYM = "obo_synonym";
 	public final static String IS_PREFERRED_ROOT = "is_preferred_root";
+	public final static String CLOSURE_INDEXED = "closure_indexed";
+	public final static String JSTREE_PARENTS = "jstree_parents";
 	
 	public final static String SUPER_CLASS_DESCRIPTION = "superClassDescription";
 	public final static String EQUIVALENT_CLASS_DESCRIPTION = "equivalentClassDescription";
@@ -54,6 +54,24 @@ public interface OntologyTermRepository extends GraphRepository<Term> {
                 value = "MATCH (n:Class)-[:SUBCLASSOF*]->(parent) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN distinct parent")
     Page<Term> getAncestors(String ontologyName, String iri, Pageable pageable);
 
+    // the closure queries below can only be used for terms indexed with closure_indexed, see OntologyTermGraphService
+
+    @Query(countQuery = "MATCH (n:Class)-[:ANCESTOR]->(parent) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN count(distinct parent)",
+                value = "MATCH (n:Class)-[:ANCESTOR]->(parent) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN distinct parent")
+    Page<Term> getClosureAncestors(String ontologyName, String iri, Pageable pageable);
+
+    @Query(countQuery = "MATCH (n:Class)<-[:ANCESTOR]-(child) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN count(distinct child)",
+            value = "MATCH (n:Class)<-[:ANCESTOR]-(child) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN distinct child")
+    Page<Term> getClosureDescendants(String ontologyName, String iri, Pageable pageable);
+
+    @Query(countQuery = "MATCH (n:Class)-[:HIERARCHICALANCESTOR]->(parent) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN count(distinct parent)",
+            value = "MATCH (n:Class)-[:HIERARCHICALANCESTOR]->(parent) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN distinct parent")
+    Page<Term> getClosureHierarchicalAncestors(String ontologyName, String iri, Pageable pageable);
+
+    @Query(countQuery = "MATCH (n:Class)<-[:HIERARCHICALANCESTOR]-(child) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN count(distinct child)",
+            value = "MATCH (n:Class)<-[:HIERARCHICALANCESTOR]-(child) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN distinct child")
+    Page<Term> getClosureHierarchicalDescendants(String ontologyName, String iri, Pageable pageable);
+
     @Query(countQuery = "MATCH (n:Class)-[r:Related]->(related) WHERE n.ontology_name = {0} AND n.iri = {1} AND r.uri = {2} RETURN count(distinct related)",
                 value = "MATCH (n:Class)-[r:Related]->(related) WHERE n.ontology_name = {0} AND n.iri = {1} AND r.uri = {2} RETURN distinct related")
     Page<Term> getRelated(String ontologyName, String iri, String relation, Pageable pageable);
@@ -40,6 +40,16 @@ public abstract class AbstractJsTreeBuilder {
     abstract String getRootName();
     abstract String getJsTreeRoots(ViewMode viewMode);
 
+    /**
+     * Rows in the same form as the results of the parent (or parent sibling) query for the term, built from data
+     * written at index time so no traversal is needed.
+     *
+     * @return null if there is no such data for the term and the query has to be run
+     */
+    Iterator<Map<String, Object>> getPrecomputedJsTreeRows(String ontologyName, String iri, boolean sibling) {
+        return null;
+    }
+
 
     public Object getJsTree(String ontologyName, String iri, boolean sibling) {
         logger.debug("ontologyName = " + ontologyName);
@@ -50,8 +60,11 @@ public abstract class AbstractJsTreeBuilder {
         paramt.put("0", ontologyName);
         paramt.put("1", iri);
 
-        String query = (sibling) ? getJsTreeParentSiblingQuery() : getJsTreeParentQuery();
-        Result result = graphDatabaseService.execute(query, paramt);
+        Iterator<Map<String, Object>> result = getPrecomputedJsTreeRows(ontologyName, iri, sibling);
+        if (result == null) {
+            String query = (sibling) ? getJsTreeParentSiblingQuery() : getJsTreeParentQuery();
+            result = graphDatabaseService.execute(query, paramt);
+        }
 
         setRootName(getRootName());
         Object jsTreeObject = getJsTreeObject(ontologyName, iri, result, ViewMode.ALL);
@@ -69,12 +82,18 @@ public abstract class AbstractJsTreeBuilder {
         paramt.put("0", ontologyName);
         paramt.put("1", iri);
 
-        String query = (sibling) ? getJsTreeParentSiblingQuery(viewMode) : getJsTreeParentQuery(viewMode);
+        Iterator<Map<String, Object>> result = null;
+        if (viewMode == ViewMode.ALL) {
+            result = getPrecomputedJsTreeRows(ontologyName, iri, sibling);
+        }
+        if (result == null) {
+            String query = (sibling) ? getJsTreeParentSiblingQuery(viewMode) : getJsTreeParentQuery(viewMode);
 
 
-        logger.debug("query = " + query);
+            logger.debug("query = " + query);
 
-        Result result = graphDatabaseService.execute(query, paramt);
+            result = graphDatabaseService.execute(query, paramt);
+        }
 
         if (!result.hasNext()) {
             result = graphDatabaseService.execute(getJsTreeRoots(viewMode), paramt);
@@ -165,7 +184,8 @@ public abstract class AbstractJsTreeBuilder {
      * @param result
      * @return
      */
-    private Object getJsTreeObject(String ontologyName, String iri, Result result, ViewMode viewMode) {
+    private Object getJsTreeObject(String ontologyName, String iri, Iterator<Map<String, Object>> result,
+                                   ViewMode viewMode) {
         logger.debug("ontologyName = " + ontologyName);
         logger.debug("iri = " + iri);
 
@@ -214,7 +234,8 @@ public abstract class AbstractJsTreeBuilder {
      * @param result
      * @return
      */
-    private Map<String, List<Map<String, Object>>> createMapOfListOfMapQueryResults(Result result) {
+    private Map<String, List<Map<String, Object>>> createMapOfListOfMapQueryResults(
+            Iterator<Map<String, Object>> result) {
         Map<String, List<Map<String, Object>>> resultsMap = new HashMap<>();
         while (result.hasNext()) {
             Map<String, Object> r = result.next();
@@ -1,14 +1,130 @@
 package uk.ac.ebi.spot.ols.neo4j.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.*;
+
+import static uk.ac.ebi.spot.ols.neo4j.model.Neo4JNodePropertyNameConstants.*;
+
 @Component
 public class ClassJsTreeBuilder extends AbstractJsTreeBuilder {
 
     private static Logger logger = LoggerFactory.getLogger(ClassJsTreeBuilder.class);
 
+    private static final Label CLASS = DynamicLabel.label("Class");
+    private static final RelationshipType SUBCLASSOF = DynamicRelationshipType.withName("SUBCLASSOF");
+    private static final RelationshipType RELATED_TREE = DynamicRelationshipType.withName("RelatedTree");
+    private static final RelationshipType HIERARCHICAL_ANCESTOR =
+            DynamicRelationshipType.withName("HIERARCHICALANCESTOR");
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final TypeReference<Map<String, List<Long>>> TREE_PARENTS =
+            new TypeReference<Map<String, List<Long>>>() {};
+
+    /**
+     * Builds the rows of the parent (sibling) query from the HIERARCHICALANCESTOR relationships and jstree_parents
+     * properties written when the ontology was indexed with ols.neo4j.closure. Only the term is looked up through the
+     * iri index, then ancestors are read with single hop expansions, and their children when siblings are asked for.
+     */
+    @Override
+    Iterator<Map<String, Object>> getPrecomputedJsTreeRows(String ontologyName, String iri, boolean sibling) {
+        if (graphDatabaseService == null) {
+            return null;
+        }
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            Node term = findTerm(ontologyName, iri);
+            if (term == null || !Boolean.TRUE.equals(term.getProperty(CLOSURE_INDEXED, false))) {
+                return null;
+            }
+
+            // rows are grouped by start node and relation, like the query
+            Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+            addParentRows(term, sibling, rows);
+            for (Relationship toAncestor : term.getRelationships(Direction.OUTGOING, HIERARCHICAL_ANCESTOR)) {
+                Node ancestor = toAncestor.getEndNode();
+                addParentRows(ancestor, sibling, rows);
+                if (sibling) {
+                    for (Relationship fromChild : ancestor.getRelationships(Direction.INCOMING, SUBCLASSOF,
+                            RELATED_TREE)) {
+                        Node child = fromChild.getStartNode();
+                        if (isCurrent(child)) {
+                            addRow(child, String.valueOf(fromChild.getProperty(LABEL, null)), ancestor.getId(), rows);
+                        }
+                    }
+                }
+            }
+            tx.success();
+            return new ArrayList<>(rows.values()).iterator();
+        }
+        catch (IOException e) {
+            logger.error("Couldn't read the jstree parents of " + iri + " in " + ontologyName, e);
+            return null;
+        }
+    }
+
+    private Node findTerm(String ontologyName, String iri) {
+        try (ResourceIterator<Node> nodes = graphDatabaseService.findNodes(CLASS, IRI, iri)) {
+            while (nodes.hasNext()) {
+                Node node = nodes.next();
+                if (ontologyName.equals(node.getProperty(ONTOLOGY_NAME, null))) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void addParentRows(Node node, boolean sibling, Map<String, Map<String, Object>> rows)
+            throws IOException {
+        Object treeParents = node.getProperty(JSTREE_PARENTS, null);
+        if (treeParents == null || (sibling && !isCurrent(node))) {
+            return;
+        }
+        Map<String, List<Long>> parentsByRelation = mapper.readValue(treeParents.toString(), TREE_PARENTS);
+        for (Map.Entry<String, List<Long>> relation : parentsByRelation.entrySet()) {
+            for (Long parent : relation.getValue()) {
+                addRow(node, relation.getKey(), parent, rows);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addRow(Node node, String relation, long parent, Map<String, Map<String, Object>> rows) {
+        Map<String, Object> row = rows.computeIfAbsent(node.getId() + " " + relation, k -> {
+            Map<String, Object> newRow = new HashMap<>();
+            newRow.put("startId", node.getId());
+            newRow.put("startIri", node.getProperty(IRI, null));
+            newRow.put("startLabel", node.getProperty(LABEL, null));
+            newRow.put("hasChildren", node.getProperty(HAS_CHILDREN, false));
+            newRow.put("relation", relation);
+            newRow.put("parents", new ArrayList<Long>());
+            return newRow;
+        });
+        List<Long> parents = (List<Long>) row.get("parents");
+        if (!parents.contains(parent)) {
+            parents.add(parent);
+        }
+    }
+
+    // the sibling query leaves out obsolete terms
+    private static boolean isCurrent(Node node) {
+        return Boolean.FALSE.equals(node.getProperty(IS_OBSOLETE, null));
+    }
+
     @Override
     String getJsTreeParentQuery() {
 
@@ -0,0 +1,293 @@
+package uk.ac.ebi.spot.ols.neo4j.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.tooling.GlobalGraphOperations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.spot.ols.config.OlsNeo4jConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Warms the Neo4j store up so the first requests don't wait on the disk. The schema index files are read into the OS
+ * file cache, then all nodes and relationships are read with their properties in id order, which faults the node,
+ * relationship and property stores into the page cache sequentially. Finally the queries recorded in the file set with
+ * ols.neo4j.warmup.queries are replayed, one JSON object per line with a "query" and optional "params".
+ *
+ * The warm-up runs in the background once started, and its progress is reported by {@link #getStatus()}. The web
+ * application starts it at startup, unless ols.neo4j.warmup is false, and restarts it when a blue/green store is
+ * switched. A failed warm-up is tried again ols.neo4j.warmup.attempts times in all (3 by default),
+ * ols.neo4j.warmup.retry.seconds apart (60 by default).
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+@Service
+public class Neo4jWarmupService {
+
+    public enum Phase { NOT_STARTED, SCHEMA_INDEXES, NODES, RELATIONSHIPS, QUERIES, READY, FAILED }
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    private static final int MB = 1024 * 1024;
+
+    @Autowired(required = false)
+    GraphDatabaseService graphDatabaseService;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private volatile Phase phase = Phase.NOT_STARTED;
+    private volatile long schemaIndexBytes;
+    private volatile long nodes;
+    private volatile long relationships;
+    private volatile long queries;
+    private volatile long failedQueries;
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile String message;
+    private volatile int attempt;
+    private volatile boolean warmedUp = false;
+
+    // guarded by this
+    private boolean running = false;
+    private boolean restart = false;
+
+    /**
+     * Starts the warm-up in the background, unless it is running already
+     *
+     * @return false if it was already running
+     */
+    public synchronized boolean start() {
+        if (graphDatabaseService == null || running) {
+            return false;
+        }
+        running = true;
+        attempt = 1;
+        reset();
+
+        Thread warmup = new Thread(this::warmUp, "neo4j-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+        return true;
+    }
+
+    /**
+     * Warms up again, e.g. once the store has been switched. A warm-up that is running is started again once it is
+     * done, as it may have read the previous store.
+     */
+    public synchronized void restart() {
+        if (running) {
+            restart = true;
+        }
+        else {
+            start();
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public boolean isReady() {
+        return phase == Phase.READY;
+    }
+
+    /**
+     * @return true once a store has been warmed up, or once the warm-up has failed its last attempt, as the store is
+     * still served, only slower. An instance that has been warmed up stays ready while the store that replaced it is
+     * warmed up, so a reload doesn't take every instance out of service at once.
+     */
+    public synchronized boolean isReadyToServe() {
+        return warmedUp || (phase == Phase.FAILED && !running);
+    }
+
+    private void reset() {
+        phase = Phase.SCHEMA_INDEXES;
+        schemaIndexBytes = nodes = relationships = queries = failedQueries = 0;
+        startTime = System.currentTimeMillis();
+        endTime = 0;
+        message = null;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("phase", phase);
+        status.put("ready", isReady());
+        status.put("attempt", attempt);
+        status.put("schemaIndexBytes", schemaIndexBytes);
+        status.put("nodes", nodes);
+        status.put("relationships", relationships);
+        status.put("queries", queries);
+        status.put("failedQueries", failedQueries);
+        if (startTime > 0) {
+            status.put("elapsedMillis", (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime);
+        }
+        if (message != null) {
+            status.put("message", message);
+        }
+        return status;
+    }
+
+    private void warmUp() {
+        int attempts = Integer.getInteger("ols.neo4j.warmup.attempts", 3);
+        long retryMillis = TimeUnit.SECONDS.toMillis(Long.getLong("ols.neo4j.warmup.retry.seconds", 60));
+        while (true) {
+            boolean warm = warmUpOnce();
+            synchronized (this) {
+                if (restart) {
+                    restart = false;
+                    attempt = 1;
+                    reset();
+                    continue;
+                }
+                if (warm || attempt >= attempts) {
+                    running = false;
+                    return;
+                }
+            }
+            log.warn("Retrying the Neo4j warm-up in " + retryMillis + " ms, attempt " + (attempt + 1) + " of " +
+                    attempts);
+            try {
+                Thread.sleep(retryMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                synchronized (this) {
+                    running = false;
+                }
+                return;
+            }
+            synchronized (this) {
+                attempt++;
+                reset();
+            }
+        }
+    }
+
+    /**
+     * @return false if the warm-up failed
+     */
+    private boolean warmUpOnce() {
+        try {
+            readSchemaIndexes();
+
+            phase = Phase.NODES;
+            touchNodes();
+
+            phase = Phase.RELATIONSHIPS;
+            touchRelationships();
+
+            phase = Phase.QUERIES;
+            replayQueries();
+
+            endTime = System.currentTimeMillis();
+            phase = Phase.READY;
+            warmedUp = true;
+            log.info("Neo4j warm-up finished in " + (endTime - startTime) + " ms: " + getStatus());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            endTime = System.currentTimeMillis();
+            message = "Failed reading " + phase + ": " + e.getMessage();
+            phase = Phase.FAILED;
+            log.error("Neo4j warm-up failed: " + message, e);
+            return false;
+        }
+    }
+
+    /**
+     * Lucene reads the schema indexes through the OS file cache, so reading the files once is enough
+     */
+    private void readSchemaIndexes() throws IOException {
+        Path schema = Paths.get(OlsNeo4jConfiguration.getNeo4JPath(), "schema");
+        if (!Files.isDirectory(schema)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(schema)) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        byte[] buffer = new byte[MB];
+        for (Path file : files) {
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    schemaIndexBytes += read;
+                }
+            }
+        }
+        log.info("Read " + schemaIndexBytes / MB + " MB of Neo4j schema indexes in " + schema);
+    }
+
+    // a read only transaction holds no state, so the whole scan runs in one
+    private void touchNodes() {
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            for (Node node : GlobalGraphOperations.at(graphDatabaseService).getAllNodes()) {
+                node.getLabels();
+                node.getAllProperties();
+                nodes++;
+            }
+            tx.success();
+        }
+    }
+
+    private void touchRelationships() {
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            for (Relationship relationship : GlobalGraphOperations.at(graphDatabaseService).getAllRelationships()) {
+                relationship.getType();
+                relationship.getAllProperties();
+                relationships++;
+            }
+            tx.success();
+        }
+    }
+
+    private void replayQueries() throws IOException {
+        String queryFile = System.getProperty("ols.neo4j.warmup.queries");
+        if (queryFile == null) {
+            return;
+        }
+        if (!new File(queryFile).exists()) {
+            log.warn("Neo4j warm-up query file " + queryFile + " doesn't exist");
+            return;
+        }
+        for (String line : Files.readAllLines(Paths.get(queryFile))) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                JsonNode recorded = mapper.readTree(line);
+                Map<String, Object> params = recorded.has("params") ?
+                        mapper.convertValue(recorded.get("params"), Map.class) : new HashMap<>();
+                Result result = graphDatabaseService.execute(recorded.get("query").asText(), params);
+                while (result.hasNext()) {
+                    result.next();
+                }
+                tx.success();
+                queries++;
+            } catch (IOException | RuntimeException e) {
+                failedQueries++;
+                log.debug("Couldn't replay Neo4j warm-up query " + line, e);
+            }
+        }
+        log.info("Replayed " + queries + " Neo4j warm-up queries from " + queryFile + ", " + failedQueries +
+                " failed");
+    }
+}
@@ -37,6 +37,8 @@ public class OntologyTermGraphService {
 
     String relatedFromQuery =  "MATCH (x)-[r:Related]->(n:Class) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN r.label as relation, collect( {iri: x.iri, label: x.label})[0..99] as terms limit 100";
 
+    String closureIndexedQuery = "MATCH (n:Class) WHERE n.ontology_name = {0} AND n.iri = {1} RETURN n.closure_indexed as closure";
+
     String usageQuery = "MATCH (n:Resource)<-[r:REFERSTO]-(x) WHERE n.iri = {0} RETURN distinct ({name: x.ontology_name, prefix: x.ontology_prefix}) as usage";
     private Collection<Individual> instances;
 
@@ -112,6 +114,9 @@ public class OntologyTermGraphService {
     }
 
     public Page<Term> getHierarchicalDescendants(String ontologyName, String iri, Pageable pageable) {
+        if (isClosureIndexed(ontologyName, iri)) {
+            return termRepository.getClosureHierarchicalDescendants(ontologyName, iri, pageable);
+        }
         return termRepository.getHierarchicalDescendants(ontologyName, iri, pageable);
     }
 
@@ -120,17 +125,42 @@ public class OntologyTermGraphService {
     }
 
     public Page<Term> getHierarchicalAncestors(String ontologyName, String iri, Pageable pageable) {
+        if (isClosureIndexed(ontologyName, iri)) {
+            return termRepository.getClosureHierarchicalAncestors(ontologyName, iri, pageable);
+        }
         return termRepository.getHierarchicalAncestors(ontologyName, iri, pageable);
     }
 
     public Page<Term> getDescendants(String ontologyName, String iri, Pageable pageable) {
+        if (isClosureIndexed(ontologyName, iri)) {
+            return termRepository.getClosureDescendants(ontologyName, iri, pageable);
+        }
         return termRepository.getDescendants(ontologyName, iri, pageable);
     }
 
     public Page<Term> getAncestors(String ontologyName, String iri, Pageable pageable) {
+        if (isClosureIndexed(ontologyName, iri)) {
+            return termRepository.getClosureAncestors(ontologyName, iri, pageable);
+        }
         return termRepository.getAncestors(ontologyName, iri, pageable);
     }
 
+    /**
+     * @return true if the ancestors of the term were written as relationships when it was indexed, so they can be
+     * read without a variable length traversal
+     */
+    private boolean isClosureIndexed(String ontologyName, String iri) {
+        if (graphDatabaseService == null) {
+            return false;
+        }
+        Map<String, Object> paramt = new HashMap<>();
+        paramt.put("0", ontologyName);
+        paramt.put("1", iri);
+        try (Result res = graphDatabaseService.execute(closureIndexedQuery, paramt)) {
+            return res.hasNext() && Boolean.TRUE.equals(res.next().get("closure"));
+        }
+    }
+
     public Page<Term> getRelated(String ontologyId, String iri, String relation, Pageable pageable) {
         return termRepository.getRelated(ontologyId, iri, relation, pageable);
     }
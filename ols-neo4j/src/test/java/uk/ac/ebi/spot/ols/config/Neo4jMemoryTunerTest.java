@@ -0,0 +1,34 @@
+package uk.ac.ebi.spot.ols.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class Neo4jMemoryTunerTest {
+
+	private static final long MB = 1024 * 1024;
+	private static final long GB = 1024 * MB;
+
+	@Test
+	void testSmallStoreIsCachedWithHeadroom() {
+		assertEquals(1200 * MB, Neo4jMemoryTuner.pageCacheSize(1000 * MB, 16 * GB, 4 * GB));
+		assertEquals(64 * MB, Neo4jMemoryTuner.pageCacheSize(0, 16 * GB, 4 * GB));
+	}
+
+	@Test
+	void testLargeStoreIsLimitedByFreeMemory() {
+		// 16 GB less a 4 GB heap and a reserve of a tenth for the operating system
+		long expected = 16 * GB - 4 * GB - 16 * GB / 10;
+		assertEquals(expected, Neo4jMemoryTuner.pageCacheSize(40 * GB, 16 * GB, 4 * GB));
+		assertEquals(64 * MB, Neo4jMemoryTuner.pageCacheSize(40 * GB, 4 * GB, 4 * GB));
+	}
+
+	@Test
+	void testRecommendedHeapLeavesRoomForTheStore() {
+		// 32 GB less the store and a fifth, and a reserve of a tenth for the operating system
+		long expected = 32 * GB - (10 * GB + 2 * GB) - 32 * GB / 10;
+		assertEquals(expected, Neo4jMemoryTuner.recommendedHeapSize(10 * GB, 32 * GB));
+		// the store doesn't fit whatever the heap
+		assertEquals(512 * MB, Neo4jMemoryTuner.recommendedHeapSize(40 * GB, 16 * GB));
+	}
+}
@@ -0,0 +1,152 @@
+package uk.ac.ebi.spot.ols.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class ReloadableGraphDatabaseTest {
+
+	@TempDir
+	Path directory;
+
+	private final List<String> calls = new ArrayList<>();
+	private final List<String> closed = new ArrayList<>();
+	private final List<String> transactions = new ArrayList<>();
+
+	private Path blue;
+	private Path green;
+	private ReloadableGraphDatabase handler;
+	private GraphDatabaseService db;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		blue = Files.createDirectory(directory.resolve("neo4j-blue")).toRealPath();
+		green = Files.createDirectory(directory.resolve("neo4j-green")).toRealPath();
+		Path live = Files.createSymbolicLink(directory.resolve("neo4j"), blue.getFileName());
+		handler = new ReloadableGraphDatabase(live.toString(), this::open, 0);
+		db = handler.proxy();
+	}
+
+	@Test
+	void testTransactionKeepsItsStoreAcrossASwitch() {
+		Transaction tx = db.beginTx();
+		handler.reopen(green);
+		handler.closeUnused();
+
+		db.isAvailable(0);
+		assertEquals("neo4j-blue", calls.get(0));
+		assertTrue(closed.isEmpty());
+
+		tx.close();
+		handler.closeUnused();
+		assertEquals(1, closed.size());
+		assertEquals("neo4j-blue", closed.get(0));
+
+		db.isAvailable(0);
+		assertEquals("neo4j-green", calls.get(1));
+	}
+
+	@Test
+	void testNestedTransactionsShareTheStore() {
+		Transaction outer = db.beginTx();
+		handler.reopen(green);
+		Transaction inner = db.beginTx();
+		inner.close();
+		handler.closeUnused();
+		assertTrue(closed.isEmpty());
+
+		db.isAvailable(0);
+		assertEquals("neo4j-blue", calls.get(0));
+		outer.close();
+		// closing twice doesn't release the store twice
+		outer.close();
+		handler.closeUnused();
+		assertEquals(1, closed.size());
+	}
+
+	@Test
+	void testUnusedStoreIsClosedAfterSwitch() {
+		db.isAvailable(0);
+		handler.reopen(green);
+		handler.closeUnused();
+		assertEquals(1, closed.size());
+
+		db.isAvailable(0);
+		assertEquals("neo4j-green", calls.get(1));
+	}
+
+	@Test
+	void testResolvedDependencyFollowsTheSwitch() {
+		DependencyResolver resolver = ((GraphDatabaseAPI) db).getDependencyResolver();
+		Supplier<?> dependency = resolver.resolveDependency(Supplier.class);
+		assertEquals("neo4j-blue", dependency.get());
+
+		handler.reopen(green);
+		handler.closeUnused();
+		assertEquals(1, closed.size());
+		assertEquals("neo4j-green", dependency.get());
+	}
+
+	@Test
+	void testTransactionalCallAfterSwitch() {
+		TransactionTemplate transactional = new TransactionTemplate(new GraphTransactionManager(db));
+		transactional.execute(status -> db.isAvailable(0));
+		handler.reopen(green);
+		handler.closeUnused();
+		assertEquals(1, closed.size());
+
+		transactional.execute(status -> {
+			// joins the transaction begun by the outer call
+			return transactional.execute(inner -> db.isAvailable(0));
+		});
+		assertEquals("neo4j-green", calls.get(1));
+		assertEquals(4, transactions.size());
+		assertEquals("neo4j-green success", transactions.get(2));
+		assertEquals("neo4j-green close", transactions.get(3));
+	}
+
+	private GraphDatabaseService open(String store) {
+		String name = Paths.get(store).getFileName().toString();
+		return (GraphDatabaseService) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {GraphDatabaseAPI.class}, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "beginTx":
+							return Proxy.newProxyInstance(getClass().getClassLoader(),
+									new Class<?>[] {Transaction.class}, (tx, txMethod, txArgs) -> {
+										if (txMethod.getDeclaringClass() != Object.class && txMethod.getParameterCount() == 0) {
+											transactions.add(name + " " + txMethod.getName());
+										}
+										return null;
+									});
+						case "getDependencyResolver":
+							return Proxy.newProxyInstance(getClass().getClassLoader(),
+									new Class<?>[] {DependencyResolver.class}, (resolver, resolverMethod,
+											resolverArgs) -> (Supplier<String>) () -> name);
+						case "shutdown":
+							closed.add(name);
+							return null;
+						case "isAvailable":
+							calls.add(name);
+							return true;
+						default:
+							return null;
+					}
+				});
+	}
+}
@@ -0,0 +1,136 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.neo4j.helpers.collection.IteratorUtil.count;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.tooling.GlobalGraphOperations;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+
+public class BatchNeo4JIndexerDropTest {
+
+	private static final int DELETE_SIZE = 10;
+
+	@TempDir
+	Path directory;
+
+	private final AtomicInteger transactions = new AtomicInteger();
+	private final AtomicInteger inserters = new AtomicInteger();
+
+	@Test
+	void testNodeWithMoreRelationshipsThanDeleteSize() {
+		GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabase(directory.toString());
+		try (Transaction tx = db.beginTx()) {
+			Node term = db.createNode(DynamicLabel.label("SYNTHETIC"));
+			for (int i = 0; i < 25; i++) {
+				// merged nodes aren't labelled with the ontology
+				term.createRelationshipTo(db.createNode(), DynamicRelationshipType.withName("SUBCLASSOF"));
+			}
+			tx.success();
+		}
+		finally {
+			db.shutdown();
+		}
+
+		new DropIndexer().dropIndex("synthetic");
+
+		// the label scan, then 10 and 10 relationships, then 5 relationships and the node
+		assertEquals(4, transactions.get());
+		db = new GraphDatabaseFactory().newEmbeddedDatabase(directory.toString());
+		try (Transaction tx = db.beginTx()) {
+			assertEquals(25, count(GlobalGraphOperations.at(db).getAllNodes()));
+			assertEquals(0, count(GlobalGraphOperations.at(db).getAllRelationships()));
+			tx.success();
+		}
+		finally {
+			db.shutdown();
+		}
+	}
+
+	@Test
+	void testInserterOpensOnceWhenReloadingOntologies() {
+		GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabase(directory.toString());
+		try (Transaction tx = db.beginTx()) {
+			for (String ontology : new String[] {"FIRST", "SECOND"}) {
+				db.createNode(DynamicLabel.label(ontology)).createRelationshipTo(db.createNode(),
+						DynamicRelationshipType.withName("SUBCLASSOF"));
+			}
+			tx.success();
+		}
+		finally {
+			db.shutdown();
+		}
+
+		DropIndexer indexer = new DropIndexer();
+		indexer.beginSession(Arrays.asList("first", "second"));
+		for (String ontology : new String[] {"first", "second"}) {
+			indexer.dropIndex(ontology);
+			indexer.getBatchIndexer(ontology);
+		}
+		indexer.endSession();
+
+		assertEquals(1, inserters.get());
+		db = new GraphDatabaseFactory().newEmbeddedDatabase(directory.toString());
+		try (Transaction tx = db.beginTx()) {
+			assertEquals(0, count(db.findNodes(DynamicLabel.label("FIRST"))));
+			assertEquals(0, count(db.findNodes(DynamicLabel.label("SECOND"))));
+			assertEquals(0, count(GlobalGraphOperations.at(db).getAllRelationships()));
+			tx.success();
+		}
+		finally {
+			db.shutdown();
+		}
+	}
+
+	/**
+	 * Indexes the test store, counting the transactions begun and the batch inserters opened
+	 */
+	private class DropIndexer extends BatchNeo4JIndexer {
+
+		@Override
+		protected GraphDatabaseService getGraphDatabase() {
+			GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabase(getStorePath());
+			return (GraphDatabaseService) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] {GraphDatabaseAPI.class}, (proxy, method, args) -> {
+						if ("beginTx".equals(method.getName())) {
+							transactions.incrementAndGet();
+						}
+						try {
+							return method.invoke(db, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					});
+		}
+
+		@Override
+		protected BatchInserter createBatchInserter() {
+			inserters.incrementAndGet();
+			return super.createBatchInserter();
+		}
+
+		@Override
+		protected String getStorePath() {
+			return directory.toString();
+		}
+
+		@Override
+		protected int getDeleteSize() {
+			return DELETE_SIZE;
+		}
+	}
+}
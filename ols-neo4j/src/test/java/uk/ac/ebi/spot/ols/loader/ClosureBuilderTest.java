@@ -0,0 +1,46 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class ClosureBuilderTest {
+
+	@Test
+	void testAncestorsOfDiamond() {
+		ClosureBuilder closure = new ClosureBuilder();
+		// 4 -> 2 -> 1 -> 0 and 4 -> 3 -> 1
+		closure.addEdge(4, 2);
+		closure.addEdge(4, 3);
+		closure.addEdge(2, 1);
+		closure.addEdge(3, 1);
+		closure.addEdge(1, 0);
+		closure.addEdge(4, 2);
+
+		assertArrayEquals(new long[] {0, 1, 2, 3}, sorted(closure.getAncestors(4)));
+		assertArrayEquals(new long[] {0, 1}, sorted(closure.getAncestors(3)));
+		assertArrayEquals(new long[0], closure.getAncestors(0));
+		assertEquals(5, closure.getNodes().size());
+	}
+
+	@Test
+	void testCycleDoesNotIncludeNode() {
+		ClosureBuilder closure = new ClosureBuilder();
+		closure.addEdge(1, 2);
+		closure.addEdge(2, 1);
+		closure.addNode(3);
+
+		assertArrayEquals(new long[] {2}, closure.getAncestors(1));
+		assertArrayEquals(new long[0], closure.getAncestors(3));
+		assertEquals(3, closure.getNodes().size());
+	}
+
+	private static long[] sorted(long[] values) {
+		long[] copy = values.clone();
+		Arrays.sort(copy);
+		return copy;
+	}
+}
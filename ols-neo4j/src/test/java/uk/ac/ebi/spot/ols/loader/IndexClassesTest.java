@@ -30,11 +30,8 @@ import org.neo4j.graphdb.ResourceIterable;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
-import org.neo4j.index.lucene.unsafe.batchinsert.LuceneBatchInserterIndexProvider;
 import org.neo4j.tooling.GlobalGraphOperations;
 import org.neo4j.unsafe.batchinsert.BatchInserter;
-import org.neo4j.unsafe.batchinsert.BatchInserterIndex;
-import org.neo4j.unsafe.batchinsert.BatchInserterIndexProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -93,21 +90,13 @@ public class IndexClassesTest {
             logger.error(e.getMessage(), e);
         }
         
-        BatchInserterIndexProvider batchInserterIndexProvider =
-                    new LuceneBatchInserterIndexProvider(batchInserter);
-        BatchInserterIndex batchInserterIndex = OLSBatchIndexerCreatorTestHelper
-        		.createBatchInserterIndex(batchInserterIndexProvider);
-        
         BatchNeo4JIndexer batchNeo4JIndexer = new BatchNeo4JIndexerHelper(
-        		ontologyLoader.getOntologyName(), batchInserterIndex, batchInserterIndexProvider, 
-        		batchInserter, neo4JDir);
+        		ontologyLoader.getOntologyName(), batchInserter, neo4JDir);
         
         Map<String, Long> classNodeMap = new HashMap<>();
-        Map<String, Long> mergedNodeMap = new HashMap<>();
         
-        batchNeo4JIndexer.indexClasses(batchInserter, ontologyLoader, classNodeMap, mergedNodeMap);
+        batchNeo4JIndexer.indexClasses(batchInserter, ontologyLoader, classNodeMap);
         
-        batchInserterIndexProvider.shutdown();
         batchInserter.shutdown();
 	}
 
@@ -136,23 +125,14 @@ public class IndexClassesTest {
             logger.error(e.getMessage(), e);
         }
         
-        BatchInserterIndexProvider batchInserterIndexProvider =
-                    new LuceneBatchInserterIndexProvider(batchInserter);
-        BatchInserterIndex batchInserterIndex = OLSBatchIndexerCreatorTestHelper
-        		.createBatchInserterIndex(batchInserterIndexProvider);
-        
         BatchNeo4JIndexer batchNeo4JIndexer = new BatchNeo4JIndexerHelper(
-        		ontologyLoader.getOntologyName(), batchInserterIndex, batchInserterIndexProvider,
-        		batchInserter, neo4JDir);
+        		ontologyLoader.getOntologyName(), batchInserter, neo4JDir);
         
         Map<String, Long> classNodeMap = new HashMap<>();
-        Map<String, Long> mergedNodeMap = new HashMap<>();
         
-        batchNeo4JIndexer.indexClassesDeprecated(batchInserter, ontologyLoader, classNodeMap, 
-        		mergedNodeMap);
+        batchNeo4JIndexer.indexClassesDeprecated(batchInserter, ontologyLoader, classNodeMap);
         
         
-        batchInserterIndexProvider.shutdown();
         batchInserter.shutdown();
 	}
 	
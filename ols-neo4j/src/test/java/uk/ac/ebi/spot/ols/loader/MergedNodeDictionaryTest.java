@@ -0,0 +1,101 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MergedNodeDictionaryTest {
+
+	private File neo4jDirectory;
+
+	@BeforeEach
+	void createDirectory() throws IOException {
+		neo4jDirectory = Files.createTempDirectory("MergedNodeDictionaryTest").toFile();
+	}
+
+	@AfterEach
+	void deleteDirectory() throws IOException {
+		FileUtils.deleteDirectory(neo4jDirectory);
+	}
+
+	@Test
+	void testLookupAndGrowth() {
+		MergedNodeDictionary dictionary = MergedNodeDictionary.inMemory();
+		for (int i = 0; i < 200000; i++) {
+			dictionary.put("http://purl.obolibrary.org/obo/TEST_" + i, i);
+		}
+		assertEquals(200000, dictionary.size());
+		assertEquals(12345, dictionary.get("http://purl.obolibrary.org/obo/TEST_12345"));
+		assertEquals(MergedNodeDictionary.NOT_FOUND, dictionary.get("http://purl.obolibrary.org/obo/TEST_200000"));
+		assertFalse(dictionary.isPersisted());
+	}
+
+	@Test
+	void testPersistence() throws IOException {
+		MergedNodeDictionary dictionary = MergedNodeDictionary.open(neo4jDirectory);
+		assertFalse(dictionary.isPersisted());
+		dictionary.put("http://www.ebi.ac.uk/efo/EFO_0000001", 1);
+		dictionary.put("http://purl.obolibrary.org/obo/GO_0008150", 2);
+		dictionary.flush();
+
+		dictionary = MergedNodeDictionary.open(neo4jDirectory);
+		assertTrue(dictionary.isPersisted());
+		dictionary.put("http://purl.obolibrary.org/obo/DUO_0000001", 3);
+		dictionary.flush();
+
+		dictionary = MergedNodeDictionary.open(neo4jDirectory);
+		assertEquals(3, dictionary.size());
+		assertEquals(1, dictionary.get("http://www.ebi.ac.uk/efo/EFO_0000001"));
+		assertEquals(2, dictionary.get("http://purl.obolibrary.org/obo/GO_0008150"));
+		assertEquals(3, dictionary.get("http://purl.obolibrary.org/obo/DUO_0000001"));
+	}
+
+	@Test
+	void testTruncatedEntryIsIgnored() throws IOException {
+		MergedNodeDictionary dictionary = MergedNodeDictionary.open(neo4jDirectory);
+		dictionary.put("http://www.ebi.ac.uk/efo/EFO_0000001", 1);
+		dictionary.put("http://purl.obolibrary.org/obo/GO_0008150", 2);
+		dictionary.flush();
+
+		// the mark and part of the last entry are lost
+		File file = new File(neo4jDirectory, MergedNodeDictionary.FILE_NAME);
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength(file.length() - 24 - 5);
+		}
+
+		dictionary = MergedNodeDictionary.open(neo4jDirectory);
+		assertEquals(1, dictionary.size());
+		assertEquals(1, dictionary.get("http://www.ebi.ac.uk/efo/EFO_0000001"));
+		assertFalse(dictionary.isConsistentWith(2));
+	}
+
+	@Test
+	void testHighWaterMark() throws IOException {
+		MergedNodeDictionary dictionary = MergedNodeDictionary.open(neo4jDirectory);
+		assertFalse(dictionary.isConsistentWith(MergedNodeDictionary.NOT_FOUND));
+		dictionary.put("http://www.ebi.ac.uk/efo/EFO_0000001", 1);
+		dictionary.put("http://purl.obolibrary.org/obo/GO_0008150", 5);
+		dictionary.flush();
+
+		dictionary = MergedNodeDictionary.open(neo4jDirectory);
+		assertEquals(5, dictionary.getHighWaterMark());
+		assertTrue(dictionary.isConsistentWith(5));
+		// merged nodes were added to the store but the dictionary wasn't flushed
+		assertFalse(dictionary.isConsistentWith(7));
+
+		dictionary = MergedNodeDictionary.rebuild(neo4jDirectory);
+		assertEquals(0, dictionary.size());
+		dictionary.flush();
+		assertTrue(MergedNodeDictionary.open(neo4jDirectory).isConsistentWith(MergedNodeDictionary.NOT_FOUND));
+	}
+}
@@ -30,10 +30,7 @@ import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
-import org.neo4j.index.lucene.unsafe.batchinsert.LuceneBatchInserterIndexProvider;
 import org.neo4j.unsafe.batchinsert.BatchInserter;
-import org.neo4j.unsafe.batchinsert.BatchInserterIndex;
-import org.neo4j.unsafe.batchinsert.BatchInserterIndexProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -68,13 +65,8 @@ public class PreferredRootTermsNeo4JIndexTest {
 		try {
 			BatchInserter batchInserter = OLSBatchIndexerCreatorTestHelper
 					.createBatchInserter(null, neo4JDir);	
-			BatchInserterIndexProvider batchInserterIndexProvider =
-	                new LuceneBatchInserterIndexProvider(batchInserter);
-			BatchInserterIndex batchInserterIndex = OLSBatchIndexerCreatorTestHelper
-	    		.createBatchInserterIndex(batchInserterIndexProvider);	        
-	        
 			BatchNeo4JIndexer neo4jIndexer = new BatchNeo4JIndexerHelper(ontologyLoader.getOntologyName(),
-					batchInserterIndex, batchInserterIndexProvider, batchInserter, neo4JDir);
+					batchInserter, neo4JDir);
 			
 			neo4jIndexer.createIndex(ontologyLoader);
 			
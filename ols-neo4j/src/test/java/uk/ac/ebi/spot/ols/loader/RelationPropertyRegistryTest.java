@@ -0,0 +1,44 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class RelationPropertyRegistryTest {
+
+	private static final String PART_OF = "http://purl.obolibrary.org/obo/BFO_0000050";
+
+	@Test
+	void testPropertiesAreSharedPerTypeAndRelation() {
+		RelationPropertyRegistry registry = new RelationPropertyRegistry("efo", false);
+
+		Map<String, Object> related = registry.get("Related", PART_OF, "part of");
+		assertSame(related, registry.get("Related", PART_OF, "part of"));
+		assertNotSame(related, registry.get("RelatedTree", PART_OF, "part of"));
+		assertEquals(2, registry.size());
+
+		assertEquals(PART_OF, related.get("uri"));
+		assertEquals("part of", related.get("label"));
+		assertEquals("efo", related.get("ontology_name"));
+		assertEquals("Related", related.get("__type__"));
+	}
+
+	@Test
+	void testSlimLayoutOnlyKeepsMappedTypesMetadata() {
+		RelationPropertyRegistry registry = new RelationPropertyRegistry("efo", true);
+
+		Map<String, Object> tree = registry.get("RelatedTree", PART_OF, "part of");
+		assertEquals(2, tree.size());
+		assertFalse(tree.containsKey("ontology_name"));
+		assertEquals("part of", tree.get("label"));
+
+		Map<String, Object> related = registry.get("Related", PART_OF, "part of");
+		assertEquals("efo", related.get("ontology_name"));
+		assertEquals("Related", related.get("__type__"));
+	}
+}
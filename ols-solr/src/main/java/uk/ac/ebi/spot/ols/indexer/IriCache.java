@@ -0,0 +1,46 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import org.semanticweb.owlapi.model.IRI;
+import uk.ac.ebi.spot.ols.model.AncestryIds;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts the IRIs of one ontology to the strings and ancestry ids written to Solr, each IRI once whatever the number
+ * of documents that refer to it. Safe to share between the threads building the documents.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+class IriCache {
+
+    private final Map<IRI, String> strings = new ConcurrentHashMap<>();
+    private final Map<IRI, Long> ids = new ConcurrentHashMap<>();
+
+    String string(IRI iri) {
+        return strings.computeIfAbsent(iri, IRI::toString);
+    }
+
+    Set<String> strings(Collection<IRI> iris) {
+        Set<String> values = new HashSet<>(iris.size() * 4 / 3 + 1);
+        for (IRI iri : iris) {
+            values.add(string(iri));
+        }
+        return values;
+    }
+
+    long id(IRI iri) {
+        return ids.computeIfAbsent(iri, key -> AncestryIds.idOf(string(key)));
+    }
+
+    Set<Long> ids(Collection<IRI> iris) {
+        Set<Long> values = new HashSet<>(iris.size() * 4 / 3 + 1);
+        for (IRI iri : iris) {
+            values.add(id(iri));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,143 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.solr.core.SolrOperations;
+import uk.ac.ebi.spot.ols.exception.IndexingException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides when the indexer commits. Documents are never committed while they are being loaded, the changes of an
+ * ontology are committed once it is done, or once the whole run is done when the scope is set to run, so a loading run
+ * becomes visible at once. Set with:
+ *
+ * ols.solr.commit.scope       ontology (default) or run
+ * ols.solr.commit.within      ms, if set Solr also commits the documents within that time of receiving them, which
+ *                             makes them visible before the ontology is done. Ignored with ols.solr.staged, as a
+ *                             staged generation must only be visible once it replaces the current documents
+ * ols.solr.optimize           true to merge the segments of the cores at the end of a run, after a full rebuild
+ * ols.solr.optimize.segments  number of segments left by the merge, 1 by default
+ *
+ * Every commit and merge is timed, and the totals are logged at the end of the run.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+class SolrCommitPolicy {
+
+    enum Scope { ONTOLOGY, RUN }
+
+    private static final Logger log = LoggerFactory.getLogger(SolrCommitPolicy.class);
+
+    private final Scope scope;
+    private final int commitWithin;
+    private final boolean optimize;
+    private final int maxSegments;
+
+    // cores with changes that wait for the end of the run
+    private final Map<String, SolrOperations> pending = new LinkedHashMap<>();
+    private int runs;
+    private long commits;
+    private long commitMillis;
+
+    SolrCommitPolicy(Scope scope, int commitWithin, boolean optimize, int maxSegments) {
+        this.scope = scope;
+        this.commitWithin = commitWithin;
+        this.optimize = optimize;
+        this.maxSegments = Math.max(1, maxSegments);
+    }
+
+    static SolrCommitPolicy fromSystemProperties() {
+        String scope = System.getProperty("ols.solr.commit.scope", Scope.ONTOLOGY.name());
+        int commitWithin = Integer.getInteger("ols.solr.commit.within", -1);
+        if (commitWithin > 0 && Boolean.getBoolean("ols.solr.staged")) {
+            log.warn("Ignoring ols.solr.commit.within=" + commitWithin + " with ols.solr.staged, it would make " +
+                    "staged documents visible next to the documents they replace");
+            commitWithin = -1;
+        }
+        return new SolrCommitPolicy(Scope.valueOf(scope.trim().toUpperCase()), commitWithin,
+                Boolean.getBoolean("ols.solr.optimize"), Integer.getInteger("ols.solr.optimize.segments", 1));
+    }
+
+    /**
+     * @return the commitWithin for the documents that are sent, or -1 if they are only committed by the policy
+     */
+    int getCommitWithin() {
+        return commitWithin;
+    }
+
+    Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Starts a run, runs can be nested and the outer one decides when the changes are committed
+     */
+    synchronized void beginRun() {
+        runs++;
+    }
+
+    /**
+     * Called once the changes of an ontology, or a drop, are sent to a core
+     */
+    synchronized void changed(String coreName, SolrOperations core) {
+        if (scope == Scope.RUN && runs > 0) {
+            pending.put(coreName, core);
+        }
+        else {
+            commit(coreName, core);
+        }
+    }
+
+    /**
+     * Ends a run, once the outer run ends the cores that changed are committed, then merged if optimize is set
+     *
+     * @param cores the cores to merge
+     */
+    synchronized void endRun(Map<String, SolrOperations> cores) {
+        if (runs == 0 || --runs > 0) {
+            return;
+        }
+        for (Map.Entry<String, SolrOperations> core : pending.entrySet()) {
+            commit(core.getKey(), core.getValue());
+        }
+        pending.clear();
+
+        long optimizeMillis = 0;
+        if (optimize) {
+            for (Map.Entry<String, SolrOperations> core : cores.entrySet()) {
+                optimizeMillis += optimize(core.getKey(), core.getValue());
+            }
+        }
+        log.info("#### Monitoring Solr commits:" + commits + " commits (" + scope.name().toLowerCase() +
+                " scope, commitWithin " + (commitWithin > 0 ? commitWithin + " ms" : "off") + ") in " +
+                commitMillis + " ms" + (optimize ? ", optimized in " + optimizeMillis + " ms" : ""));
+        commits = 0;
+        commitMillis = 0;
+    }
+
+    /**
+     * Commits now, whatever the scope
+     */
+    synchronized void commit(String coreName, SolrOperations core) {
+        long start = System.currentTimeMillis();
+        core.commit();
+        long elapsed = System.currentTimeMillis() - start;
+        commits++;
+        commitMillis += elapsed;
+        log.info("#### Monitoring Solr commit:" + coreName + ":" + elapsed + " ms");
+    }
+
+    private long optimize(String coreName, SolrOperations core) {
+        long start = System.currentTimeMillis();
+        try {
+            core.getSolrServer().optimize(true, true, maxSegments);
+        } catch (Exception e) {
+            throw new IndexingException("Failed to optimize Solr core " + coreName, e);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("#### Monitoring Solr optimize:" + coreName + ":" + maxSegments + " segments in " + elapsed + " ms");
+        return elapsed;
+    }
+}
@@ -1,13 +1,23 @@
 package uk.ac.ebi.spot.ols.indexer;
 
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.client.solrj.response.PivotField;
+import org.apache.solr.client.solrj.response.QueryResponse;
 import org.semanticweb.owlapi.model.IRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.solr.core.SolrOperations;
+import org.springframework.data.solr.core.query.Criteria;
+import org.springframework.data.solr.core.query.SimpleQuery;
+import org.springframework.data.solr.core.query.SolrDataQuery;
 import org.springframework.stereotype.Component;
 import org.springframework.util.DigestUtils;
 import uk.ac.ebi.spot.ols.exception.IndexingException;
 import uk.ac.ebi.spot.ols.loader.OntologyLoader;
+import uk.ac.ebi.spot.ols.model.StagedIds;
 import uk.ac.ebi.spot.ols.model.SuggestDocument;
 import uk.ac.ebi.spot.ols.model.TermDocument;
 import uk.ac.ebi.spot.ols.model.TermDocumentBuilder;
@@ -15,6 +25,14 @@ import uk.ac.ebi.spot.ols.util.TermType;
 import uk.ac.ebi.spot.ols.model.OntologyIndexer;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
@@ -43,11 +61,45 @@ public class SolrIndexer implements OntologyIndexer {
     @Autowired
     OntologySuggestRepository ontologySuggestRepository;
 
+    @Autowired
+    @Qualifier("ontologyTemplate")
+    SolrOperations ontologyTemplate;
+
+    @Autowired
+    @Qualifier("autosuggestTemplate")
+    SolrOperations autosuggestTemplate;
+
+    public SolrIndexer() {
+    }
+
+    /**
+     * Indexes into the given cores instead of the configured ones, e.g. embedded cores
+     */
+    public SolrIndexer(SolrOperations ontologyTemplate, SolrOperations autosuggestTemplate) {
+        this.ontologyTemplate = ontologyTemplate;
+        this.autosuggestTemplate = autosuggestTemplate;
+    }
+
+    // staged loads in progress, their generations aren't stale, guarded by sweepLock when loads start
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private final Object sweepLock = new Object();
+    private final AtomicLong lastGeneration = new AtomicLong();
+    private SolrCommitPolicy commitPolicy;
+
     @Override
     public void createIndex(Collection<OntologyLoader> loaders) {
 
         getLog().info("Creating index for " + loaders.size() + " loaders");
+        getCommitPolicy().beginRun();
+        try {
+            createIndexes(loaders);
+        }
+        finally {
+            getCommitPolicy().endRun(getCores());
+        }
+    }
 
+    private void createIndexes(Collection<OntologyLoader> loaders) {
 
         for (OntologyLoader loader : loaders) {
 
@@ -61,135 +113,331 @@ public class SolrIndexer implements OntologyIndexer {
             getLog().info("Number of annotation properties to index: " + loader.getAllAnnotationPropertyIRIs().size());
             getLog().info("Number of individuals to index: " + loader.getAllIndividualIRIs().size());
 
-            List<TermDocument> documents = new ArrayList<TermDocument>();
-            List<SuggestDocument> suggestDocuments = new ArrayList<>();
-
-            for (IRI classTerm : loader.getAllClasses()) {
-                getLog().trace("solr indexing " + classTerm.toString());
-
-                TermDocumentBuilder builder = extractFeatures(loader, classTerm);
-                builder.setType(TermType.CLASS.toString().toLowerCase());
-                builder.setId(generateId(loader.getOntologyName(), "class", classTerm.toString()));
-                builder.setUri_key(generateAnnotationId(loader.getOntologyName() + classTerm.toString() + "class").hashCode());
-
-                documents.add(builder.createTermDocument());
-
-                if (documents.size() == 10000) {
-                    getLog().debug("Max reached - indexing terms");
-                    index(documents);
-                    documents = new ArrayList<>();
+            // documents are sent while the next ones are built, and committed once the ontology is done
+            SolrUpdatePipeline terms = new SolrUpdatePipeline("ontology", ontologyTemplate, getCommitPolicy(),
+                    getBatchSize(), getSenderCount());
+            SolrUpdatePipeline suggestions = new SolrUpdatePipeline("autosuggest", autosuggestTemplate,
+                    getCommitPolicy(), getBatchSize(), getSenderCount());
+            SuggestionCollector suggested = new SuggestionCollector(loader.getOntologyName());
+            // each IRI is converted once for all the documents that refer to it
+            IriCache iris = new IriCache();
+            // a staged load is written next to the current documents, which it replaces when it is committed
+            Long generation = isStaged() ? newGeneration() : null;
+            boolean termsVisible = false;
+            if (generation != null) {
+                synchronized (sweepLock) {
+                    loading.add(loader.getOntologyName());
                 }
-
-                // get labels and synonyms for suggest index
-                suggestDocuments.add(new SuggestDocument(loader.getTermLabels().get(classTerm), loader.getOntologyName()));
-                if (loader.getTermSynonyms().containsKey(classTerm)) {
-                    for (String syn : loader.getTermSynonyms().get(classTerm)) {
-                        suggestDocuments.add(new SuggestDocument(syn, loader.getOntologyName()));
-                    }
-                }
-                if (suggestDocuments.size() > 10000) {
-                    indexSuggest(suggestDocuments);
-                    suggestDocuments = new ArrayList<>();
+            }
+            try {
+                // classes carry the hierarchy, which is most of the work, so their documents are built in parallel
+                indexTerms(loader, loader.getAllClasses(), TermType.CLASS, terms, suggested, iris, generation,
+                        getBuilderCount());
+                indexTerms(loader, loader.getAllObjectPropertyIRIs(), TermType.PROPERTY, terms, null, iris,
+                        generation, 1);
+                indexTerms(loader, loader.getAllDataPropertyIRIs(), TermType.PROPERTY, terms, null, iris,
+                        generation, 1);
+                indexTerms(loader, loader.getAllAnnotationPropertyIRIs(), TermType.PROPERTY, terms, null, iris,
+                        generation, 1);
+                indexTerms(loader, loader.getAllIndividualIRIs(), TermType.INDIVIDUAL, terms, null, iris,
+                        generation, 1);
+
+                // index ontology meta data
+                terms.add(stage(extractOntologyFeature(loader).createTermDocument(), generation));
+
+                // each distinct suggestion is sent once, with the number of terms that have it
+                suggested.forEachDocument(suggestion -> suggestions.add(stage(suggestion, generation)));
+                getLog().info("Indexing " + suggested.size() + " distinct suggestions out of " +
+                        suggested.getSeen() + " labels and synonyms of " + loader.getOntologyName());
+
+                SolrDataQuery replaced = generation == null ? null : otherGenerations(loader.getOntologyName(),
+                        generation);
+                terms.finish(replaced);
+                termsVisible = true;
+                suggestions.finish(replaced);
+                if (generation != null) {
+                    getLog().info("#### Monitoring " + loader.getOntologyName() + ":Solr generation:" + generation +
+                            " visible after " + (System.currentTimeMillis() - startTime) + " ms");
                 }
-
             }
-
-            for (IRI classTerm : loader.getAllObjectPropertyIRIs()) {
-                TermDocumentBuilder builder = extractFeatures(loader, classTerm);
-                builder.setType(TermType.PROPERTY.toString().toLowerCase());
-                builder.setId(generateId(loader.getOntologyName(), "property", classTerm.toString()));
-                builder.setUri_key(generateAnnotationId(loader.getOntologyName() + classTerm.toString() + "property").hashCode());
-
-                documents.add(builder.createTermDocument());
+            catch (RuntimeException | Error e) {
+                // the documents sent are deleted, so a later commit doesn't make a partial ontology visible. A staged
+                // load only deletes its own generation and leaves the current documents as they were
+                SolrDataQuery discarded = generation == null ? ontologyDocuments(loader.getOntologyName()) :
+                        generations(loader.getOntologyName(), Collections.singleton(generation));
+                terms.abort(termsVisible ? null : discarded);
+                suggestions.abort(discarded);
+                throw e;
+            }
+            finally {
+                suggested.close();
+                if (generation != null) {
+                    loading.remove(loader.getOntologyName());
+                    sweepBetweenLoads();
+                }
             }
 
-            for (IRI classTerm : loader.getAllDataPropertyIRIs()) {
-                TermDocumentBuilder builder = extractFeatures(loader, classTerm);
-                builder.setType(TermType.PROPERTY.toString().toLowerCase());
-                builder.setId(generateId(loader.getOntologyName(), "property", classTerm.toString()));
-                builder.setUri_key(generateAnnotationId(loader.getOntologyName() + classTerm.toString() + "property").hashCode());
+            long endTime = System.currentTimeMillis();
+            long duration = (endTime - startTime) / 1000; // time in seconds
+            getLog().info("Solr index for " + loader.getOntologyName() + " completed in " + duration + " seconds");
 
-                documents.add(builder.createTermDocument());
-            }
+        }
 
-            for (IRI classTerm : loader.getAllAnnotationPropertyIRIs()) {
-                TermDocumentBuilder builder = extractFeatures(loader, classTerm);
-                builder.setType(TermType.PROPERTY.toString().toLowerCase());
-                builder.setId(generateId(loader.getOntologyName(), "property", classTerm.toString()));
-                builder.setUri_key(generateAnnotationId(loader.getOntologyName() + classTerm.toString() + "property").hashCode());
-                documents.add(builder.createTermDocument());
-            }
 
-            for (IRI classTerm : loader.getAllIndividualIRIs()) {
-                TermDocumentBuilder builder = extractFeatures(loader, classTerm);
-                builder.setType(TermType.INDIVIDUAL.toString().toLowerCase());
-                builder.setId(generateId(loader.getOntologyName(), "individual", classTerm.toString()));
-                builder.setUri_key(generateAnnotationId(loader.getOntologyName() + classTerm.toString() + "individual").hashCode());
-                documents.add(builder.createTermDocument());
 
+    }
 
-                if (documents.size() == 10000) {
-                    getLog().debug("Max reached - indexing terms");
-                    index(documents);
-                    documents = new ArrayList<>();
+    /**
+     * Builds the documents of the terms of one type, each is handed to the pipeline as soon as it is built. The
+     * pipeline sends them in batches and blocks while Solr is behind, so the same bounded number of documents is held
+     * whatever the type and number of terms.
+     *
+     * With more than one thread, the terms are handed to a pool of builders in chunks of a batch, and only a few chunks
+     * are in flight at a time. Chunks are sent in the order of the terms, and the suggestions are collected on the
+     * calling thread.
+     *
+     * @param suggestions where the labels and synonyms of the terms are collected, null if they aren't suggested
+     * @param generation  the generation of a staged load, null otherwise
+     */
+    private void indexTerms(OntologyLoader loader, Collection<IRI> termIRIs, TermType type,
+            SolrUpdatePipeline terms, SuggestionCollector suggestions, IriCache iris, Long generation,
+            int threads) {
+        String typeName = type.toString().toLowerCase();
+        long start = System.currentTimeMillis();
+        long built = 0;
+
+        if (threads <= 1 || termIRIs.size() <= getBatchSize()) {
+            for (IRI termIRI : termIRIs) {
+                terms.add(stage(buildDocument(loader, termIRI, typeName, iris), generation));
+                collectSuggestions(loader, termIRI, suggestions);
+                built++;
+            }
+        }
+        else {
+            ExecutorService builders = Executors.newFixedThreadPool(threads, new BuilderThreadFactory());
+            try {
+                Iterator<IRI> remaining = termIRIs.iterator();
+                Deque<Chunk> inFlight = new ArrayDeque<>();
+                while (remaining.hasNext() && inFlight.size() < threads * 2) {
+                    inFlight.add(submitChunk(builders, loader, remaining, typeName, iris));
+                }
+                while (!inFlight.isEmpty()) {
+                    Chunk chunk = inFlight.poll();
+                    List<TermDocument> documents = chunk.documents.get();
+                    // keep the builders busy while this chunk is sent
+                    if (remaining.hasNext()) {
+                        inFlight.add(submitChunk(builders, loader, remaining, typeName, iris));
+                    }
+                    for (TermDocument document : documents) {
+                        terms.add(stage(document, generation));
+                    }
+                    for (IRI termIRI : chunk.termIRIs) {
+                        collectSuggestions(loader, termIRI, suggestions);
+                    }
+                    built += documents.size();
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IndexingException("Interrupted building Solr documents for " + loader.getOntologyName(), e);
+            } catch (ExecutionException e) {
+                throw new IndexingException("Failed building Solr documents for " + loader.getOntologyName(),
+                        e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+            } finally {
+                builders.shutdownNow();
             }
+        }
 
-            // index ontology meta data
-            TermDocumentBuilder builder = extractOntologyFeature(loader);
-            documents.add(builder.createTermDocument());
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        getLog().info("#### Monitoring " + loader.getOntologyName() + ":Solr documents:" + built + " " + typeName +
+                " documents in " + elapsed + " ms with " + threads + " threads (" + built * 1000 / elapsed +
+                " docs/s)");
+    }
 
+    /**
+     * Takes the next chunk of IRIs on the calling thread and builds their documents on a builder thread
+     */
+    private Chunk submitChunk(ExecutorService builders, OntologyLoader loader, Iterator<IRI> remaining,
+            String typeName, IriCache iris) {
+        List<IRI> termIRIs = new ArrayList<>(getBatchSize());
+        while (remaining.hasNext() && termIRIs.size() < getBatchSize()) {
+            termIRIs.add(remaining.next());
+        }
+        return new Chunk(termIRIs, builders.submit(() -> {
+            List<TermDocument> documents = new ArrayList<>(termIRIs.size());
+            for (IRI termIRI : termIRIs) {
+                getLog().trace("solr indexing " + termIRI.toString());
+                documents.add(buildDocument(loader, termIRI, typeName, iris));
+            }
+            return documents;
+        }));
+    }
 
-            long endTime = System.currentTimeMillis();
-            long duration = (endTime - startTime) / 1000; // time in seconds
-            index(documents);
-            indexSuggest(suggestDocuments);
-            getLog().info("Solr index for " + loader.getOntologyName() + " completed in " + duration + " seconds");
+    private TermDocument buildDocument(OntologyLoader loader, IRI termIRI, String typeName,
+            IriCache iris) {
+        String iri = iris.string(termIRI);
+        TermDocumentBuilder builder = extractFeatures(loader, termIRI, iris);
+        builder.setType(typeName);
+        builder.setId(generateId(loader.getOntologyName(), typeName, iri));
+        builder.setUri_key(generateAnnotationId(loader.getOntologyName() + iri + typeName).hashCode());
+        return builder.createTermDocument();
+    }
 
+    private void collectSuggestions(OntologyLoader loader, IRI termIRI, SuggestionCollector suggestions) {
+        if (suggestions != null) {
+            // get labels and synonyms for suggest index
+            suggestions.addTerm(loader.getTermLabels().get(termIRI), loader.getTermSynonyms().get(termIRI));
         }
+    }
 
+    private static TermDocument stage(TermDocument document, Long generation) {
+        if (generation != null) {
+            document.setId(StagedIds.idOf(document.getId(), generation));
+            document.setGeneration(generation);
+        }
+        return document;
+    }
 
-
+    private static SuggestDocument stage(SuggestDocument document, Long generation) {
+        if (generation != null) {
+            document.setId(StagedIds.idOf(document.getId(), generation));
+            document.setGeneration(generation);
+        }
+        return document;
     }
 
-    private void indexSuggest(List<SuggestDocument> suggestDocuments) {
-        // save suggest index
+    /**
+     * Generations are the time the load started, one apart at least so two loads never share one
+     */
+    private long newGeneration() {
+        return lastGeneration.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+    }
 
-        int numDocuments = suggestDocuments.size();
-        getLog().debug("Extracted {} documents", numDocuments);
+    private static SolrDataQuery ontologyDocuments(String ontologyName) {
+        return new SimpleQuery(new Criteria("ontology_name").is(ontologyName));
+    }
 
-        // Index documents in batches
-        int count = 0;
-        while (count < numDocuments) {
-            int end = count + getBatchSize();
-            if (end > numDocuments) {
-                end = numDocuments;
-            }
+    private static SolrDataQuery otherGenerations(String ontologyName, long generation) {
+        return new SimpleQuery(new Criteria("ontology_name").is(ontologyName)
+                .and(new Criteria("generation").is(generation).not()));
+    }
 
-            ontologySuggestRepository.save(suggestDocuments.subList(count, end));
+    private static SolrDataQuery generations(String ontologyName, Collection<Long> generations) {
+        return new SimpleQuery(new Criteria("ontology_name").is(ontologyName)
+                .and(new Criteria("generation").in(generations)));
+    }
 
-            count = end;
-            getLog().debug("Indexed {} / {} entries", count, numDocuments);
+    /**
+     * Removes the stale generations once no staged load is in progress, no load starts until the sweep is done. A
+     * commit while a load is in progress would make its half loaded generation visible.
+     */
+    private void sweepBetweenLoads() {
+        synchronized (sweepLock) {
+            if (loading.isEmpty()) {
+                removeStaleGenerations();
+            }
         }
     }
 
-    private void index (List<TermDocument> documents) {
-        int numDocuments = documents.size();
-        getLog().debug("Extracted {} documents", numDocuments);
+    /**
+     * Deletes the generations left by staged loads that didn't finish, e.g. when the indexer was stopped. A load
+     * that finishes deletes all the other documents of its ontology as it becomes visible, so the visible documents of
+     * an ontology are its documents without a generation if there are any, else its oldest generation. Ontologies
+     * that are being loaded are left alone. The deletes are committed by the commit policy, with the changes of the
+     * run when its scope is run.
+     */
+    void removeStaleGenerations() {
+        try {
+            SolrQuery query = new SolrQuery("*:*");
+            query.setRows(0);
+            query.setFacet(true);
+            query.setFacetLimit(-1);
+            query.setFacetMinCount(1);
+            query.addFacetPivotField("ontology_name,generation");
+            QueryResponse byGeneration = ontologyTemplate.getSolrServer().query(query);
+
+            query = new SolrQuery("*:* -generation:[* TO *]");
+            query.setRows(0);
+            query.setFacet(true);
+            query.setFacetLimit(-1);
+            query.setFacetMinCount(1);
+            query.addFacetField("ontology_name");
+            Set<String> withoutGeneration = new HashSet<>();
+            FacetField ontologies = ontologyTemplate.getSolrServer().query(query).getFacetField("ontology_name");
+            if (ontologies != null && ontologies.getValues() != null) {
+                for (FacetField.Count ontology : ontologies.getValues()) {
+                    withoutGeneration.add(ontology.getName());
+                }
+            }
 
-        // Index documents in batches
-        int count = 0;
-        while (count < numDocuments) {
-            int end = count + getBatchSize();
-            if (end > numDocuments) {
-                end = numDocuments;
+            boolean removed = false;
+            List<PivotField> pivots = byGeneration.getFacetPivot() == null ? null :
+                    byGeneration.getFacetPivot().get("ontology_name,generation");
+            for (PivotField ontology : pivots == null ? Collections.<PivotField>emptyList() : pivots) {
+                String ontologyName = String.valueOf(ontology.getValue());
+                if (loading.contains(ontologyName) || ontology.getPivot() == null) {
+                    continue;
+                }
+                List<Long> stale = new ArrayList<>();
+                for (PivotField generation : ontology.getPivot()) {
+                    stale.add(((Number) generation.getValue()).longValue());
+                }
+                Collections.sort(stale);
+                if (!withoutGeneration.contains(ontologyName)) {
+                    stale.remove(0);
+                }
+                if (!stale.isEmpty()) {
+                    SolrDataQuery staleDocuments = generations(ontologyName, stale);
+                    ontologyTemplate.delete(staleDocuments);
+                    autosuggestTemplate.delete(staleDocuments);
+                    removed = true;
+                    getLog().info("Removing stale Solr generations " + stale + " of " + ontologyName);
+                }
+            }
+            if (removed) {
+                getCommitPolicy().changed("ontology", ontologyTemplate);
+                getCommitPolicy().changed("autosuggest", autosuggestTemplate);
             }
+        }
+        catch (Exception e) {
+            getLog().warn("Couldn't remove stale Solr generations", e);
+        }
+    }
 
-            ontologySolrRepository.save(documents.subList(count, end));
+    /**
+     * The ontologies indexed until {@link #endSession()} make one run for the commit policy
+     */
+    @Override
+    public void beginSession() {
+        getCommitPolicy().beginRun();
+    }
 
-            count = end;
-            getLog().debug("Indexed {} / {} entries", count, numDocuments);
+    @Override
+    public void endSession() {
+        getCommitPolicy().endRun(getCores());
+    }
+
+    synchronized SolrCommitPolicy getCommitPolicy() {
+        if (commitPolicy == null) {
+            commitPolicy = SolrCommitPolicy.fromSystemProperties();
+            getLog().info("Solr commit scope " + commitPolicy.getScope().name().toLowerCase() + ", commitWithin " +
+                    commitPolicy.getCommitWithin());
         }
+        return commitPolicy;
+    }
+
+    private Map<String, SolrOperations> getCores() {
+        Map<String, SolrOperations> cores = new LinkedHashMap<>();
+        cores.put("ontology", ontologyTemplate);
+        cores.put("autosuggest", autosuggestTemplate);
+        return cores;
+    }
+
+    /**
+     * Staged loads replace the ontology's documents when they are committed, so the index isn't dropped first
+     */
+    @Override
+    public boolean replacesIndex() {
+        return isStaged();
     }
 
     @Override
@@ -202,18 +450,23 @@ public class SolrIndexer implements OntologyIndexer {
         dropIndex(loader.getOntologyName());
     }
 
+    /**
+     * Deletes the ontology's documents from the ontology and autosuggest cores with a delete by query, so nothing is
+     * fetched from Solr, and commits each core once
+     */
     @Override
     public void dropIndex(String ontologyId) {
-        Iterable<TermDocument> documents = ontologySolrRepository.findByOntologyName(ontologyId);
+        getLog().info("Deleting solr index for " + ontologyId);
+        long startTime = System.currentTimeMillis();
 
-        if (documents.iterator().hasNext()) {
-            getLog().info("Deleting solr index for " + ontologyId);
-            long startTime = System.currentTimeMillis();
-            ontologySolrRepository.delete(documents);
-            long endTime = System.currentTimeMillis();
-            long duration = (endTime - startTime) / 1000; // time in seconds
-            getLog().info(ontologyId + " removed from solr in " + duration + " seconds");
-        }
+        SolrDataQuery ontologyDocuments = ontologyDocuments(ontologyId);
+        ontologyTemplate.delete(ontologyDocuments);
+        autosuggestTemplate.delete(ontologyDocuments);
+        getCommitPolicy().changed("ontology", ontologyTemplate);
+        getCommitPolicy().changed("autosuggest", autosuggestTemplate);
+
+        long endTime = System.currentTimeMillis();
+        getLog().info(ontologyId + " removed from solr in " + (endTime - startTime) + " ms");
     }
 
     private TermDocumentBuilder extractOntologyFeature (OntologyLoader loader) {
@@ -235,7 +488,7 @@ public class SolrIndexer implements OntologyIndexer {
 
     }
 
-    private TermDocumentBuilder extractFeatures(OntologyLoader loader, IRI termIRI) {
+    private TermDocumentBuilder extractFeatures(OntologyLoader loader, IRI termIRI, IriCache iris) {
 
         TermDocumentBuilder builder = new TermDocumentBuilder();
 
@@ -243,7 +496,7 @@ public class SolrIndexer implements OntologyIndexer {
                 .setOntologyTitle(loader.getTitle())
                 .setOntologyPrefix(loader.getPreferredPrefix())
                 .setOntologyUri(loader.getOntologyIRI().toString())
-                .setUri(termIRI.toString())
+                .setUri(iris.string(termIRI))
                 .setIsDefiningOntology(loader.isLocalTerm(termIRI))
                 .setIsObsolete(loader.isObsoleteTerm(termIRI))
                 .setShortForm(loader.getShortForm(termIRI))
@@ -285,7 +538,7 @@ public class SolrIndexer implements OntologyIndexer {
 
         Collection<String> directParentTerms = new HashSet<>();
         if (loader.getDirectParentTerms().containsKey(termIRI)) {
-            directParentTerms = loader.getDirectParentTerms().get(termIRI).stream().map(IRI::toString).collect(Collectors.toSet());
+            directParentTerms = iris.strings(loader.getDirectParentTerms().get(termIRI));
             builder.setParentUris(directParentTerms);
         }
         else {
@@ -293,20 +546,28 @@ public class SolrIndexer implements OntologyIndexer {
         }
 
 
+        boolean slim = isSlim();
+
         if (loader.getAllParentTerms().containsKey(termIRI)) {
-            builder.setAncestorUris(loader.getAllParentTerms().get(termIRI).stream().map(IRI::toString).collect(Collectors.toSet()));
+            if (slim) {
+                builder.setAncestorIds(iris.ids(loader.getAllParentTerms().get(termIRI)));
+            }
+            else {
+                builder.setAncestorUris(iris.strings(loader.getAllParentTerms().get(termIRI)));
+            }
         }
 
-        if (loader.getDirectChildTerms().containsKey(termIRI)) {
-            builder.setChildUris(loader.getDirectChildTerms().get(termIRI).stream().map(IRI::toString).collect(Collectors.toSet()));
+        // children and descendants are never searched on, slim documents leave them out
+        if (!slim && loader.getDirectChildTerms().containsKey(termIRI)) {
+            builder.setChildUris(iris.strings(loader.getDirectChildTerms().get(termIRI)));
         }
 
-        if (loader.getAllChildTerms().containsKey(termIRI)) {
-            builder.setDescendantUris(loader.getAllChildTerms().get(termIRI).stream().map(IRI::toString).collect(Collectors.toSet()));
+        if (!slim && loader.getAllChildTerms().containsKey(termIRI)) {
+            builder.setDescendantUris(iris.strings(loader.getAllChildTerms().get(termIRI)));
         }
 
         // set hierarchical parents and children
-        Collection<String> directHierarchicalParents = loader.getRelatedParentTerms(termIRI).values().stream().flatMap(Collection::stream).map(IRI::toString).collect(Collectors.toSet());
+        Collection<String> directHierarchicalParents = loader.getRelatedParentTerms(termIRI).values().stream().flatMap(Collection::stream).map(iris::string).collect(Collectors.toSet());
         // add direct superclasses
         directHierarchicalParents.addAll(directParentTerms);
 
@@ -315,9 +576,14 @@ public class SolrIndexer implements OntologyIndexer {
         }
 
         // get all transitive hierarchical parents
-        Collection<String> allHierarchicalParents = loader.getAllRelatedParentTerms(termIRI).stream().map(IRI::toString).collect(Collectors.toSet());
+        Collection<IRI> allHierarchicalParents = loader.getAllRelatedParentTerms(termIRI);
         if (!allHierarchicalParents.isEmpty()) {
-            builder.setHierarchicalAncestorUris(allHierarchicalParents);
+            if (slim) {
+                builder.setHierarchicalAncestorIds(iris.ids(allHierarchicalParents));
+            }
+            else {
+                builder.setHierarchicalAncestorUris(iris.strings(allHierarchicalParents));
+            }
         }
 
 
@@ -330,14 +596,14 @@ public class SolrIndexer implements OntologyIndexer {
                     relatedTerms.put(labelName, new HashSet<>());
                 }
                 relatedTerms.get(labelName).addAll(
-                        loader.getRelatedTerms(termIRI).get(relation).stream().map(IRI::toString).collect(Collectors.toSet()));
+                        iris.strings(loader.getRelatedTerms(termIRI).get(relation)));
 
             }
             builder.setRelatedTerms(relatedTerms);
         }
 
         if (loader.getEquivalentTerms().containsKey(termIRI))    {
-            builder.setEquivalentUris(loader.getEquivalentTerms().get(termIRI).stream().map(IRI::toString).collect(Collectors.toSet()));
+            builder.setEquivalentUris(iris.strings(loader.getEquivalentTerms().get(termIRI)));
         }
 
         Collection<String> logicalDescriptions = new HashSet<>();
@@ -368,4 +634,57 @@ public class SolrIndexer implements OntologyIndexer {
     public int getBatchSize() {
         return batchSize;
     }
+
+    /**
+     * Number of update requests in flight to each core, set with ols.solr.indexing.senders
+     */
+    public int getSenderCount() {
+        return Math.max(1, Integer.getInteger("ols.solr.indexing.senders", 4));
+    }
+
+    /**
+     * Number of threads building class documents, set with ols.solr.indexing.threads, the number of processors by
+     * default
+     */
+    public int getBuilderCount() {
+        return Math.max(1, Integer.getInteger("ols.solr.indexing.threads",
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Staged loading, set with ols.solr.staged, writes the documents of an ontology as a new generation next to the
+     * current ones, and deletes the current ones in the commit that makes the new generation visible
+     */
+    public boolean isStaged() {
+        return Boolean.getBoolean("ols.solr.staged");
+    }
+
+    /**
+     * Slim indexing, set with ols.solr.slim, writes the ancestors as {@link uk.ac.ebi.spot.ols.model.AncestryIds}
+     * instead of IRIs and leaves the children and descendants out of the documents
+     */
+    public boolean isSlim() {
+        return Boolean.getBoolean("ols.solr.slim");
+    }
+
+    private static class Chunk {
+        private final List<IRI> termIRIs;
+        private final Future<List<TermDocument>> documents;
+
+        private Chunk(List<IRI> termIRIs, Future<List<TermDocument>> documents) {
+            this.termIRIs = termIRIs;
+            this.documents = documents;
+        }
+    }
+
+    private static class BuilderThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "solr-document-builder-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
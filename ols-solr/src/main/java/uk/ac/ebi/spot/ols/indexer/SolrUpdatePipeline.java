@@ -0,0 +1,211 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.solr.core.SolrOperations;
+import org.springframework.data.solr.core.query.SolrDataQuery;
+import uk.ac.ebi.spot.ols.exception.IndexingException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends documents to a Solr core from a few sender threads, so documents are built while earlier batches are on
+ * the wire. Documents are sent in batches without committing, and once they are all sent {@link #finish()} leaves
+ * the commit to the {@link SolrCommitPolicy}. At most a fixed number of batches wait to be sent, so the caller blocks when Solr can't keep up.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+class SolrUpdatePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(SolrUpdatePipeline.class);
+
+    // tells a sender there are no more batches
+    private static final List<Object> END = Collections.emptyList();
+
+    private static final long ABORT_WAIT_MILLIS = 30000;
+
+    private final String name;
+    private final SolrOperations solr;
+    private final SolrCommitPolicy commitPolicy;
+    private final int batchSize;
+    private final BlockingQueue<List<?>> queue;
+    private final List<Thread> senders = new ArrayList<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final long startTime = System.currentTimeMillis();
+
+    private List<Object> batch;
+
+    /**
+     * @param name        used in thread names and logs
+     * @param senderCount number of update requests that can be in flight at the same time
+     */
+    SolrUpdatePipeline(String name, SolrOperations solr, SolrCommitPolicy commitPolicy, int batchSize,
+            int senderCount) {
+        this.name = name;
+        this.solr = solr;
+        this.commitPolicy = commitPolicy;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(senderCount * 2);
+        this.batch = new ArrayList<>(batchSize);
+
+        for (int i = 0; i < senderCount; i++) {
+            Thread sender = new Thread(this::send, "solr-" + name + "-" + i);
+            sender.setDaemon(true);
+            sender.start();
+            senders.add(sender);
+        }
+    }
+
+    void add(Object document) throws IndexingException {
+        batch.add(document);
+        if (batch.size() >= batchSize) {
+            put(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    void addAll(Collection<?> documents) throws IndexingException {
+        for (Object document : documents) {
+            add(document);
+        }
+    }
+
+    /**
+     * Sends the remaining documents, waits for all the batches to be sent and lets the policy commit
+     */
+    void finish() throws IndexingException {
+        finish(null);
+    }
+
+    /**
+     * Sends the remaining documents, waits for all the batches to be sent, deletes the documents they replace and lets
+     * the policy commit, so the new documents and the deletes become visible together
+     *
+     * @param replaced the documents to delete, or null
+     */
+    void finish(SolrDataQuery replaced) throws IndexingException {
+        if (!batch.isEmpty()) {
+            put(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+        for (int i = 0; i < senders.size(); i++) {
+            put(END);
+        }
+        try {
+            for (Thread sender : senders) {
+                sender.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexingException("Interrupted sending documents to " + name, e);
+        }
+        checkFailure();
+
+        long sendTime = System.currentTimeMillis() - startTime;
+        log.info("Sent " + sent.get() + " documents to " + name + " in " + sendTime + " ms (" +
+                sent.get() * 1000 / Math.max(1, sendTime) + " docs/s)");
+        if (replaced != null) {
+            solr.delete(replaced);
+        }
+        commitPolicy.changed(name, solr);
+    }
+
+    /**
+     * Stops the senders without committing, after a failure of the caller. Waits a while for the batches that are
+     * being sent, so nothing is added to the core once this returns.
+     */
+    void abort() {
+        abort(null);
+    }
+
+    /**
+     * Stops the senders, see {@link #abort()}, then deletes the documents that were sent and lets the policy commit,
+     * so a later commit doesn't make them visible. If the delete fails it is only logged.
+     *
+     * @param discarded the documents to delete, or null
+     */
+    void abort(SolrDataQuery discarded) {
+        stop();
+        if (discarded == null) {
+            return;
+        }
+        try {
+            solr.delete(discarded);
+            commitPolicy.changed(name, solr);
+            log.info("Discarded the documents sent to " + name);
+        } catch (RuntimeException e) {
+            log.error("Failed to discard the documents sent to " + name, e);
+        }
+    }
+
+    private void stop() {
+        queue.clear();
+        for (Thread sender : senders) {
+            sender.interrupt();
+        }
+        try {
+            for (Thread sender : senders) {
+                if (sender != Thread.currentThread()) {
+                    sender.join(ABORT_WAIT_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void put(List<?> documents) throws IndexingException {
+        checkFailure();
+        try {
+            // wake up now and then, so a failed send is reported without waiting for room in the queue
+            while (!queue.offer(documents, 1, TimeUnit.SECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexingException("Interrupted sending documents to " + name, e);
+        }
+    }
+
+    private void checkFailure() throws IndexingException {
+        if (failure.get() != null) {
+            abort();
+            throw new IndexingException("Failed sending documents to " + name, failure.get());
+        }
+    }
+
+    private void send() {
+        try {
+            List<?> documents;
+            while ((documents = queue.take()) != END) {
+                // after a failure the remaining batches are only drained
+                if (failure.get() == null) {
+                    try {
+                        if (commitPolicy.getCommitWithin() > 0) {
+                            solr.saveBeans(documents, commitPolicy.getCommitWithin());
+                        }
+                        else {
+                            solr.saveBeans(documents);
+                        }
+                        long total = sent.addAndGet(documents.size());
+                        log.debug("Sent {} entries to {}", total, name);
+                    } catch (Exception e) {
+                        log.error("Failed sending documents to " + name, e);
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import uk.ac.ebi.spot.ols.exception.IndexingException;
+import uk.ac.ebi.spot.ols.model.SuggestDocument;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the labels and synonyms of an ontology's terms for the autosuggest core, so each distinct suggestion is
+ * indexed once per ontology instead of once per term that has it. Texts that only differ in case or whitespace are
+ * the same suggestion, the first form seen is the one suggested. The number of terms with a suggestion is kept as its
+ * frequency, so common suggestions can rank higher.
+ *
+ * At most a chunk of distinct suggestions is held in memory. A full chunk is sorted and written to a temporary file,
+ * and the chunks are merged, adding up the frequencies of the same suggestion, while the documents are streamed in
+ * the order of their normalized text.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+class SuggestionCollector implements AutoCloseable {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    static final int DEFAULT_CHUNK_SIZE = 100000;
+
+    private final String ontologyName;
+    private final int chunkSize;
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    private final List<File> chunks = new ArrayList<>();
+    private long seen;
+    private long distinct = -1;
+
+    SuggestionCollector(String ontologyName) {
+        this(ontologyName, DEFAULT_CHUNK_SIZE);
+    }
+
+    SuggestionCollector(String ontologyName, int chunkSize) {
+        this.ontologyName = ontologyName;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Adds the suggestions of one term, a text given several times for the same term is only counted once
+     */
+    void addTerm(String label, Collection<String> synonyms) {
+        Set<String> termKeys = new HashSet<>();
+        add(label, termKeys);
+        if (synonyms != null) {
+            for (String synonym : synonyms) {
+                add(synonym, termKeys);
+            }
+        }
+        if (suggestions.size() >= chunkSize) {
+            writeChunk();
+        }
+    }
+
+    private void add(String text, Set<String> termKeys) {
+        if (text == null) {
+            return;
+        }
+        String display = WHITESPACE.matcher(text.trim()).replaceAll(" ");
+        if (display.isEmpty()) {
+            return;
+        }
+        seen++;
+        String key = normalize(display);
+        if (!termKeys.add(key)) {
+            return;
+        }
+        Suggestion suggestion = suggestions.get(key);
+        if (suggestion == null) {
+            suggestions.put(key, new Suggestion(key, display));
+        }
+        else {
+            suggestion.frequency++;
+        }
+    }
+
+    static String normalize(String text) {
+        return WHITESPACE.matcher(text.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the number of labels and synonyms added, before they were deduplicated
+     */
+    long getSeen() {
+        return seen;
+    }
+
+    /**
+     * @return the number of distinct suggestions, known once the documents have been streamed, -1 before
+     */
+    long size() {
+        return distinct;
+    }
+
+    /**
+     * Hands the document of each distinct suggestion to the consumer, in the order of the normalized texts
+     */
+    void forEachDocument(Consumer<SuggestDocument> consumer) {
+        List<ChunkReader> readers = new ArrayList<>();
+        try {
+            PriorityQueue<ChunkReader> merge = new PriorityQueue<>();
+            for (File chunk : chunks) {
+                ChunkReader reader = new FileChunkReader(readers.size(), chunk);
+                readers.add(reader);
+                if (reader.next()) {
+                    merge.add(reader);
+                }
+            }
+            ChunkReader inMemory = new MemoryChunkReader(readers.size(), sorted());
+            readers.add(inMemory);
+            if (inMemory.next()) {
+                merge.add(inMemory);
+            }
+
+            distinct = 0;
+            while (!merge.isEmpty()) {
+                // the reader of the earliest chunk comes first, so the first form seen is suggested
+                ChunkReader first = merge.poll();
+                Suggestion suggestion = new Suggestion(first.current.key, first.current.display);
+                suggestion.frequency = first.current.frequency;
+                advance(first, merge);
+                while (!merge.isEmpty() && merge.peek().current.key.equals(suggestion.key)) {
+                    ChunkReader same = merge.poll();
+                    suggestion.frequency += same.current.frequency;
+                    advance(same, merge);
+                }
+                distinct++;
+                consumer.accept(new SuggestDocument(suggestion.key + ontologyName, suggestion.display, ontologyName,
+                        suggestion.frequency));
+            }
+        } catch (IOException e) {
+            throw new IndexingException("Couldn't read the suggestions of " + ontologyName, e);
+        }
+        finally {
+            for (ChunkReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private static void advance(ChunkReader reader, PriorityQueue<ChunkReader> merge) throws IOException {
+        if (reader.next()) {
+            merge.add(reader);
+        }
+    }
+
+    List<SuggestDocument> getDocuments() {
+        List<SuggestDocument> documents = new ArrayList<>();
+        forEachDocument(documents::add);
+        return documents;
+    }
+
+    /**
+     * Deletes the chunks written to disk
+     */
+    @Override
+    public void close() {
+        for (File chunk : chunks) {
+            if (!chunk.delete()) {
+                chunk.deleteOnExit();
+            }
+        }
+        chunks.clear();
+    }
+
+    private List<Suggestion> sorted() {
+        List<Suggestion> sorted = new ArrayList<>(suggestions.values());
+        sorted.sort((a, b) -> a.key.compareTo(b.key));
+        return sorted;
+    }
+
+    private void writeChunk() {
+        File chunk = null;
+        try {
+            chunk = File.createTempFile("ols-suggestions-" + ontologyName + "-", ".chunk");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(chunk)))) {
+                for (Suggestion suggestion : sorted()) {
+                    writeString(out, suggestion.key);
+                    writeString(out, suggestion.display);
+                    out.writeInt(suggestion.frequency);
+                }
+            }
+        } catch (IOException e) {
+            if (chunk != null) {
+                chunk.delete();
+            }
+            throw new IndexingException("Couldn't write the suggestions of " + ontologyName, e);
+        }
+        chunks.add(chunk);
+        suggestions.clear();
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Suggestion {
+        private final String key;
+        private final String display;
+        private int frequency = 1;
+
+        private Suggestion(String key, String display) {
+            this.key = key;
+            this.display = display;
+        }
+    }
+
+    /**
+     * Reads the suggestions of a chunk in order, chunks are ordered by their current suggestion and then by when they
+     * were written
+     */
+    private abstract static class ChunkReader implements Comparable<ChunkReader> {
+        private final int index;
+        Suggestion current;
+
+        ChunkReader(int index) {
+            this.index = index;
+        }
+
+        /**
+         * @return whether there is a current suggestion
+         */
+        abstract boolean next() throws IOException;
+
+        void close() {
+        }
+
+        @Override
+        public int compareTo(ChunkReader other) {
+            int byKey = current.key.compareTo(other.current.key);
+            return byKey != 0 ? byKey : Integer.compare(index, other.index);
+        }
+    }
+
+    private static final class MemoryChunkReader extends ChunkReader {
+        private final Iterator<Suggestion> suggestions;
+
+        private MemoryChunkReader(int index, List<Suggestion> suggestions) {
+            super(index);
+            this.suggestions = suggestions.iterator();
+        }
+
+        @Override
+        boolean next() {
+            current = suggestions.hasNext() ? suggestions.next() : null;
+            return current != null;
+        }
+    }
+
+    private static final class FileChunkReader extends ChunkReader {
+        private final DataInputStream in;
+
+        private FileChunkReader(int index, File chunk) throws IOException {
+            super(index);
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(chunk)));
+        }
+
+        @Override
+        boolean next() throws IOException {
+            String key;
+            try {
+                key = readString(in);
+            } catch (EOFException e) {
+                current = null;
+                return false;
+            }
+            current = new Suggestion(key, readString(in));
+            current.frequency = in.readInt();
+            return true;
+        }
+
+        @Override
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // only read
+            }
+        }
+    }
+}
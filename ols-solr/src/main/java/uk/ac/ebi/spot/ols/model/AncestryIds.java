@@ -0,0 +1,27 @@
+package uk.ac.ebi.spot.ols.model;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact ids for the ancestor IRIs of slim term documents. An id is the first 63 bits of the MD5 of the IRI, so the
+ * same IRI has the same id in every ontology and at query time, and ids are never negative, which keeps them out of
+ * the way of the query parser's negation.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class AncestryIds {
+
+    private AncestryIds() {
+    }
+
+    public static long idOf(String iri) {
+        byte[] digest = DigestUtils.md5Digest(iri.getBytes(StandardCharsets.UTF_8));
+        long id = 0;
+        for (int i = 0; i < 8; i++) {
+            id = (id << 8) | (digest[i] & 0xff);
+        }
+        return id & Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,37 @@
+package uk.ac.ebi.spot.ols.model;
+
+/**
+ * Solr ids of the documents of a staged load, which are written next to the current documents of the ontology until
+ * they replace them, so their ids carry the generation of the load after an @. The public id of a document is the id
+ * without the generation, the same in every load.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class StagedIds {
+
+    private static final char SEPARATOR = '@';
+
+    private StagedIds() {
+    }
+
+    public static String idOf(String id, long generation) {
+        return id + SEPARATOR + generation;
+    }
+
+    /**
+     * @return the id without the generation of a staged load, ids of documents that weren't staged are returned as
+     * they are
+     */
+    public static String publicId(String id) {
+        int separator = id.lastIndexOf(SEPARATOR);
+        if (separator < 1 || separator == id.length() - 1) {
+            return id;
+        }
+        for (int i = separator + 1; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i))) {
+                return id;
+            }
+        }
+        return id.substring(0, separator);
+    }
+}
@@ -22,10 +22,22 @@ public class SuggestDocument {
     @Field("ontology_name")
     private String ontology;
 
+    // number of terms of the ontology with this label or synonym
+    @Field("frequency")
+    private int frequency = 1;
+
+    @Field("generation")
+    private Long generation;
+
     public SuggestDocument(String autosuggest, String ontology) {
-        this.id = autosuggest + ontology;
+        this(autosuggest + ontology, autosuggest, ontology, 1);
+    }
+
+    public SuggestDocument(String id, String autosuggest, String ontology, int frequency) {
+        this.id = id;
         this.autosuggest = autosuggest;
         this.ontology = ontology;
+        this.frequency = frequency;
     }
 
     public SuggestDocument() {
@@ -39,4 +51,28 @@ public class SuggestDocument {
     public void setAutosuggest(String autosuggest) {
         this.autosuggest = autosuggest;
     }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Long generation) {
+        this.generation = generation;
+    }
+
+    public int getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(int frequency) {
+        this.frequency = frequency;
+    }
 }
@@ -107,6 +107,19 @@ public class TermDocument {
     @Field("hierarchical_ancestor_iri")
    	private List<String> hierarchical_ancestors;
 
+    @JsonIgnore
+    @Field("generation")
+   	private Long generation;
+
+    // slim documents hold the ancestors as AncestryIds instead of IRIs
+    @JsonIgnore
+    @Field("ancestor_id")
+   	private List<Long> ancestorIds;
+
+    @JsonIgnore
+    @Field("hierarchical_ancestor_id")
+   	private List<Long> hierarchicalAncestorIds;
+
     @JsonIgnore
     @Field("*_related")
    	private Map<String, List<String>> related;
@@ -410,5 +423,29 @@ public class TermDocument {
 
     public void setHierarchical_ancestors(List<String> hierarchical_ancestors) {
         this.hierarchical_ancestors = hierarchical_ancestors;
-    }    
+    }
+
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Long generation) {
+        this.generation = generation;
+    }
+
+    public List<Long> getAncestorIds() {
+        return ancestorIds;
+    }
+
+    public void setAncestorIds(List<Long> ancestorIds) {
+        this.ancestorIds = ancestorIds;
+    }
+
+    public List<Long> getHierarchicalAncestorIds() {
+        return hierarchicalAncestorIds;
+    }
+
+    public void setHierarchicalAncestorIds(List<Long> hierarchicalAncestorIds) {
+        this.hierarchicalAncestorIds = hierarchicalAncestorIds;
+    }
 }
@@ -31,6 +31,8 @@ public class TermDocumentBuilder {
     private List<String> descendants = new ArrayList<>();
     private List<String> hierarchical_parents = new ArrayList<>();
     private List<String> hierarchical_ancestors = new ArrayList<>();
+    private List<Long> ancestorIds = new ArrayList<>();
+    private List<Long> hierarchicalAncestorIds = new ArrayList<>();
     private Map<String, List<String>> relatedTerms = new HashMap<>();
     private boolean isPreferredRoot = false;
 
@@ -165,6 +167,16 @@ public class TermDocumentBuilder {
         return this;
     }
 
+    public TermDocumentBuilder setAncestorIds(Collection<Long> ancestorIds) {
+        this.ancestorIds = new ArrayList<>(ancestorIds);
+        return this;
+    }
+
+    public TermDocumentBuilder setHierarchicalAncestorIds(Collection<Long> hierarchicalAncestorIds) {
+        this.hierarchicalAncestorIds = new ArrayList<>(hierarchicalAncestorIds);
+        return this;
+    }
+
     public TermDocumentBuilder setAnnotation(Map<String, Collection<String>> annotations) {
         for (String key : annotations.keySet()) {
             this.annotation.put(key, new ArrayList<>(annotations.get(key)));
@@ -187,7 +199,7 @@ public class TermDocumentBuilder {
 	}
 
 	public TermDocument createTermDocument() {
-        return new TermDocument(
+        TermDocument document = new TermDocument(
                 id,
                 uri,
                 uri_key,
@@ -218,5 +230,8 @@ public class TermDocumentBuilder {
                 relatedTerms,
                 isPreferredRoot
                 );
+        document.setAncestorIds(ancestorIds);
+        document.setHierarchicalAncestorIds(hierarchicalAncestorIds);
+        return document;
     }
 }
\ No newline at end of file
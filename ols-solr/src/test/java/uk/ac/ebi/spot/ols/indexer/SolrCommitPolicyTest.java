@@ -0,0 +1,77 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.recordingSolr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.solr.core.SolrOperations;
+
+public class SolrCommitPolicyTest {
+
+	@Test
+	void testOntologyScopeCommitsEachChange() {
+		List<String> calls = new ArrayList<>();
+		SolrOperations core = recordingSolr(calls);
+		SolrCommitPolicy policy = new SolrCommitPolicy(SolrCommitPolicy.Scope.ONTOLOGY, -1, false, 1);
+
+		policy.beginRun();
+		policy.changed("ontology", core);
+		policy.changed("ontology", core);
+		assertEquals(Arrays.asList("commit", "commit"), calls);
+
+		policy.endRun(Collections.singletonMap("ontology", core));
+		assertEquals(2, calls.size());
+	}
+
+	@Test
+	void testRunScopeCommitsOnceAtTheEndOfTheOuterRun() {
+		List<String> calls = new ArrayList<>();
+		SolrOperations core = recordingSolr(calls);
+		SolrCommitPolicy policy = new SolrCommitPolicy(SolrCommitPolicy.Scope.RUN, -1, false, 1);
+
+		policy.beginRun();
+		policy.beginRun();
+		policy.changed("ontology", core);
+		policy.changed("ontology", core);
+		policy.endRun(Collections.singletonMap("ontology", core));
+		assertEquals(Collections.emptyList(), calls);
+
+		policy.endRun(Collections.singletonMap("ontology", core));
+		assertEquals(Collections.singletonList("commit"), calls);
+
+		// outside a run changes are committed straight away
+		policy.changed("ontology", core);
+		assertEquals(Arrays.asList("commit", "commit"), calls);
+	}
+
+	@Test
+	void testPipelineSendsWithCommitWithin() {
+		List<String> calls = Collections.synchronizedList(new ArrayList<>());
+		SolrCommitPolicy policy = new SolrCommitPolicy(SolrCommitPolicy.Scope.ONTOLOGY, 5000, false, 1);
+		SolrUpdatePipeline pipeline = new SolrUpdatePipeline("ontology", recordingSolr(calls), policy, 2, 1);
+
+		pipeline.addAll(Arrays.asList("a", "b", "c"));
+		pipeline.finish();
+
+		assertEquals(Arrays.asList("saveBeans 5000", "saveBeans 5000", "commit"), calls);
+	}
+
+	@Test
+	void testCommitWithinIsIgnoredWhenStaged() {
+		System.setProperty("ols.solr.commit.within", "5000");
+		try {
+			assertEquals(5000, SolrCommitPolicy.fromSystemProperties().getCommitWithin());
+			System.setProperty("ols.solr.staged", "true");
+			assertEquals(-1, SolrCommitPolicy.fromSystemProperties().getCommitWithin());
+		}
+		finally {
+			System.clearProperty("ols.solr.commit.within");
+			System.clearProperty("ols.solr.staged");
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.DEFAULT;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.queryString;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.solr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.IRI;
+import org.springframework.data.solr.core.SolrOperations;
+import org.springframework.data.solr.core.query.SolrDataQuery;
+
+import uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.Answer;
+import uk.ac.ebi.spot.ols.loader.OntologyLoader;
+
+public class SolrIndexerAbortTest {
+
+	private final CountDownLatch classesSent = new CountDownLatch(3);
+
+	private Core ontology;
+	private Core autosuggest;
+	private SolrIndexer indexer;
+
+	@BeforeEach
+	void setUp() {
+		System.setProperty("ols.solr.commit.scope", "run");
+		ontology = new Core();
+		autosuggest = new Core();
+		indexer = new SolrIndexer() {
+			@Override
+			public int getBatchSize() {
+				// each class is sent on its own, before the load fails
+				return 1;
+			}
+		};
+		indexer.ontologyTemplate = ontology.solr();
+		indexer.autosuggestTemplate = autosuggest.solr();
+	}
+
+	@AfterEach
+	void tearDown() {
+		System.clearProperty("ols.solr.commit.scope");
+	}
+
+	@Test
+	void testAbortedOntologyIsNotCommittedLater() {
+		indexer.beginSession();
+		assertThrows(IllegalStateException.class, () -> indexer.createIndex(failingLoader()));
+		assertEquals(3, ontology.sent);
+		indexer.endSession();
+
+		assertTrue(ontology.committed.isEmpty(), ontology.committed + " committed");
+		assertTrue(autosuggest.committed.isEmpty(), autosuggest.committed + " committed");
+	}
+
+	private OntologyLoader failingLoader() {
+		AtomicInteger individualCalls = new AtomicInteger();
+		List<IRI> classes = Arrays.asList(IRI.create("http://example.org/class/0"),
+				IRI.create("http://example.org/class/1"), IRI.create("http://example.org/class/2"));
+
+		Map<String, Answer> answers = new HashMap<>();
+		answers.put("getAllClasses", args -> classes);
+		answers.put("getAllIndividualIRIs", args -> {
+			// the first call only logs the number of individuals, the second fails once the classes are sent
+			if (individualCalls.incrementAndGet() > 1) {
+				classesSent.await(10, TimeUnit.SECONDS);
+				throw new IllegalStateException("individuals failed");
+			}
+			return DEFAULT;
+		});
+		return SolrIndexerTestHelper.syntheticLoader(answers);
+	}
+
+	/**
+	 * A core with the documents of one ontology, documents sent are only visible once committed and a delete by
+	 * query of the ontology deletes all of them
+	 */
+	private class Core {
+		private final List<Object> pending = new ArrayList<>();
+		private final List<Object> committed = new ArrayList<>();
+		private boolean deleted;
+		private int sent;
+
+		private SolrOperations solr() {
+			return solr((method, args) -> {
+				synchronized (this) {
+					switch (method) {
+						case "saveBeans":
+							pending.addAll((Collection<?>) args[0]);
+							sent += ((Collection<?>) args[0]).size();
+							if (this == ontology) {
+								classesSent.countDown();
+							}
+							break;
+						case "delete":
+							assertTrue(queryString((SolrDataQuery) args[0]).contains("ontology_name:synthetic"));
+							pending.clear();
+							deleted = true;
+							break;
+						case "commit":
+							if (deleted) {
+								committed.clear();
+								deleted = false;
+							}
+							committed.addAll(pending);
+							pending.clear();
+							break;
+					}
+				}
+			});
+		}
+	}
+}
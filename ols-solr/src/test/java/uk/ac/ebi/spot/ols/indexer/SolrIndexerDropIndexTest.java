@@ -0,0 +1,30 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.recordingSolr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class SolrIndexerDropIndexTest {
+
+	@Test
+	void testDropDeletesByQueryWithoutFetchingDocuments() {
+		List<String> ontologyCalls = new ArrayList<>();
+		List<String> suggestCalls = new ArrayList<>();
+
+		SolrIndexer indexer = new SolrIndexer();
+		indexer.ontologyTemplate = recordingSolr(ontologyCalls);
+		indexer.autosuggestTemplate = recordingSolr(suggestCalls);
+
+		// the repositories are left unset, the drop must not read any documents
+		indexer.dropIndex("efo");
+
+		assertEquals(2, ontologyCalls.size());
+		assertEquals("delete ontology_name:efo", ontologyCalls.get(0));
+		assertEquals("commit", ontologyCalls.get(1));
+		assertEquals(ontologyCalls, suggestCalls);
+	}
+}
@@ -0,0 +1,70 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.DEFAULT;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.recordingSolr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.IRI;
+
+import uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.Answer;
+import uk.ac.ebi.spot.ols.loader.OntologyLoader;
+import uk.ac.ebi.spot.ols.model.TermDocument;
+
+public class SolrIndexerParallelBuildTest {
+
+	private static final int CLASSES = 5500;
+
+	@Test
+	void testClassDocumentsAreBuiltInParallelInOrder() {
+		List<Object> sent = Collections.synchronizedList(new ArrayList<>());
+		SolrIndexer indexer = new SolrIndexer() {
+			@Override
+			public int getSenderCount() {
+				// a single sender, so the documents arrive in the order they were handed over
+				return 1;
+			}
+
+			@Override
+			public int getBuilderCount() {
+				return 4;
+			}
+		};
+		indexer.ontologyTemplate = recordingSolr(Collections.synchronizedList(new ArrayList<>()), sent);
+		indexer.autosuggestTemplate = recordingSolr(Collections.synchronizedList(new ArrayList<>()));
+
+		indexer.createIndex(syntheticLoader());
+
+		// the classes and the ontology document
+		assertEquals(CLASSES + 1, sent.size());
+		for (int i = 0; i < CLASSES; i++) {
+			TermDocument document = (TermDocument) sent.get(i);
+			assertEquals("http://example.org/class/" + i, document.getUri());
+			assertEquals("synthetic:class:http://example.org/class/" + i, document.getId());
+		}
+	}
+
+	private OntologyLoader syntheticLoader() {
+		List<IRI> classes = new ArrayList<>();
+		Map<IRI, Collection<IRI>> parents = new HashMap<>();
+		for (int i = 0; i < CLASSES; i++) {
+			IRI iri = IRI.create("http://example.org/class/" + i);
+			classes.add(iri);
+			if (i > 0) {
+				parents.put(iri, Collections.singleton(classes.get((i - 1) / 2)));
+			}
+		}
+
+		Map<String, Answer> answers = new HashMap<>();
+		answers.put("getAllClasses", args -> classes);
+		answers.put("getDirectParentTerms", args -> args == null ? parents : DEFAULT);
+		return SolrIndexerTestHelper.syntheticLoader(answers);
+	}
+}
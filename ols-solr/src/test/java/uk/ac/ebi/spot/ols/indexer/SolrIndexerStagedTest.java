@@ -0,0 +1,124 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.DEFAULT;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.recordingSolr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.IRI;
+
+import uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.Answer;
+import uk.ac.ebi.spot.ols.loader.OntologyLoader;
+import uk.ac.ebi.spot.ols.model.StagedIds;
+import uk.ac.ebi.spot.ols.model.TermDocument;
+
+public class SolrIndexerStagedTest {
+
+	private final List<String> ontologyCalls = Collections.synchronizedList(new ArrayList<>());
+	private final List<String> suggestCalls = Collections.synchronizedList(new ArrayList<>());
+	private final List<Object> documents = Collections.synchronizedList(new ArrayList<>());
+
+	private SolrIndexer indexer;
+
+	@BeforeEach
+	void setUp() {
+		System.setProperty("ols.solr.staged", "true");
+		indexer = new SolrIndexer();
+		indexer.ontologyTemplate = recordingSolr(ontologyCalls, documents);
+		indexer.autosuggestTemplate = recordingSolr(suggestCalls);
+	}
+
+	@AfterEach
+	void tearDown() {
+		System.clearProperty("ols.solr.staged");
+	}
+
+	@Test
+	void testNewGenerationReplacesTheOldOneWhenCommitted() {
+		assertTrue(indexer.replacesIndex());
+
+		indexer.createIndex(syntheticLoader(false));
+
+		// the classes and the ontology document, all tagged with the same generation
+		assertEquals(4, documents.size());
+		Long generation = ((TermDocument) documents.get(0)).getGeneration();
+		assertNotNull(generation);
+		for (Object document : documents) {
+			TermDocument term = (TermDocument) document;
+			assertEquals(generation, term.getGeneration());
+			assertEquals(StagedIds.idOf(StagedIds.publicId(term.getId()), generation), term.getId());
+		}
+
+		// the other generations, but not the new one, are deleted in the commit that makes the new one visible
+		assertEquals(1, Collections.frequency(updates(ontologyCalls), "commit"));
+		for (List<String> calls : Arrays.asList(ontologyCalls, suggestCalls)) {
+			List<String> last = lastUpdates(calls);
+			assertTrue(last.get(0).startsWith("delete ") && last.get(0).contains("ontology_name:synthetic"),
+					last.get(0));
+			assertTrue(last.get(0).contains("-generation:" + generation), last.get(0));
+			assertEquals("commit", last.get(1));
+		}
+	}
+
+	@Test
+	void testFailedLoadIsDiscarded() {
+		assertThrows(IllegalStateException.class, () -> indexer.createIndex(syntheticLoader(true)));
+
+		// nothing was committed but the delete of the failed generation
+		assertEquals(1, Collections.frequency(updates(ontologyCalls), "commit"));
+		for (List<String> calls : Arrays.asList(ontologyCalls, suggestCalls)) {
+			List<String> last = lastUpdates(calls);
+			assertTrue(last.get(0).startsWith("delete ") && last.get(0).contains("ontology_name:synthetic"),
+					last.get(0));
+			assertTrue(last.get(0).contains("generation:"), last.get(0));
+			assertEquals("commit", last.get(1));
+		}
+	}
+
+	/**
+	 * @return the updates, without the queries of the sweep for stale generations
+	 */
+	private static List<String> updates(List<String> calls) {
+		synchronized (calls) {
+			return calls.stream()
+					.filter(call -> call.startsWith("saveBeans") || call.startsWith("delete") || call.equals("commit"))
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static List<String> lastUpdates(List<String> calls) {
+		List<String> updates = updates(calls);
+		return updates.subList(updates.size() - 2, updates.size());
+	}
+
+	private OntologyLoader syntheticLoader(boolean failOnIndividuals) {
+		AtomicInteger individualCalls = new AtomicInteger();
+		List<IRI> classes = Arrays.asList(IRI.create("http://example.org/class/0"),
+				IRI.create("http://example.org/class/1"), IRI.create("http://example.org/class/2"));
+
+		Map<String, Answer> answers = new HashMap<>();
+		answers.put("getAllClasses", args -> classes);
+		answers.put("getAllIndividualIRIs", args -> {
+			// the first call only logs the number of individuals, the second indexes them
+			if (failOnIndividuals && individualCalls.incrementAndGet() > 1) {
+				throw new IllegalStateException("individuals failed");
+			}
+			return DEFAULT;
+		});
+		return SolrIndexerTestHelper.syntheticLoader(answers);
+	}
+}
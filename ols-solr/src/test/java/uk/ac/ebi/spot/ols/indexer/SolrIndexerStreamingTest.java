@@ -0,0 +1,80 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.ebi.spot.ols.indexer.SolrIndexerTestHelper.solr;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.IRI;
+import org.springframework.data.solr.core.SolrOperations;
+
+import uk.ac.ebi.spot.ols.loader.OntologyLoader;
+
+public class SolrIndexerStreamingTest {
+
+	private static final int INDIVIDUALS = 1000000;
+
+	private final AtomicLong built = new AtomicLong();
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong maxPending = new AtomicLong();
+
+	@Test
+	void testDocumentsInMemoryAreBounded() {
+		SolrIndexer indexer = new SolrIndexer();
+		indexer.ontologyTemplate = countingSolr(sent);
+		indexer.autosuggestTemplate = countingSolr(new AtomicLong());
+
+		indexer.createIndex(syntheticLoader());
+
+		// the individuals and the ontology document
+		assertEquals(INDIVIDUALS + 1, sent.get());
+		// the batch being filled, the queued batches and one batch in each sender
+		long bound = (long) indexer.getBatchSize() * (3 * indexer.getSenderCount() + 1);
+		assertTrue(maxPending.get() <= bound, maxPending.get() + " documents held, expected at most " + bound);
+	}
+
+	private SolrOperations countingSolr(AtomicLong count) {
+		return solr((method, args) -> {
+			if (method.equals("saveBeans")) {
+				// a slow Solr, so building gets ahead of sending
+				Thread.sleep(1);
+				count.addAndGet(((Collection<?>) args[0]).size());
+			}
+		});
+	}
+
+	private OntologyLoader syntheticLoader() {
+		Collection<IRI> individuals = new AbstractCollection<IRI>() {
+			@Override
+			public Iterator<IRI> iterator() {
+				return new Iterator<IRI>() {
+					private int next = 0;
+
+					@Override
+					public boolean hasNext() {
+						return next < INDIVIDUALS;
+					}
+
+					@Override
+					public IRI next() {
+						long pending = built.incrementAndGet() - sent.get();
+						maxPending.accumulateAndGet(pending, Math::max);
+						return IRI.create("http://example.org/individual/" + next++);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return INDIVIDUALS;
+			}
+		};
+
+		return SolrIndexerTestHelper.syntheticLoader("getAllIndividualIRIs", args -> individuals);
+	}
+}
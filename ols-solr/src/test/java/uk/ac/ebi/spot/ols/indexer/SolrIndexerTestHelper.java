@@ -0,0 +1,122 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.springframework.data.solr.core.DefaultQueryParser;
+import org.springframework.data.solr.core.SolrOperations;
+import org.springframework.data.solr.core.query.SolrDataQuery;
+
+import uk.ac.ebi.spot.ols.loader.OntologyLoader;
+
+/**
+ * Stand-ins for an ontology loader and for Solr in the indexer tests
+ */
+final class SolrIndexerTestHelper {
+
+	/**
+	 * Returned by an answer to fall back to the default answer of the method
+	 */
+	static final Object DEFAULT = new Object();
+
+	interface Answer {
+		Object answer(Object[] args) throws Throwable;
+	}
+
+	interface SolrCall {
+		void call(String method, Object[] args) throws Throwable;
+	}
+
+	private SolrIndexerTestHelper() {
+	}
+
+	/**
+	 * @param answers answers by method name, the other methods return false, empty collections and maps or null
+	 * @return the loader of an ontology called synthetic
+	 */
+	static OntologyLoader syntheticLoader(Map<String, Answer> answers) {
+		return (OntologyLoader) Proxy.newProxyInstance(SolrIndexerTestHelper.class.getClassLoader(),
+				new Class<?>[] {OntologyLoader.class}, (proxy, method, args) -> {
+					Answer answer = answers.get(method.getName());
+					if (answer != null) {
+						Object value = answer.answer(args);
+						if (value != DEFAULT) {
+							return value;
+						}
+					}
+					switch (method.getName()) {
+						case "getOntologyName":
+							return "synthetic";
+						case "getOntologyIRI":
+							return IRI.create("http://example.org/synthetic");
+					}
+					Class<?> type = method.getReturnType();
+					if (type == boolean.class) {
+						return false;
+					}
+					if (type.isAssignableFrom(ArrayList.class)) {
+						return new ArrayList<>();
+					}
+					if (type.isAssignableFrom(HashSet.class)) {
+						return new HashSet<>();
+					}
+					if (type.isAssignableFrom(HashMap.class)) {
+						return new HashMap<>();
+					}
+					return null;
+				});
+	}
+
+	static OntologyLoader syntheticLoader(String method, Answer answer) {
+		return syntheticLoader(Collections.singletonMap(method, answer));
+	}
+
+	/**
+	 * @return Solr that hands every call to the given handler and returns null
+	 */
+	static SolrOperations solr(SolrCall handler) {
+		return (SolrOperations) Proxy.newProxyInstance(SolrIndexerTestHelper.class.getClassLoader(),
+				new Class<?>[] {SolrOperations.class}, (proxy, method, args) -> {
+					handler.call(method.getName(), args);
+					return null;
+				});
+	}
+
+	/**
+	 * Solr that records the calls it receives by method name, "saveBeans" followed by the commitWithin if there is
+	 * one, and "delete" followed by the query of deletes by query
+	 *
+	 * @param documents the documents that are saved
+	 */
+	static SolrOperations recordingSolr(List<String> calls, List<Object> documents) {
+		return solr((method, args) -> {
+			switch (method) {
+				case "saveBeans":
+					calls.add("saveBeans" + (args.length > 1 ? " " + args[1] : ""));
+					documents.addAll((Collection<?>) args[0]);
+					break;
+				case "delete":
+					calls.add(args[0] instanceof SolrDataQuery ? "delete " + queryString((SolrDataQuery) args[0]) :
+							"delete");
+					break;
+				default:
+					calls.add(method);
+			}
+		});
+	}
+
+	static SolrOperations recordingSolr(List<String> calls) {
+		return recordingSolr(calls, Collections.synchronizedList(new ArrayList<>()));
+	}
+
+	static String queryString(SolrDataQuery query) {
+		return new DefaultQueryParser().getQueryString(query);
+	}
+}
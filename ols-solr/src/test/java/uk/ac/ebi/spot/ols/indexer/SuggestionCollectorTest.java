@@ -0,0 +1,64 @@
+package uk.ac.ebi.spot.ols.indexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ebi.spot.ols.model.SuggestDocument;
+
+public class SuggestionCollectorTest {
+
+	@Test
+	void testSuggestionsAreDeduplicatedAndCounted() {
+		SuggestionCollector collector = new SuggestionCollector("efo");
+		collector.addTerm("Heart disease", Arrays.asList("cardiopathy", "heart  disease "));
+		collector.addTerm("heart disease", null);
+		collector.addTerm(null, Collections.singleton("Cardiopathy"));
+		collector.addTerm("  ", Collections.emptyList());
+
+		List<SuggestDocument> documents = collector.getDocuments();
+		assertEquals(2, collector.size());
+		assertEquals(5, collector.getSeen());
+
+		// the first form seen is suggested, each term counts once, in the order of the normalized texts
+		assertEquals("cardiopathy", documents.get(0).getAutosuggest());
+		assertEquals(2, documents.get(0).getFrequency());
+		assertEquals("Heart disease", documents.get(1).getAutosuggest());
+		assertEquals(2, documents.get(1).getFrequency());
+	}
+
+	@Test
+	void testChunksAreMerged() {
+		List<SuggestDocument> documents;
+		try (SuggestionCollector collector = new SuggestionCollector("efo", 2)) {
+			collector.addTerm("Heart disease", Collections.singleton("cardiopathy"));
+			// written to a chunk
+			collector.addTerm("asthma", Collections.singleton("Cardiopathy"));
+			// written to a second chunk
+			collector.addTerm("heart disease", Collections.singleton("Asthma"));
+			collector.addTerm("HEART DISEASE", null);
+
+			documents = collector.getDocuments();
+			assertEquals(3, collector.size());
+			assertEquals(7, collector.getSeen());
+		}
+
+		assertEquals(3, documents.size());
+		assertEquals("asthma", documents.get(0).getAutosuggest());
+		assertEquals(2, documents.get(0).getFrequency());
+		assertEquals("cardiopathy", documents.get(1).getAutosuggest());
+		assertEquals(2, documents.get(1).getFrequency());
+		assertEquals("Heart disease", documents.get(2).getAutosuggest());
+		assertEquals(3, documents.get(2).getFrequency());
+		assertEquals("heart diseaseefo", documents.get(2).getId());
+	}
+
+	@Test
+	void testNormalize() {
+		assertEquals("heart disease", SuggestionCollector.normalize(" Heart\t DISEASE\n"));
+	}
+}
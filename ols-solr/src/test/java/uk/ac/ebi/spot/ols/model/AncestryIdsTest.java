@@ -0,0 +1,20 @@
+package uk.ac.ebi.spot.ols.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class AncestryIdsTest {
+
+	@Test
+	void testIdsAreStableAndPositive() {
+		String iri = "http://purl.obolibrary.org/obo/GO_0008150";
+		assertEquals(AncestryIds.idOf(iri), AncestryIds.idOf(new String(iri)));
+		assertNotEquals(AncestryIds.idOf(iri), AncestryIds.idOf("http://purl.obolibrary.org/obo/GO_0008151"));
+		for (int i = 0; i < 10000; i++) {
+			assertTrue(AncestryIds.idOf("http://example.org/term/" + i) >= 0);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package uk.ac.ebi.spot.ols.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class StagedIdsTest {
+
+	@Test
+	void testPublicIdDropsTheGeneration() {
+		String id = "go:class:http://purl.obolibrary.org/obo/GO_0008150";
+		assertEquals(id, StagedIds.publicId(StagedIds.idOf(id, 1571234567890L)));
+		assertEquals(id, StagedIds.publicId(id));
+	}
+
+	@Test
+	void testIdsThatWerentStagedAreKept() {
+		assertEquals("efo:class:mailto:someone@example.org", StagedIds.publicId("efo:class:mailto:someone@example.org"));
+		assertEquals("efo:class:term@", StagedIds.publicId("efo:class:term@"));
+	}
+}
@@ -0,0 +1,61 @@
+package uk.ac.ebi.spot.ols.config;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exposes the Neo4j memory sizing chosen at startup (see {@link Neo4jMemoryTuner}) and the page cache hit ratio on
+ * the metrics endpoint, under neo4j.*
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+@Component
+public class Neo4jMetrics implements PublicMetrics {
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    GraphDatabaseService graphDatabaseService;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+
+        Neo4jMemoryTuner sizing = OlsNeo4jConfiguration.getMemorySizing();
+        if (sizing != null) {
+            metrics.add(new Metric<>("neo4j.store.bytes", sizing.getStoreBytes()));
+            metrics.add(new Metric<>("neo4j.memory.physical.bytes", sizing.getPhysicalBytes()));
+            metrics.add(new Metric<>("neo4j.memory.heap.max.bytes", sizing.getMaxHeapBytes()));
+            metrics.add(new Metric<>("neo4j.memory.heap.recommended.bytes", sizing.getRecommendedHeapBytes()));
+            metrics.add(new Metric<>("neo4j.pagecache.bytes", sizing.getPageCacheBytes()));
+        }
+
+        if (graphDatabaseService instanceof GraphDatabaseAPI) {
+            try {
+                PageCacheMonitor pageCache = ((GraphDatabaseAPI) graphDatabaseService).getDependencyResolver()
+                        .resolveDependency(PageCacheMonitor.class);
+                // every page access pins a page, and faults when the page isn't in the cache
+                long pins = pageCache.countPins();
+                long faults = pageCache.countFaults();
+                metrics.add(new Metric<>("neo4j.pagecache.hits", pins - faults));
+                metrics.add(new Metric<>("neo4j.pagecache.faults", faults));
+                metrics.add(new Metric<>("neo4j.pagecache.evictions", pageCache.countEvictions()));
+                metrics.add(new Metric<>("neo4j.pagecache.hit.ratio", pins == 0 ? 1.0 : (double) (pins - faults) / pins));
+            } catch (RuntimeException e) {
+                log.debug("Neo4j page cache counters aren't available", e);
+            }
+        }
+        return metrics;
+    }
+}
@@ -26,6 +26,9 @@ public class SearchConfiguration {
     @Value("${ols.solr.suggest.core}")
     private String suggestCore = "autocomplete";
 
+    @Value("${ols.solr.staged:false}")
+    private boolean staged = false;
+
     public URL getOlsSearchServer() throws MalformedURLException {
         return new URL(server + "/" + ontologyCore);
     }
@@ -34,4 +37,11 @@ public class SearchConfiguration {
         return new URL(server + "/" + suggestCore);
     }
 
+    /**
+     * @return whether the indexer loads Solr in stages, so the document ids carry a generation
+     */
+    public boolean isStaged() {
+        return staged;
+    }
+
 }
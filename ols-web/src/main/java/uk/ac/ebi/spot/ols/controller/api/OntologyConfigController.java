@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 import uk.ac.ebi.spot.ols.config.OntologyResourceConfig;
 import uk.ac.ebi.spot.ols.model.OntologyDocument;
 import uk.ac.ebi.spot.ols.service.OntologyRepositoryService;
+import uk.ac.ebi.spot.ols.util.ModuleExtractionType;
 import uk.ac.ebi.spot.ols.util.ReasonerType;
 
 import javax.servlet.http.HttpServletRequest;
@@ -105,6 +106,8 @@ public class OntologyConfigController {
             this.setMailingList(config.getMailingList());
             this.setFileLocation(config.getFileLocation());
             this.setReasonerType(config.getReasonerType());
+            this.setModuleExtractionType(config.getModuleExtractionType());
+            this.setStreaming(config.isStreaming());
             this.setLabelProperty(config.getLabelProperty());
             this.setDefinitionProperties(config.getDefinitionProperties());
             this.setSynonymProperties(config.getSynonymProperties());
@@ -207,6 +210,18 @@ public class OntologyConfigController {
         public ReasonerType getReasonerType() {
             return super.getReasonerType();
         }
+
+        @Override
+        @JsonProperty("module_extraction")
+        public ModuleExtractionType getModuleExtractionType() {
+            return super.getModuleExtractionType();
+        }
+
+        @Override
+        @JsonProperty("streaming")
+        public boolean isStreaming() {
+            return super.isStreaming();
+        }
     }
 
 
@@ -1,5 +1,9 @@
 package uk.ac.ebi.spot.ols.controller.api;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
 import org.apache.http.client.config.RequestConfig;
@@ -9,6 +13,8 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.rest.webmvc.RepositoryLinksResource;
 import org.springframework.hateoas.mvc.ControllerLinkBuilder;
@@ -18,7 +24,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import uk.ac.ebi.spot.ols.config.SearchConfiguration;
+import uk.ac.ebi.spot.ols.model.AncestryIds;
+import uk.ac.ebi.spot.ols.model.StagedIds;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -26,6 +35,7 @@ import java.net.MalformedURLException;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -39,6 +49,8 @@ import static org.springframework.http.MediaType.*;
 @Controller
 public class SearchController {
 
+    private Logger log = LoggerFactory.getLogger(getClass());
+
     private static String COLON = ":";
     private static String QUOTUE = "\"";
     private static String SPACE = " ";
@@ -47,6 +59,13 @@ public class SearchController {
 
     @Autowired
     private SearchConfiguration searchConfiguration;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final long ANCESTRY_ID_FIELDS_CHECK_MILLIS = 5 * 60 * 1000;
+    private volatile boolean ancestryIdFields = false;
+    private volatile long ancestryIdFieldsChecked = 0;
+    private final AtomicBoolean ancestryIdFieldsChecking = new AtomicBoolean();
 //
 //    @Autowired
 //    private SolrTemplate solrTemplate;
@@ -182,9 +201,9 @@ public class SearchController {
                     .collect(Collectors.joining(" OR "));
 
             if (inclusive) {
-                solrQuery.addFilterQuery("filter( iri: (" + result + ")) filter(ancestor_iri: (" + result + "))" );
+                solrQuery.addFilterQuery("filter( iri: (" + result + ")) filter(" + ancestorQuery("ancestor", childrenOf) + ")" );
             } else {
-                solrQuery.addFilterQuery("ancestor_iri: (" + result + ")");
+                solrQuery.addFilterQuery(ancestorQuery("ancestor", childrenOf));
             }
 
         }
@@ -195,9 +214,9 @@ public class SearchController {
                     .collect(Collectors.joining(" OR "));
 
             if (inclusive) {
-                solrQuery.addFilterQuery("filter( iri: (" + result + ")) filter(hierarchical_ancestor_iri: (" + result + "))" );
+                solrQuery.addFilterQuery("filter( iri: (" + result + ")) filter(" + ancestorQuery("hierarchical_ancestor", allChildrenOf) + ")" );
             } else {
-                solrQuery.addFilterQuery("hierarchical_ancestor_iri: (" + result + ")");
+                solrQuery.addFilterQuery(ancestorQuery("hierarchical_ancestor", allChildrenOf));
             }
         }
 
@@ -216,7 +235,63 @@ public class SearchController {
 
         StringBuilder solrSearchBuilder = buildBaseSearchRequest(solrQuery.toString());
     //  dispatchSearch(solrSearchBuilder.toString(), response.getOutputStream());
-        dispatchSearch(solrSearchBuilder.toString(), response);
+        dispatchSearch(solrSearchBuilder.toString(), response, "json".equals(format));
+    }
+
+    /**
+     * Matches the terms under any of the IRIs, whether the index was built with the ancestor IRIs or, in slim mode,
+     * with their ids. The ids are only queried if the schema of the ontology core has the id fields.
+     *
+     * @param field ancestor or hierarchical_ancestor
+     */
+    String ancestorQuery(String field, Collection<String> iris) {
+        String quoted = iris.stream()
+                .map(addQuotes)
+                .collect(Collectors.joining(" OR "));
+        if (!hasAncestryIdFields()) {
+            return field + "_iri: (" + quoted + ")";
+        }
+        String ids = iris.stream()
+                .map(iri -> String.valueOf(AncestryIds.idOf(iri)))
+                .collect(Collectors.joining(" OR "));
+        return field + "_iri: (" + quoted + ") OR " + field + "_id: (" + ids + ")";
+    }
+
+    /**
+     * Whether the schema of the ontology core has the ancestor_id field of slim indexing. The schema is asked on a
+     * background thread at startup and then every few minutes, so a schema that is deployed later is picked up
+     * without a restart, and searches never wait for it. Until the first answer the id fields aren't queried.
+     */
+    private boolean hasAncestryIdFields() {
+        long now = System.currentTimeMillis();
+        if (now - ancestryIdFieldsChecked >= ANCESTRY_ID_FIELDS_CHECK_MILLIS &&
+                ancestryIdFieldsChecking.compareAndSet(false, true)) {
+            // a failed check also waits for the next interval, so an unreachable Solr isn't asked on every search
+            ancestryIdFieldsChecked = now;
+            Thread check = new Thread(this::checkAncestryIdFields, "solr-schema-check");
+            check.setDaemon(true);
+            check.start();
+        }
+        return ancestryIdFields;
+    }
+
+    @PostConstruct
+    void checkAncestryIdFieldsAtStartup() {
+        hasAncestryIdFields();
+    }
+
+    private void checkAncestryIdFields() {
+        try (CloseableHttpClient httpclient = HttpClients.createDefault();
+             CloseableHttpResponse response = httpclient.execute(
+                     newGet(searchConfiguration.getOlsSearchServer() + "/schema/fields/ancestor_id?wt=json"))) {
+            ancestryIdFields = response.getStatusLine().getStatusCode() == 200;
+            EntityUtils.consume(response.getEntity());
+        } catch (IOException e) {
+            log.warn("Couldn't check the Solr schema for the ancestor id fields, keeping " + ancestryIdFields, e);
+        }
+        finally {
+            ancestryIdFieldsChecking.set(false);
+        }
     }
 
     Function<String,String> addQuotes = new Function<String,String>() {
@@ -332,17 +407,11 @@ public class SearchController {
         }
 
         if (childrenOf != null) {
-            String result = childrenOf.stream()
-                    .map(addQuotes)
-                    .collect(Collectors.joining(" OR "));
-            solrQuery.addFilterQuery("ancestor_iri: (" + result + ")");
+            solrQuery.addFilterQuery(ancestorQuery("ancestor", childrenOf));
         }
 
         if (allChildrenOf != null) {
-            String result = allChildrenOf.stream()
-                    .map(addQuotes)
-                    .collect(Collectors.joining(" OR "));
-            solrQuery.addFilterQuery("hierarchical_ancestor_iri: (" + result + ")");
+            solrQuery.addFilterQuery(ancestorQuery("hierarchical_ancestor", allChildrenOf));
         }
 
         solrQuery.addFilterQuery("is_obsolete:" + queryObsoletes);
@@ -358,7 +427,7 @@ public class SearchController {
 
         StringBuilder solrSearchBuilder = buildBaseSearchRequest(solrQuery.toString());
         //dispatchSearch(solrSearchBuilder.toString(), response.getOutputStream());
-        dispatchSearch(solrSearchBuilder.toString(), response);
+        dispatchSearch(solrSearchBuilder.toString(), response, true);
     }
 
     @RequestMapping(path = "/api/suggest", produces = {APPLICATION_JSON_VALUE}, method = RequestMethod.GET)
@@ -379,6 +448,8 @@ public class SearchController {
         solrQuery.setQuery(query);
         solrQuery.set("defType", "edismax");
         solrQuery.set("qf", "autosuggest^3 autosuggest_e^2 autosuggest_wse^1");
+        // suggestions used by many terms rank higher, older indexes without frequency get no boost
+        solrQuery.set("bf", "log(sum(frequency,1))");
         solrQuery.set("wt", "json");
         solrQuery.setFields("autosuggest");
 
@@ -391,6 +462,8 @@ public class SearchController {
         solrQuery.setHighlight(true);
         solrQuery.add("hl.simple.pre", "<b>");
         solrQuery.add("hl.simple.post", "</b>");
+        // suggestions are unique within an ontology once the autosuggest core is rebuilt, but older cores have one
+        // per term, so suggestions are grouped whichever ontologies are asked for
         solrQuery.add("group", "true");
         solrQuery.add("group.field", "autosuggest");
         solrQuery.add("group.main", "true");
@@ -399,17 +472,76 @@ public class SearchController {
         StringBuilder solrSearchBuilder = buildBaseSuggestRequest(solrQuery.toString());
         //dispatchSearch(solrSearchBuilder.toString(), response.getOutputStream());
 
-        dispatchSearch(solrSearchBuilder.toString(), response);
+        dispatchSearch(solrSearchBuilder.toString(), response, true);
     }
 
-    private void dispatchSearch(String searchString, HttpServletResponse httpresponse) throws IOException {
+    /**
+     * Streams the Solr response to the client. Only when Solr is loaded in stages, and the response is JSON, is it
+     * read in full to replace the staged ids with the public ones.
+     */
+    private void dispatchSearch(String searchString, HttpServletResponse httpresponse, boolean json)
+            throws IOException {
 
         //httpresponse.setHeader(); //Do we need to put something else into the header?
         httpresponse.setContentType("application/json");
         OutputStream out=httpresponse.getOutputStream();
 
         CloseableHttpClient httpclient = HttpClients.createDefault();
-        HttpGet httpGet = new HttpGet(searchString);
+        HttpGet httpGet = newGet(searchString);
+
+        try (CloseableHttpResponse response = httpclient.execute(httpGet)) {
+//            getLog().debug("Received HTTP response: " + response.getStatusLine().toString());
+
+            org.apache.http.HttpEntity entity = response.getEntity();
+
+            if (json && searchConfiguration.isStaged()) {
+                out.write(withPublicIds(EntityUtils.toByteArray(entity)));
+            }
+            else {
+                entity.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Replaces the ids of documents written by a staged load with their public ids, in the documents, the expanded
+     * groups and the highlighting of a JSON response, so the ids don't change when an ontology is reloaded. Responses
+     * in other formats are returned as they are.
+     */
+    byte[] withPublicIds(byte[] body) throws IOException {
+        JsonNode json;
+        try {
+            json = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            return body;
+        }
+        if (json == null || !json.isObject()) {
+            return body;
+        }
+        publicIds(json.path("response").path("docs"));
+        for (JsonNode group : json.path("expanded")) {
+            publicIds(group.path("docs"));
+        }
+        JsonNode highlighting = json.path("highlighting");
+        if (highlighting.isObject()) {
+            ObjectNode highlights = objectMapper.createObjectNode();
+            highlighting.fields().forEachRemaining(
+                    highlight -> highlights.set(StagedIds.publicId(highlight.getKey()), highlight.getValue()));
+            ((ObjectNode) json).set("highlighting", highlights);
+        }
+        return objectMapper.writeValueAsBytes(json);
+    }
+
+    private static void publicIds(JsonNode documents) {
+        for (JsonNode document : documents) {
+            if (document.path("id").isTextual()) {
+                ((ObjectNode) document).put("id", StagedIds.publicId(document.get("id").asText()));
+            }
+        }
+    }
+
+    private static HttpGet newGet(String url) {
+        HttpGet httpGet = new HttpGet(url);
         if (System.getProperty("http.proxyHost") != null) {
             HttpHost proxy;
             if (System.getProperty("http.proxyPort") != null) {
@@ -421,16 +553,7 @@ public class SearchController {
             }
             httpGet.setConfig(RequestConfig.custom().setProxy(proxy).build());
         }
-
-        try (CloseableHttpResponse response = httpclient.execute(httpGet)) {
-//            getLog().debug("Received HTTP response: " + response.getStatusLine().toString());
-
-            org.apache.http.HttpEntity entity = response.getEntity();
-
-
-            entity.writeTo(out);
-            EntityUtils.consume(entity);
-        }
+        return httpGet;
     }
 
     private StringBuilder buildBaseSearchRequest(String queryPath) {
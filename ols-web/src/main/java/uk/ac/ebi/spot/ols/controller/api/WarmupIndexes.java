@@ -1,70 +1,69 @@
 package uk.ac.ebi.spot.ols.controller.api;
 
-import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.Relationship;
-import org.neo4j.graphdb.Transaction;
-import org.neo4j.tooling.GlobalGraphOperations;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
-import uk.ac.ebi.spot.ols.neo4j.model.Term;
-import uk.ac.ebi.spot.ols.neo4j.repository.OntologyTermRepository;
-import uk.ac.ebi.spot.ols.neo4j.service.OntologyTermGraphService;
+import uk.ac.ebi.spot.ols.config.Neo4jStoreSwitcher;
+import uk.ac.ebi.spot.ols.neo4j.service.Neo4jWarmupService;
+
+import java.util.Map;
 
 /**
  * @author Simon Jupp
  * @date 08/11/2016
  * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ *
+ * Starts the Neo4j warm-up (see {@link Neo4jWarmupService}) when the application is ready, unless ols.neo4j.warmup
+ * is false, and again each time a blue/green store is switched. /warmup/ready answers 503 until the store has been
+ * warmed up, or the warm-up has failed its last attempt, so it can be used as a readiness check. It is always ready
+ * when the warm-up is off.
  */
 @Controller
-public class WarmupIndexes {
-
-//    @Autowired GraphDatabaseService db;
-
+public class WarmupIndexes implements ApplicationListener<ApplicationReadyEvent> {
 
     @Autowired
-    OntologyTermGraphService ontologyTermGraphService;
+    Neo4jWarmupService warmupService;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (isWarmupEnabled()) {
+            warmupService.start();
+            if (Neo4jStoreSwitcher.isBlueGreen()) {
+                Neo4jStoreSwitcher.addSwitchListener(warmupService::restart);
+            }
+        }
+    }
 
+    private static boolean isWarmupEnabled() {
+        return Boolean.parseBoolean(System.getProperty("ols.neo4j.warmup", "true"));
+    }
 
     @RequestMapping(path = "warmup", produces = {MediaType.TEXT_PLAIN_VALUE}, method = RequestMethod.GET)
     public HttpEntity<String> warmUp() {
-        PageRequest pageRequest = new PageRequest(0,5);
-
-        for (Term t : ontologyTermGraphService.findAll(pageRequest)) {
-            ontologyTermGraphService.findAllByIri(t.getIri(), pageRequest);
-            ontologyTermGraphService.findAllByOboId(t.getOboId(), pageRequest);
-            ontologyTermGraphService.findAllByShortForm(t.getShortForm(), pageRequest);
-            ontologyTermGraphService.findAllByOntology(t.getOntologyName(), pageRequest);
-
-            ontologyTermGraphService.getAncestors(t.getOntologyName(), t.getIri(), pageRequest);
-            ontologyTermGraphService.getParents(t.getOntologyName(), t.getIri(), pageRequest);
-            ontologyTermGraphService.getChildren(t.getOntologyName(), t.getIri(), pageRequest);
-            ontologyTermGraphService.getDescendants(t.getOntologyName(), t.getIri(), pageRequest);
-            ontologyTermGraphService.getRelatedFrom(t.getOntologyName(), t.getIri());
-
-            ontologyTermGraphService.getHierarchicalAncestors(t.getOntologyName(), t.getIri(), pageRequest);
-            ontologyTermGraphService.getHierarchicalChildren(t.getOntologyName(), t.getIri(), pageRequest);
-            ontologyTermGraphService.getHierarchicalDescendants(t.getOntologyName(), t.getIri(), pageRequest);
-            ontologyTermGraphService.getHierarchicalParents(t.getOntologyName(), t.getIri(), pageRequest);
-
-            ontologyTermGraphService.getGraphJson(t.getOntologyName(), t.getIri());
-            ontologyTermGraphService.getInstances(t.getOntologyName(), t.getIri(), pageRequest);
-
-            ontologyTermGraphService.getRoots(t.getOntologyName(), false, pageRequest);
-
+        if (warmupService.isReady()) {
+            return new HttpEntity<String>("Warmed up and ready to go!");
+        }
+        if (warmupService.start()) {
+            return new HttpEntity<String>("Warm-up started");
         }
-//        db.execute("MATCH (n)\n" +
-//                "        OPTIONAL MATCH (n)-[r]->()\n" +
-//                "       RETURN count(n.iri) + count(r.iri)")
-//        ;
-//
-        return  new HttpEntity<String>("Warmed up and ready to go!");
+        return new HttpEntity<String>("Warming up: " + warmupService.getStatus());
     }
 
+    @RequestMapping(path = "warmup/ready", produces = {MediaType.APPLICATION_JSON_VALUE}, method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> ready() {
+        Map<String, Object> status = warmupService.getStatus();
+        if (!isWarmupEnabled()) {
+            status.put("warmup", "off");
+            return new ResponseEntity<>(status, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(status,
+                warmupService.isReadyToServe() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
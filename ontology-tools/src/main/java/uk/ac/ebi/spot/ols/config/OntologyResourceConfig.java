@@ -1,6 +1,7 @@
 package uk.ac.ebi.spot.ols.config;
 
 
+import uk.ac.ebi.spot.ols.util.ModuleExtractionType;
 import uk.ac.ebi.spot.ols.util.ReasonerType;
 
 import java.net.URI;
@@ -36,6 +37,8 @@ public class OntologyResourceConfig  {
     private  URI fileLocation;
 
     private ReasonerType reasonerType;
+    private ModuleExtractionType moduleExtractionType = ModuleExtractionType.NONE;
+    private boolean streaming;
     private  boolean oboSlims;
     private  URI labelProperty;
     private  Collection<URI> definitionProperties;
@@ -97,6 +100,8 @@ public class OntologyResourceConfig  {
         this.preferredPrefix = builder.preferredPrefix;
         this.fileLocation = builder.fileLocation;
         this.reasonerType = builder.reasonerType;
+        this.moduleExtractionType = builder.moduleExtractionType;
+        this.streaming = builder.streaming;
         this.oboSlims = builder.oboSlims;
         this.labelProperty = builder.labelProperty;
         this.synonymProperties = builder.synonymProperties;
@@ -157,6 +162,17 @@ public class OntologyResourceConfig  {
         return reasonerType;
     }
 
+    public ModuleExtractionType getModuleExtractionType() {
+        if (moduleExtractionType == null) {
+            return ModuleExtractionType.NONE;
+        }
+        return moduleExtractionType;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
     public boolean isOboSlims() {
         return oboSlims;
     }
@@ -257,6 +273,14 @@ public class OntologyResourceConfig  {
         this.reasonerType = reasonerType;
     }
 
+    public void setModuleExtractionType(ModuleExtractionType moduleExtractionType) {
+        this.moduleExtractionType = moduleExtractionType;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
     public void setCreators(Collection<String> creators) {
         this.creators = creators;
     }
@@ -338,6 +362,8 @@ public class OntologyResourceConfig  {
         private  URI fileLocation;
         private  boolean isSkos = false;
         private ReasonerType reasonerType = ReasonerType.NONE;
+        private ModuleExtractionType moduleExtractionType = ModuleExtractionType.NONE;
+        private boolean streaming = false;
         private  boolean oboSlims = false;
         private  URI labelProperty = URI.create(OntologyDefaults.LABEL);
         private  Collection<URI> definitionProperties  = Collections.singleton(URI.create(OntologyDefaults.DEFINITION));
@@ -410,6 +436,16 @@ public class OntologyResourceConfig  {
             return this;
         }
 
+        public OntologyResourceConfigBuilder setModuleExtractionType(ModuleExtractionType moduleExtractionType) {
+            this.moduleExtractionType = moduleExtractionType;
+            return this;
+        }
+
+        public OntologyResourceConfigBuilder setStreaming(boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
+
         public OntologyResourceConfigBuilder setOboSlims(boolean oboSlims) {
             this.oboSlims = oboSlims;
             return this;
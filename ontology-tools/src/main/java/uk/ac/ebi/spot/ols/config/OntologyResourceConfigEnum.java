@@ -13,6 +13,8 @@ public enum OntologyResourceConfigEnum {
     HIERARCHICAL_PROPERTY("hierarchical_property"),
     BASE_URI("base_uri"),
     REASONER("reasoner"),
+    MODULE_EXTRACTION("module_extraction"),
+    STREAMING("streaming"),
     OBO_SLIMS("oboSlims"),
     DESCRIPTION("description"),
     HOMEPAGE("homepage"),
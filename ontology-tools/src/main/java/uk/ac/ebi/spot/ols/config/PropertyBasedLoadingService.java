@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.spot.ols.util.ModuleExtractionType;
 import uk.ac.ebi.spot.ols.util.ReasonerType;
 
 import java.net.URI;
@@ -105,6 +106,15 @@ public class PropertyBasedLoadingService extends AbstractLoadingService {
             }
         }
 
+        if (environment.containsProperty("module_extraction")) {
+            String moduleExtraction = environment.getProperty("module_extraction");
+            builder.setModuleExtractionType(ModuleExtractionType.valueOf(moduleExtraction.toUpperCase()));
+        }
+
+        if (environment.containsProperty("streaming")) {
+            builder.setStreaming(Boolean.parseBoolean(environment.getProperty("streaming")));
+        }
+
         if (environment.containsProperty("oboSlims")) {
             builder.setOboSlims(Boolean.parseBoolean(environment.getProperty("oboSlims")));
         }
@@ -3,6 +3,7 @@ package uk.ac.ebi.spot.ols.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.ac.ebi.spot.ols.exception.ConfigParsingException;
+import uk.ac.ebi.spot.ols.util.ModuleExtractionType;
 import uk.ac.ebi.spot.ols.util.ReasonerType;
 
 import java.net.URI;
@@ -71,6 +72,8 @@ public class YamlBasedLoadingService extends AbstractLoadingService {
             populateHierarchicalProperty(builder);
             populateBaseURI(id, builder);
             populateReasoner(builder);
+            populateModuleExtraction(builder);
+            populateStreaming(builder);
             populateOBOSlims(builder);
             populateDescription(builder);
             populateHomepage(builder);
@@ -171,6 +174,24 @@ public class YamlBasedLoadingService extends AbstractLoadingService {
         }
     }
 
+    private void populateModuleExtraction(OntologyResourceConfig.OntologyResourceConfigBuilder builder) {
+        if (ontology.containsKey(MODULE_EXTRACTION.getPropertyName())) {
+            String moduleExtraction = (String) ontology.get(MODULE_EXTRACTION.getPropertyName());
+            try {
+                builder.setModuleExtractionType(ModuleExtractionType.valueOf(moduleExtraction.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown module extraction type, reasoning over the full imports closure " + moduleExtraction);
+                builder.setModuleExtractionType(ModuleExtractionType.NONE);
+            }
+        }
+    }
+
+    private void populateStreaming(OntologyResourceConfig.OntologyResourceConfigBuilder builder) {
+        if (ontology.containsKey(STREAMING.getPropertyName())) {
+            builder.setStreaming((boolean) ontology.get(STREAMING.getPropertyName()));
+        }
+    }
+
     private void populateBaseURI(String id, OntologyResourceConfig.OntologyResourceConfigBuilder builder) {
         if (ontology.containsKey(BASE_URI.getPropertyName()))  {
             Set<String> baseUris = new HashSet<>();
@@ -5,6 +5,7 @@ import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.io.OWLObjectRenderer;
 import org.semanticweb.owlapi.manchestersyntax.renderer.ManchesterOWLSyntaxOWLObjectRendererImpl;
 import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.Imports;
 import org.semanticweb.owlapi.reasoner.OWLReasoner;
 import org.semanticweb.owlapi.search.EntitySearcher;
 import org.semanticweb.owlapi.util.AnnotationValueShortFormProvider;
@@ -15,6 +16,8 @@ import org.slf4j.Logger;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.util.StringUtils;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+import uk.ac.manchester.cs.owlapi.modularity.SyntacticLocalityModuleExtractor;
 import uk.ac.ebi.spot.ols.config.OboDefaults;
 import uk.ac.ebi.spot.ols.config.OntologyDefaults;
 import uk.ac.ebi.spot.ols.config.OntologyLoadingConfiguration;
@@ -24,6 +27,7 @@ import uk.ac.ebi.spot.ols.renderer.OWLHTMLVisitor;
 import uk.ac.ebi.spot.ols.util.*;
 import uk.ac.ebi.spot.ols.xrefs.DatabaseService;
 import uk.ac.ebi.spot.usage.CpuUtils;
+import uk.ac.ebi.spot.usage.GcUtils;
 import uk.ac.ebi.spot.usage.MemoryUtils;
 import uk.ac.ebi.spot.usage.ResourceUsage;
 
@@ -36,6 +40,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -56,7 +61,6 @@ import java.util.stream.Stream;
 public abstract class
 AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
 
-    private static final Pattern oboIdFragmentPattern = Pattern.compile("(^([A-Za-z0-9_]*)_([A-Za-z0-9]*)$)");
 
     private IRI ontologyIRI;
     private IRI ontologyVersionIRI;
@@ -92,6 +96,8 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
     private IRI exclusionClassIRI;
     private IRI exclusionAnnotationIRI;
 
+    private ModuleExtractionType moduleExtractionType = ModuleExtractionType.NONE;
+
     private OWLOntologyManager manager;
     private OWLDataFactory factory;
     private OWLOntology ontology;
@@ -99,6 +105,11 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
     private boolean OWLAPIInitialized = false;
 
     private Collection<String> baseIRIs = new HashSet<>();
+    private PrefixTrie baseIRITrie = new PrefixTrie(baseIRIs);
+
+    // short forms are asked for many times per entity, e.g. for every property in isPartOf and by the indexers, so
+    // the short form, OBO id and locality of an IRI are worked out once
+    private Map<IRI, IriForms> iriForms = new ConcurrentHashMap<>();
 
     private Map<IRI, String> ontologyAccessions = new HashMap<>();
     private Map<IRI, String> oboIds = new HashMap<>();
@@ -267,6 +278,8 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
                 .map(IRI::create)
                 .collect(Collectors.toSet()));
 
+        setModuleExtractionType(config.getModuleExtractionType());
+
         
         try {
 			setOntologyResource(new UrlResource(config.getFileLocation()));
@@ -324,8 +337,9 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
     @Override
     public String getShortForm(IRI ontologyTermIRI) {
 
-        if (getOntologyTermAccessions().containsKey(ontologyTermIRI)) {
-            getOntologyTermAccessions().get(ontologyTermIRI);
+        String accession = getOntologyTermAccessions().get(ontologyTermIRI);
+        if (accession != null) {
+            return accession;
         }
         return  extractShortForm(ontologyTermIRI).get();
     }
@@ -378,6 +392,8 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
      * various required caches
      */
     protected OWLOntology loadOntology() throws OWLOntologyCreationException {
+        long gcTimeBefore = GcUtils.getGcTime();
+        long gcCountBefore = GcUtils.getGcCount();
         try {
             getLogger().debug("Loading ontology...");
             ResourceUsage.logUsage(getLogger(), "#### Monitoring ",
@@ -422,8 +438,14 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
             ResourceUsage.logUsage(getLogger(), "#### Monitoring ", getOntologyName() +
                     ":After loading ontology - before running reasoner", ":");
 
+            OWLOntology reasoningOntology = extractReasoningModule(ontology);
+
             // this call will initialise the reasoner
-            OWLReasoner reasoner = getOWLReasoner(ontology);
+            long classificationStart = System.currentTimeMillis();
+            OWLReasoner reasoner = getOWLReasoner(reasoningOntology);
+            getLogger().info("#### Monitoring " + getOntologyName() + ":Classification (" +
+                    getModuleExtractionType() + ")" + ":" + (System.currentTimeMillis() - classificationStart) +
+                    " ms.");
             ResourceUsage.logUsage(getLogger(), "#### Monitoring ", getOntologyName() +
                     ":After running reasoner:" + reasoner.getReasonerName(), ":");
 
@@ -432,8 +454,15 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
 
 
             Collection<OWLEntity> allEntities = new HashSet<>();
-            for (OWLOntology ontology1 : manager.getOntologies()) {
-                allEntities.addAll(ontology1.getSignature());
+            if (reasoningOntology != ontology) {
+                // only entities that were classified are indexed
+                allEntities.addAll(ontology.getSignature());
+                allEntities.addAll(reasoningOntology.getSignature());
+            }
+            else {
+                for (OWLOntology ontology1 : manager.getOntologies()) {
+                    allEntities.addAll(ontology1.getSignature());
+                }
             }
             ResourceUsage.logUsage(getLogger(), "#### Monitoring ", getOntologyName() +
                     ":After copying of entities", ":");
@@ -455,9 +484,37 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
         finally {
             setReady(true);
             discardReasoner(ontology);
+            GcUtils.logGcPause(getLogger(), "#### Monitoring ", getOntologyName() +
+                    ":After discarding reasoner", ":", gcTimeBefore, gcCountBefore);
         }
     }
 
+    /**
+     * Extracts a syntactic locality module of the imports closure around the signature of the loaded ontology, so
+     * that the reasoner only has to classify the imported axioms the ontology actually depends on. When no module
+     * extraction is configured the loaded ontology itself is returned.
+     */
+    protected OWLOntology extractReasoningModule(OWLOntology ontology) throws OWLOntologyCreationException {
+        if (getModuleExtractionType() == ModuleExtractionType.NONE) {
+            return ontology;
+        }
+
+        long start = System.currentTimeMillis();
+        ModuleType moduleType = getModuleExtractionType() == ModuleExtractionType.BOT ?
+                ModuleType.BOT : ModuleType.STAR;
+        SyntacticLocalityModuleExtractor extractor = new SyntacticLocalityModuleExtractor(
+                getManager(), ontology.axioms(Imports.INCLUDED), moduleType);
+        Set<OWLAxiom> moduleAxioms = extractor.extract(ontology.signature());
+
+        // the module lives in its own manager so it doesn't show up in the imports closure of the loaded ontology
+        OWLOntology module = OWLManager.createOWLOntologyManager().createOntology(moduleAxioms);
+
+        getLogger().info("#### Monitoring " + getOntologyName() + ":Module extraction (" + moduleType + ")" + ":" +
+                (System.currentTimeMillis() - start) + " ms, " + moduleAxioms.size() + " of " +
+                ontology.getAxiomCount(Imports.INCLUDED) + " axioms in the imports closure.");
+        return module;
+    }
+
     public static String parseOboVersion(IRI ontologyVersionIRI) {
         Pattern pattern = Pattern.compile(".*\\/(\\d{4}-\\d{2}-\\d{2})\\/.*");
         String DATE_FORMAT = "yyyy-MM-dd";
@@ -476,7 +533,7 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
         return null;
     }
 
-    private void indexOntologyAnnotations(Set<OWLAnnotation> owlAnnotations) {
+    protected void indexOntologyAnnotations(Set<OWLAnnotation> owlAnnotations) {
     	getLogger().debug("Calling indexOntologyAnnotations");
 
         Set<String> creators = new HashSet<>();
@@ -593,29 +650,8 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
             // get all the annotation properties
             evaluateAllAnnotationsValues(entity);
 
-            // add the class accession for this entity
-            Optional<String> shortForm = extractShortForm(entity.getIRI());
-            if (shortForm.isPresent()) {
-                addClassAccession(entity.getIRI(), shortForm.get());
-                // if no label, create one form shortform
-                if (ontologyLabels.get(entity.getIRI()) == null) {
-                    addClassLabel(entity.getIRI(), shortForm.get() );
-                }
-
-                Optional<String> oboForm = getOBOid(shortForm.get());
-
-                if (oboForm.isPresent()) {
-                    addOboId(entity.getIRI(), oboForm.get());
-                }
-
-            }
+            indexEntityIRI(entity.getIRI());
 
-            // find out if this term is local to the ontology based on the base URIs
-            for (String base : getBaseIRI()) {
-                if (entity.getIRI().toString().startsWith(base)) {
-                    addLocalTerms(entity.getIRI());
-                }
-            }
             // index the different types of entity
             entity.accept(new OWLEntityVisitor() {
                 @Override
@@ -678,6 +714,35 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
         }
     }
 
+    /**
+     * Adds the accession, OBO id and a fallback label for an entity and records whether it is local to the ontology
+     * based on the base URIs.
+     */
+    protected void indexEntityIRI(IRI entityIRI) {
+        IriForms forms = getIriForms(entityIRI);
+        // add the class accession for this entity
+        Optional<String> shortForm = forms.shortForm;
+        if (shortForm.isPresent()) {
+            addClassAccession(entityIRI, shortForm.get());
+            // if no label, create one form shortform
+            if (ontologyLabels.get(entityIRI) == null) {
+                addClassLabel(entityIRI, shortForm.get() );
+            }
+
+            Optional<String> oboForm = forms.oboId;
+
+            if (oboForm.isPresent()) {
+                addOboId(entityIRI, oboForm.get());
+            }
+
+        }
+
+        // find out if this term is local to the ontology based on the base URIs
+        if (forms.local) {
+            addLocalTerms(entityIRI);
+        }
+    }
+
     private void indexIndividualTypes(OWLNamedIndividual individual) throws OWLOntologyCreationException {
         Set<IRI> instanceTypes = new HashSet<IRI>();
         Map<IRI,Collection<IRI>> instanceClassRelations = new HashMap<IRI,Collection<IRI>>();
@@ -939,7 +1004,7 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
                             relatedTerms.get(propertyIRI).add(relatedTerm);
 
                             // check if hierarchical
-                            if (hierarchicalRels.contains(propertyIRI) || isPartOf(propertyIRI) ) {
+                            if (isHierarchicalRelation(propertyIRI)) {
                                 if (owlClass.getIRI().equals(relatedTerm)) {
                                     getLogger().warn("Ignoring Iri that is related to itself: " + owlClass.getIRI());
                                 } else  {
@@ -1023,7 +1088,14 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
         return stringWriter.toString();
     }
 
-    private void addRelatedChildTerm(IRI parent, IRI child) {
+    /**
+     * A property is hierarchical if it is configured as such or looks like a 'part of' predicate
+     */
+    protected boolean isHierarchicalRelation(IRI propertyIRI) {
+        return hierarchicalRels.contains(propertyIRI) || isPartOf(propertyIRI);
+    }
+
+    protected void addRelatedChildTerm(IRI parent, IRI child) {
         if (!relatedChildTerms.containsKey(parent)) {
             relatedChildTerms.put(parent, new HashSet<>());
         }
@@ -1125,6 +1197,18 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
      * @return
      */
     protected Optional<String> extractShortForm(IRI entityIRI) {
+        return getIriForms(entityIRI).shortForm;
+    }
+
+    private IriForms getIriForms(IRI entityIRI) {
+        return iriForms.computeIfAbsent(entityIRI, iri -> {
+            Optional<String> shortForm = computeShortForm(iri);
+            return new IriForms(shortForm, shortForm.isPresent() ? getOBOid(shortForm.get()) : Optional.empty(),
+                    baseIRITrie.matchesPrefixOf(iri.toString()));
+        });
+    }
+
+    private Optional<String> computeShortForm(IRI entityIRI) {
         getLogger().trace("Attempting to extract fragment name of IRI '" + entityIRI + "'");
 
         // special case for URN schemes: https://www.w3.org/Addressing/URL/URI_URN.html
@@ -1172,32 +1256,65 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
 
 
     private Optional<String> getOBOid(String fragment) {
-        Matcher matcher = oboIdFragmentPattern.matcher(fragment);
-        if (matcher.find()) {
-            String newId = matcher.group(2) + ":" + matcher.group(3);
-            return Optional.of(newId);
+        // equivalent to matching ^([A-Za-z0-9_]*)_([A-Za-z0-9]*)$, i.e. split on the last underscore
+        int lastUnderscore = -1;
+        boolean idCharsOnly = true;
+        for (int i = 0; i < fragment.length() && idCharsOnly; i++) {
+            char c = fragment.charAt(i);
+            if (c == '_') {
+                lastUnderscore = i;
+            }
+            else if (!isAsciiLetterOrDigit(c)) {
+                idCharsOnly = false;
+            }
+        }
+        if (idCharsOnly && lastUnderscore >= 0) {
+            return Optional.of(fragment.substring(0, lastUnderscore) + ":" + fragment.substring(lastUnderscore + 1));
         }
-        else if (fragment.split(":").length == 2 && fragment.split(":")[0].toLowerCase().equals(getOntologyName().toLowerCase())) {
+        else if (fragment.indexOf(':') >= 0) {
             // if the fragment already contains a :
-            return Optional.of(fragment);
+            String[] parts = fragment.split(":");
+            if (parts.length == 2 && parts[0].equalsIgnoreCase(getOntologyName())) {
+                return Optional.of(fragment);
+            }
         }
         return Optional.empty();
     }
 
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * The short form and OBO id of an IRI, and whether it is under one of the base URIs. The OBO id depends on the
+     * ontology name and the locality on the base URIs, so they are worked out again when either is set.
+     */
+    private static final class IriForms {
+        private final Optional<String> shortForm;
+        private final Optional<String> oboId;
+        private final boolean local;
 
-    protected Optional<String> evaluateLabelAnnotationValue(OWLEntity entity, OWLAnnotationValue value) {
+        private IriForms(Optional<String> shortForm, Optional<String> oboId, boolean local) {
+            this.shortForm = shortForm;
+            this.oboId = oboId;
+            this.local = local;
+        }
+    }
+
+
+    protected Optional<String> evaluateLabelAnnotationValue(IRI entityIRI, OWLAnnotationValue value) {
         // get label annotations
         Optional<String> label = getOWLAnnotationValueAsString(value);
         if (!label.isPresent()) {
             // try and get the ONTOLOGY_URI fragment and use that as label
-            Optional<String> fragment = extractShortForm(entity.getIRI());
+            Optional<String> fragment = extractShortForm(entityIRI);
             if (fragment.isPresent()) {
                 return Optional.of(fragment.get());
             }
             else {
-                getLogger().warn("OWLEntity " + entity + " contains no label. " +
+                getLogger().warn("OWLEntity " + entityIRI + " contains no label. " +
                         "No labels for this class will be loaded.");
-                return  Optional.of(entity.toStringID());
+                return  Optional.of(entityIRI.toString());
             }
         }
         return label;
@@ -1209,7 +1326,23 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
 
     protected void evaluateAllAnnotationsValues(OWLEntity owlEntity) {
 
-        IRI owlEntityIRI = owlEntity.getIRI();
+        // loop through other annotations in the imports closure, keeping the axiom annotations of each assertion
+        Collection<OWLAnnotation> annotations = new ArrayList<>();
+        for (OWLOntology anOntology : getManager().ontologies().collect(Collectors.toSet())){
+            EntitySearcher.getAnnotationAssertionAxioms(owlEntity, anOntology).forEach(annotationAssertionAxiom ->
+                    annotations.add(factory.getOWLAnnotation(annotationAssertionAxiom.getProperty(),
+                            annotationAssertionAxiom.getValue(), annotationAssertionAxiom.getAnnotations())));
+        }
+        evaluateAnnotationValues(owlEntity.getIRI(), annotations);
+    }
+
+    /**
+     * Indexes the labels, synonyms, definitions, subsets, OBO citations and other annotations of an entity
+     *
+     * @param annotations the annotations asserted on the entity, each carrying the annotations of its axiom
+     */
+    protected void evaluateAnnotationValues(IRI owlEntityIRI, Collection<OWLAnnotation> annotations) {
+
         Set<String> synonyms = new HashSet<>();
         Set<String> definitions = new HashSet<>();
         Set<String> slims = new HashSet<>();
@@ -1218,130 +1351,115 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
         Collection<OBOSynonym> oboSynonyms = new HashSet<>();
         Collection<OBOXref> oboEntityXrefs = new HashSet<>();
 
-        // loop through other annotations in the imports closure
-        for (OWLOntology anOntology : getManager().ontologies().collect(Collectors.toSet())){
-                EntitySearcher.getAnnotationAssertionAxioms(owlEntity, anOntology).forEach(annotationAssertionAxiom -> {
-                        OWLAnnotationProperty annotationProperty = annotationAssertionAxiom.getProperty();
-                        IRI annotationPropertyIRI = annotationProperty.getIRI();
-
-                        if (getLabelIRI().equals(annotationPropertyIRI)) {
-                            if (!ontologyLabels.containsKey(owlEntityIRI)) {
-                                addClassLabel(owlEntityIRI, evaluateLabelAnnotationValue(
-                                        owlEntity, annotationAssertionAxiom.getValue()).get());
-                            } else {
-                                getLogger().warn("Found multiple labels for class" + owlEntityIRI.toString());
-                                // if english, overide previous label
-                                if (isEnglishLabel(annotationAssertionAxiom.getValue())) {
-                                    addClassLabel(owlEntityIRI, evaluateLabelAnnotationValue(
-                                            owlEntity, annotationAssertionAxiom.getValue()).get());
-                                }
-                            }
-                        }
-                        else if (getSynonymIRIs().contains(annotationPropertyIRI)) {
-                            synonyms.add(getOWLAnnotationValueAsString(annotationAssertionAxiom.getValue()).get());
-                        }
-                        else if (getDefinitionIRIs().contains(annotationPropertyIRI)) {
-                            definitions.add(getOWLAnnotationValueAsString(annotationAssertionAxiom.getValue()).get());
-                        }
-                        else if (annotationPropertyIRI.equals(Namespaces.OBOINOWL.createIRI("inSubset")) && annotationAssertionAxiom.getValue() instanceof IRI) {
-                            if (extractShortForm( (IRI) annotationAssertionAxiom.getValue()).isPresent()) {
-                                slims.add(extractShortForm( (IRI) annotationAssertionAxiom.getValue()).get());
-                            }
-                        }
-                        else if (annotationPropertyIRI.equals(Namespaces.OWL.createIRI("deprecated"))) {
-                            addObsoleteTerms(owlEntityIRI);
-                        }
-                        else {
-                            if (getOWLAnnotationValueAsString(annotationAssertionAxiom.getValue()).isPresent()) {
-                                // initialise maps if first time
-                                if (!termAnnotations.containsKey(owlEntityIRI)) {
-                                    HashMap<IRI, Collection<String>> newMap = new HashMap<>();
-                                    newMap.put(annotationPropertyIRI, new HashSet<>());
-                                    termAnnotations.put(owlEntityIRI, newMap);
-                                }
+        for (OWLAnnotation annotation : annotations) {
+            OWLAnnotationProperty annotationProperty = annotation.getProperty();
+            IRI annotationPropertyIRI = annotationProperty.getIRI();
+
+            if (getLabelIRI().equals(annotationPropertyIRI)) {
+                if (!ontologyLabels.containsKey(owlEntityIRI)) {
+                    addClassLabel(owlEntityIRI, evaluateLabelAnnotationValue(
+                            owlEntityIRI, annotation.getValue()).get());
+                } else {
+                    getLogger().warn("Found multiple labels for class" + owlEntityIRI.toString());
+                    // if english, overide previous label
+                    if (isEnglishLabel(annotation.getValue())) {
+                        addClassLabel(owlEntityIRI, evaluateLabelAnnotationValue(
+                                owlEntityIRI, annotation.getValue()).get());
+                    }
+                }
+            }
+            else if (getSynonymIRIs().contains(annotationPropertyIRI)) {
+                synonyms.add(getOWLAnnotationValueAsString(annotation.getValue()).get());
+            }
+            else if (getDefinitionIRIs().contains(annotationPropertyIRI)) {
+                definitions.add(getOWLAnnotationValueAsString(annotation.getValue()).get());
+            }
+            else if (annotationPropertyIRI.equals(Namespaces.OBOINOWL.createIRI("inSubset")) && annotation.getValue() instanceof IRI) {
+                if (extractShortForm( (IRI) annotation.getValue()).isPresent()) {
+                    slims.add(extractShortForm( (IRI) annotation.getValue()).get());
+                }
+            }
+            else if (annotationPropertyIRI.equals(Namespaces.OWL.createIRI("deprecated"))) {
+                addObsoleteTerms(owlEntityIRI);
+            }
+            else {
+                if (getOWLAnnotationValueAsString(annotation.getValue()).isPresent()) {
+                    // initialise maps if first time
+                    if (!termAnnotations.containsKey(owlEntityIRI)) {
+                        HashMap<IRI, Collection<String>> newMap = new HashMap<>();
+                        newMap.put(annotationPropertyIRI, new HashSet<>());
+                        termAnnotations.put(owlEntityIRI, newMap);
+                    }
 
-                                if (!termAnnotations.get(owlEntityIRI).containsKey(annotationPropertyIRI)) {
-                                    termAnnotations.get(owlEntityIRI).put(annotationPropertyIRI, new HashSet<>());
-                                }
+                    if (!termAnnotations.get(owlEntityIRI).containsKey(annotationPropertyIRI)) {
+                        termAnnotations.get(owlEntityIRI).put(annotationPropertyIRI, new HashSet<>());
+                    }
 
-                                if (annotationAssertionAxiom.getValue() instanceof IRI) {
-                                    termAnnotations.get(owlEntityIRI).get(annotationPropertyIRI).add(annotationAssertionAxiom.getValue().toString());
-                                }
-                                else {
-                                    termAnnotations.get(owlEntityIRI).get(annotationPropertyIRI).add(getOWLAnnotationValueAsString(annotationAssertionAxiom.getValue()).get());
-                                }
-                            }
-                        }
+                    if (annotation.getValue() instanceof IRI) {
+                        termAnnotations.get(owlEntityIRI).get(annotationPropertyIRI).add(annotation.getValue().toString());
+                    }
+                    else {
+                        termAnnotations.get(owlEntityIRI).get(annotationPropertyIRI).add(getOWLAnnotationValueAsString(annotation.getValue()).get());
+                    }
+                }
+            }
 
-                        // pull out term replaced by
-                        if (annotationPropertyIRI.equals(Namespaces.OBO.createIRI("IAO_0100001"))) {
-                            addTermReplacedBy(owlEntityIRI, getOWLAnnotationValueAsString(annotationAssertionAxiom.getValue()).get());
-                        }
+            // pull out term replaced by
+            if (annotationPropertyIRI.equals(Namespaces.OBO.createIRI("IAO_0100001"))) {
+                addTermReplacedBy(owlEntityIRI, getOWLAnnotationValueAsString(annotation.getValue()).get());
+            }
 
-                        // collect any obo definition xrefs
-                        if (annotationAssertionAxiom.getProperty().getIRI().toString().equals(OboDefaults.DEFINITION)) {
-                            if (!annotationAssertionAxiom.getAnnotations().isEmpty()) {
+            // collect any obo definition xrefs
+            if (annotation.getProperty().getIRI().toString().equals(OboDefaults.DEFINITION)) {
+                if (!annotation.getAnnotations().isEmpty()) {
 
-                                OBODefinitionCitation definitionCitation = new OBODefinitionCitation();
-                                Collection<OBOXref> oboXrefs = new HashSet<>();
-                                for (OWLAnnotation defAnnotation : annotationAssertionAxiom.getAnnotations()) {
-                                    oboXrefs.add(extractOBOXrefs(defAnnotation));
-                                }
-                                definitionCitation.setDefinition(getOWLAnnotationValueAsString(annotationAssertionAxiom.getValue()).get());
-                                definitionCitation.setOboXrefs(oboXrefs);
-                                definitionCitations.add(definitionCitation);
-                            }
-                        }
+                    OBODefinitionCitation definitionCitation = new OBODefinitionCitation();
+                    Collection<OBOXref> oboXrefs = new HashSet<>();
+                    for (OWLAnnotation defAnnotation : annotation.getAnnotations()) {
+                        oboXrefs.add(extractOBOXrefs(defAnnotation));
+                    }
+                    definitionCitation.setDefinition(getOWLAnnotationValueAsString(annotation.getValue()).get());
+                    definitionCitation.setOboXrefs(oboXrefs);
+                    definitionCitations.add(definitionCitation);
+                }
+            }
 
-                        // collect any obo synonym xrefs
-                        if (
-                                annotationAssertionAxiom.getProperty().getIRI().toString().equals(OboDefaults.EXACT_SYNONYM)
-                                        || annotationAssertionAxiom.getProperty().getIRI().toString().equals(OboDefaults.RELATED_SYNONYM)
-                                        || annotationAssertionAxiom.getProperty().getIRI().toString().equals(OboDefaults.NARROW_SYNONYM)
-                                        || annotationAssertionAxiom.getProperty().getIRI().toString().equals(OboDefaults.BROAD_SYNONYM)
-
-                        ) {
-                            if (!annotationAssertionAxiom.getAnnotations().isEmpty()) {
-
-                                OBOSynonym synonymCitation = new OBOSynonym();
-
-                                synonymCitation.setName(getOWLAnnotationValueAsString(annotationAssertionAxiom.getValue()).get());
-                                synonymCitation.setScope(annotationAssertionAxiom.getProperty().getIRI().getShortForm());
-                                Collection<OBOXref> oboXrefs = new HashSet<>();
-                                for (OWLAnnotation annotationAxiomAnnotation : annotationAssertionAxiom.getAnnotations()) {
-                                    if (annotationAxiomAnnotation.getProperty().getIRI().toString().equals(OboDefaults.SYNONYM_TYPE)) {
-                                        OWLAnnotationValue value = annotationAxiomAnnotation.getValue();
-                                        if (value instanceof IRI) {
-                                            OWLAnnotationProperty owlAnnotationProperty = factory.getOWLAnnotationProperty((IRI) value);
-                                            EntitySearcher.getAnnotations(owlAnnotationProperty, ontology).forEach(valueAnnotation -> {
-                                                if (valueAnnotation.getProperty().getIRI().equals(OWLRDFVocabulary.RDFS_LABEL.getIRI())) {
-                                                    String type = getOWLAnnotationValueAsString(valueAnnotation.getValue()).get();
-                                                    synonymCitation.setType(type);
-                                                }
-                                            });
-                                        }
-                                    }
-                                    if (annotationAxiomAnnotation.getProperty().getIRI().toString().equals(OboDefaults.DBXREF)) {
-                                        oboXrefs.add(extractOBOXrefs(annotationAxiomAnnotation));
-                                    }
-                                }
-                                synonymCitation.setXrefs(oboXrefs);
-                                oboSynonyms.add(synonymCitation);
+            // collect any obo synonym xrefs
+            if (
+                    annotation.getProperty().getIRI().toString().equals(OboDefaults.EXACT_SYNONYM)
+                            || annotation.getProperty().getIRI().toString().equals(OboDefaults.RELATED_SYNONYM)
+                            || annotation.getProperty().getIRI().toString().equals(OboDefaults.NARROW_SYNONYM)
+                            || annotation.getProperty().getIRI().toString().equals(OboDefaults.BROAD_SYNONYM)
+
+            ) {
+                if (!annotation.getAnnotations().isEmpty()) {
+
+                    OBOSynonym synonymCitation = new OBOSynonym();
+
+                    synonymCitation.setName(getOWLAnnotationValueAsString(annotation.getValue()).get());
+                    synonymCitation.setScope(annotation.getProperty().getIRI().getShortForm());
+                    Collection<OBOXref> oboXrefs = new HashSet<>();
+                    for (OWLAnnotation annotationAxiomAnnotation : annotation.getAnnotations()) {
+                        if (annotationAxiomAnnotation.getProperty().getIRI().toString().equals(OboDefaults.SYNONYM_TYPE)) {
+                            OWLAnnotationValue value = annotationAxiomAnnotation.getValue();
+                            if (value instanceof IRI) {
+                                getSynonymType((IRI) value).ifPresent(synonymCitation::setType);
                             }
                         }
-
-                        // collect any obo  xrefs
-                        if (annotationAssertionAxiom.getProperty().getIRI().toString().equals(OboDefaults.DBXREF)) {
-                            OBOXref oboXrefs = extractOBOXrefs(annotationAssertionAxiom.getAnnotation());
-                            if (!annotationAssertionAxiom.getAnnotations().isEmpty()) {
-                                for (OWLAnnotation axiomAnnotation : annotationAssertionAxiom.getAnnotations()) {
-                                    String description = getOWLAnnotationValueAsString(axiomAnnotation.getValue()).get();
-                                    oboXrefs.setDescription(description);
-                                }
-                            }
-                            oboEntityXrefs.add(oboXrefs);
+                        if (annotationAxiomAnnotation.getProperty().getIRI().toString().equals(OboDefaults.DBXREF)) {
+                            oboXrefs.add(extractOBOXrefs(annotationAxiomAnnotation));
                         }
-                });
+                    }
+                    synonymCitation.setXrefs(oboXrefs);
+                    oboSynonyms.add(synonymCitation);
+                }
+            }
+
+            // collect any obo  xrefs
+            if (annotation.getProperty().getIRI().toString().equals(OboDefaults.DBXREF)) {
+                // the description of the xref is the value of its axiom annotations
+                oboEntityXrefs.add(extractOBOXrefs(annotation));
+            }
         }
 
         if (definitionCitations.size() > 0) {
@@ -1367,6 +1485,16 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
         }
     }
 
+    /**
+     * @return the rdfs:label of an OBO synonym type, such as the label of a synonymtypedef
+     */
+    protected Optional<String> getSynonymType(IRI synonymTypeIRI) {
+        return EntitySearcher.getAnnotations(factory.getOWLAnnotationProperty(synonymTypeIRI), ontology)
+                .filter(valueAnnotation -> valueAnnotation.getProperty().getIRI().equals(OWLRDFVocabulary.RDFS_LABEL.getIRI()))
+                .map(valueAnnotation -> getOWLAnnotationValueAsString(valueAnnotation.getValue()).get())
+                .reduce((first, last) -> last);
+    }
+
     private OBOXref extractOBOXrefs (OWLAnnotation annotation) {
 
         OBOXref xref = new OBOXref();
@@ -1460,6 +1588,27 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
     protected void addEquivalentTerms(IRI termIRI, Set<IRI> equivalent) {
         this.equivalentTerms.put(termIRI, equivalent);
     }
+    protected void addClass(IRI classIRI) {
+        this.classes.add(classIRI);
+    }
+    protected void addObjectProperty(IRI propertyIRI) {
+        this.objectProperties.add(propertyIRI);
+    }
+    protected void addDataProperty(IRI propertyIRI) {
+        this.dataProperties.add(propertyIRI);
+    }
+    protected void addAnnotationProperty(IRI propertyIRI) {
+        this.annotationProperties.add(propertyIRI);
+    }
+    protected void addTermAnnotation(IRI termIRI, IRI annotationPropertyIRI, String value) {
+        if (!termAnnotations.containsKey(termIRI)) {
+            termAnnotations.put(termIRI, new HashMap<>());
+        }
+        if (!termAnnotations.get(termIRI).containsKey(annotationPropertyIRI)) {
+            termAnnotations.get(termIRI).put(annotationPropertyIRI, new HashSet<>());
+        }
+        termAnnotations.get(termIRI).get(annotationPropertyIRI).add(value);
+    }
     protected void addLocalTerms(IRI termIRI) {
         this.localTerms.add(termIRI);
     }
@@ -1700,6 +1849,8 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
     }
     public void setBaseIRI(Collection<String> baseIRIs) {
         this.baseIRIs = baseIRIs;
+        this.baseIRITrie = new PrefixTrie(baseIRIs);
+        this.iriForms.clear();
     }
 
     @Override
@@ -1761,6 +1912,7 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
 
     public void setOntologyName(String ontologyName) {
         this.ontologyName = ontologyName;
+        this.iriForms.clear();
     }
 
 
@@ -1837,6 +1989,14 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
         this.hierarchicalRels = hierarchicalIRIs;
     }
 
+    public ModuleExtractionType getModuleExtractionType() {
+        return moduleExtractionType;
+    }
+
+    public void setModuleExtractionType(ModuleExtractionType moduleExtractionType) {
+        this.moduleExtractionType = moduleExtractionType;
+    }
+
     /**
      * Gets the IRI used to denote a class which represents the superclass of all classes to exclude in this ontology.
      * When this ontology is loaded, all subclasses of the class with this IRI will be excluded.  This is to support the
@@ -1875,6 +2035,14 @@ AbstractOWLOntologyLoader extends Initializable implements OntologyLoader {
         return ontologyVersionIRI;
     }
 
+    protected void setOntologyVersionIRI(IRI ontologyVersionIRI) {
+        this.ontologyVersionIRI = ontologyVersionIRI;
+    }
+
+    protected boolean hasClassLabel(IRI clsIri) {
+        return this.ontologyLabels.containsKey(clsIri);
+    }
+
     public OWLOntology getOntology() {
         return lazyGet(() -> ontology);
     }
@@ -0,0 +1,303 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import org.semanticweb.owlapi.model.IRI;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A memory efficient hierarchy for very large vocabularies. Every term is given an int id, edges are packed into a
+ * single long array while loading and then compacted into sorted adjacency arrays. Ancestors and descendants are not
+ * materialised, they are walked on request, so the memory used grows with the number of edges rather than with the
+ * size of the transitive closure.
+ *
+ * Terms and edges must all be added before {@link #freeze()} is called, the hierarchy is read only afterwards.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class CompactHierarchy {
+
+    private final Map<IRI, Integer> ids = new HashMap<>();
+    private final List<IRI> iris = new ArrayList<>();
+
+    // child id in the high word, parent id in the low word
+    private long[] edges = new long[1024];
+    private int edgeCount = 0;
+
+    private int[] parentOffsets;
+    private int[] parentIds;
+    private int[] childOffsets;
+    private int[] childIds;
+
+    /**
+     * @return the id of the term, adding it to the hierarchy if it hasn't been seen before
+     */
+    public int add(IRI iri) {
+        Integer id = ids.get(iri);
+        if (id == null) {
+            checkNotFrozen();
+            id = iris.size();
+            ids.put(iri, id);
+            iris.add(iri);
+        }
+        return id;
+    }
+
+    public void addEdge(IRI child, IRI parent) {
+        checkNotFrozen();
+        int childId = add(child);
+        int parentId = add(parent);
+        if (childId == parentId) {
+            return;
+        }
+        if (edgeCount == edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[edgeCount++] = pack(childId, parentId);
+    }
+
+    /**
+     * Builds the adjacency arrays. Duplicate edges, for example when both skos:broader and skos:narrower are
+     * asserted, are removed.
+     */
+    public void freeze() {
+        checkNotFrozen();
+        long[] byChild = Arrays.copyOf(edges, edgeCount);
+        edges = null;
+
+        Arrays.sort(byChild);
+        int unique = 0;
+        for (int i = 0; i < byChild.length; i++) {
+            if (i == 0 || byChild[i] != byChild[i - 1]) {
+                byChild[unique++] = byChild[i];
+            }
+        }
+        byChild = Arrays.copyOf(byChild, unique);
+
+        long[] byParent = new long[unique];
+        for (int i = 0; i < unique; i++) {
+            byParent[i] = pack(low(byChild[i]), high(byChild[i]));
+        }
+        Arrays.sort(byParent);
+
+        parentOffsets = new int[iris.size() + 1];
+        parentIds = new int[unique];
+        fillAdjacency(byChild, parentOffsets, parentIds);
+
+        childOffsets = new int[iris.size() + 1];
+        childIds = new int[unique];
+        fillAdjacency(byParent, childOffsets, childIds);
+    }
+
+    private static void fillAdjacency(long[] sortedEdges, int[] offsets, int[] targets) {
+        for (int i = 0; i < sortedEdges.length; i++) {
+            offsets[high(sortedEdges[i]) + 1]++;
+            targets[i] = low(sortedEdges[i]);
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+    }
+
+    public boolean contains(IRI iri) {
+        return ids.containsKey(iri);
+    }
+
+    public Collection<IRI> getTerms() {
+        return Collections.unmodifiableList(iris);
+    }
+
+    public int getEdgeCount() {
+        return parentIds == null ? edgeCount : parentIds.length;
+    }
+
+    public boolean hasParents(IRI iri) {
+        checkFrozen();
+        Integer id = ids.get(iri);
+        return id != null && parentOffsets[id + 1] > parentOffsets[id];
+    }
+
+    public boolean hasChildren(IRI iri) {
+        checkFrozen();
+        Integer id = ids.get(iri);
+        return id != null && childOffsets[id + 1] > childOffsets[id];
+    }
+
+    public Collection<IRI> getParents(IRI iri) {
+        return neighbours(iri, parentOffsets, parentIds);
+    }
+
+    public Collection<IRI> getChildren(IRI iri) {
+        return neighbours(iri, childOffsets, childIds);
+    }
+
+    public Collection<IRI> getAncestors(IRI iri) {
+        return walk(iri, parentOffsets, parentIds);
+    }
+
+    public Collection<IRI> getDescendants(IRI iri) {
+        return walk(iri, childOffsets, childIds);
+    }
+
+    /**
+     * Read only views that can stand in for the hierarchy maps of {@link OntologyLoader}. A term is only a key of
+     * a view if it has at least one parent (or child), the same as in the maps built by the OWL API loaders.
+     */
+    public Map<IRI, Collection<IRI>> getParentsView() {
+        return new HierarchyView(parentOffsets, this::getParents);
+    }
+
+    public Map<IRI, Collection<IRI>> getAncestorsView() {
+        return new HierarchyView(parentOffsets, this::getAncestors);
+    }
+
+    public Map<IRI, Collection<IRI>> getChildrenView() {
+        return new HierarchyView(childOffsets, this::getChildren);
+    }
+
+    public Map<IRI, Collection<IRI>> getDescendantsView() {
+        return new HierarchyView(childOffsets, this::getDescendants);
+    }
+
+    private Collection<IRI> neighbours(IRI iri, int[] offsets, int[] targets) {
+        checkFrozen();
+        Integer id = ids.get(iri);
+        if (id == null || offsets[id + 1] == offsets[id]) {
+            return Collections.emptySet();
+        }
+        Set<IRI> result = new HashSet<>();
+        for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+            result.add(iris.get(targets[i]));
+        }
+        return result;
+    }
+
+    private Collection<IRI> walk(IRI iri, int[] offsets, int[] targets) {
+        checkFrozen();
+        Integer start = ids.get(iri);
+        if (start == null || offsets[start + 1] == offsets[start]) {
+            return Collections.emptySet();
+        }
+        Set<Integer> visited = new HashSet<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        visited.add(start);
+        stack.push(start);
+        Set<IRI> result = new HashSet<>();
+        while (!stack.isEmpty()) {
+            int id = stack.pop();
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                int next = targets[i];
+                if (visited.add(next)) {
+                    result.add(iris.get(next));
+                    stack.push(next);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void checkNotFrozen() {
+        if (parentOffsets != null) {
+            throw new IllegalStateException("Can't add to a hierarchy that has been frozen");
+        }
+    }
+
+    private void checkFrozen() {
+        if (parentOffsets == null) {
+            throw new IllegalStateException("Hierarchy must be frozen before it can be queried");
+        }
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+
+    private static int high(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    private static int low(long edge) {
+        return (int) edge;
+    }
+
+    private class HierarchyView extends AbstractMap<IRI, Collection<IRI>> {
+
+        private final int[] offsets;
+        private final Function<IRI, Collection<IRI>> lookup;
+        private int size = -1;
+
+        HierarchyView(int[] offsets, Function<IRI, Collection<IRI>> lookup) {
+            checkFrozen();
+            this.offsets = offsets;
+            this.lookup = lookup;
+        }
+
+        private boolean hasEdges(int id) {
+            return offsets[id + 1] > offsets[id];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Integer id = ids.get(key);
+            return id != null && hasEdges(id);
+        }
+
+        @Override
+        public Collection<IRI> get(Object key) {
+            return containsKey(key) ? lookup.apply((IRI) key) : null;
+        }
+
+        @Override
+        public int size() {
+            if (size < 0) {
+                int count = 0;
+                for (int id = 0; id < iris.size(); id++) {
+                    if (hasEdges(id)) {
+                        count++;
+                    }
+                }
+                size = count;
+            }
+            return size;
+        }
+
+        @Override
+        public Set<Entry<IRI, Collection<IRI>>> entrySet() {
+            return new AbstractSet<Entry<IRI, Collection<IRI>>>() {
+                @Override
+                public Iterator<Entry<IRI, Collection<IRI>>> iterator() {
+                    return new Iterator<Entry<IRI, Collection<IRI>>>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < iris.size() && !hasEdges(from)) {
+                                from++;
+                            }
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < iris.size();
+                        }
+
+                        @Override
+                        public Entry<IRI, Collection<IRI>> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            IRI iri = iris.get(next);
+                            next = advance(next + 1);
+                            return new SimpleImmutableEntry<>(iri, lookup.apply(iri));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return HierarchyView.this.size();
+                }
+            };
+        }
+    }
+}
@@ -80,8 +80,10 @@ public class ELKOWLOntologyLoader extends AbstractOWLOntologyLoader {
 
     @Override
     protected void discardReasoner(OWLOntology ontology) throws OWLOntologyCreationException {
-        reasoner = null;
-        System.gc();
+        if (reasoner != null) {
+            reasoner.dispose();
+            reasoner = null;
+        }
     }
 
      protected class LoggingReasonerProgressMonitor implements ReasonerProgressMonitor {
@@ -68,8 +68,10 @@ public class HermitOWLOntologyLoader extends AbstractOWLOntologyLoader {
     }
     @Override
     protected void discardReasoner(OWLOntology ontology) throws OWLOntologyCreationException {
-        reasoner = null;
-        System.gc();
+        if (reasoner != null) {
+            reasoner.dispose();
+            reasoner = null;
+        }
     }
     protected class LoggingReasonerProgressMonitor implements ReasonerProgressMonitor {
         private final Logger log;
@@ -23,11 +23,17 @@ public class NoReasonerOWLOntologyLoader extends AbstractOWLOntologyLoader {
 
     @Override
     protected OWLReasoner getOWLReasoner(OWLOntology ontology) throws OWLOntologyCreationException {
-        return new PseudoReasoner(ontology);
+        if (reasoner == null) {
+            reasoner = new PseudoReasoner(ontology);
+        }
+        return reasoner;
     }
 
     @Override
     protected void discardReasoner(OWLOntology ontology) throws OWLOntologyCreationException {
-        reasoner = null;
+        if (reasoner != null) {
+            reasoner.dispose();
+            reasoner = null;
+        }
     }
 }
@@ -26,6 +26,9 @@ public class OntologyLoaderFactory {
         else if (config.isSkos()) {
             return new SKOSLoader(config);
         }
+        else if (config.isStreaming()) {
+            return new StreamingOntologyLoader(config);
+        }
         else {
             return new StructuralOWLOntologyLoader(config);
         }
@@ -43,6 +46,9 @@ public class OntologyLoaderFactory {
         else if (config.isSkos()) {
             return new SKOSLoader(config, databaseService, ontologyLoadingConfiguration);
         }
+        else if (config.isStreaming()) {
+            return new StreamingOntologyLoader(config, databaseService, ontologyLoadingConfiguration);
+        }
         else {
             return new StructuralOWLOntologyLoader(config, databaseService, ontologyLoadingConfiguration);
         }
@@ -1,20 +1,45 @@
 package uk.ac.ebi.spot.ols.loader;
 
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
-import org.semanticweb.owlapi.reasoner.OWLReasoner;
 
 import uk.ac.ebi.spot.ols.config.OntologyLoadingConfiguration;
 import uk.ac.ebi.spot.ols.config.OntologyResourceConfig;
 import uk.ac.ebi.spot.ols.exception.OntologyLoadingException;
+import uk.ac.ebi.spot.ols.parser.OntologyTermHandler;
+import uk.ac.ebi.spot.ols.parser.OntologyTermParser;
+import uk.ac.ebi.spot.ols.parser.OntologyTermParsers;
+import uk.ac.ebi.spot.ols.util.Namespaces;
 import uk.ac.ebi.spot.ols.xrefs.DatabaseService;
+import uk.ac.ebi.spot.usage.ResourceUsage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
 
 /**
+ * Loader for SKOS vocabularies. When the document can be streamed (see {@link OntologyTermParsers}) skos:Concepts are
+ * indexed as terms, with skos:broader and skos:narrower as their hierarchy, skos:prefLabel as the label and
+ * skos:altLabel as synonyms. The hierarchy is held in a {@link CompactHierarchy} and ancestors and descendants are
+ * only computed when an indexer asks for them, so large thesauri can be loaded without building the OWL API model or
+ * the transitive closure. Other formats are loaded with the OWL API.
+ *
  * @author Simon Jupp
  * @date 03/02/2015
  * Samples, Phenotypes and Ontologies Team, EMBL-EBI
  */
-public class SKOSLoader extends AbstractOWLOntologyLoader {
+public class SKOSLoader extends StructuralOWLOntologyLoader {
+
+    private static final IRI CONCEPT = Namespaces.SKOS.createIRI("Concept");
+    private static final IRI BROADER = Namespaces.SKOS.createIRI("broader");
+    private static final IRI NARROWER = Namespaces.SKOS.createIRI("narrower");
+    private static final IRI PREF_LABEL = Namespaces.SKOS.createIRI("prefLabel");
+    private static final IRI ALT_LABEL = Namespaces.SKOS.createIRI("altLabel");
+    private static final IRI DEFINITION = Namespaces.SKOS.createIRI("definition");
+
+    private volatile CompactHierarchy hierarchy;
+
     public SKOSLoader(OntologyResourceConfig config, DatabaseService databaseService,
     		OntologyLoadingConfiguration ontologyLoadingConfiguration) throws OntologyLoadingException {
         super(config, databaseService, ontologyLoadingConfiguration);
@@ -22,12 +47,183 @@ public class SKOSLoader extends AbstractOWLOntologyLoader {
     public SKOSLoader(OntologyResourceConfig config) throws OntologyLoadingException {
         super(config);
     }
+
+    @Override
+    protected OWLOntology loadOntology() throws OWLOntologyCreationException {
+        Optional<OntologyTermParser> parser = OntologyTermParsers.getParser(getOntologyResource());
+        if (!parser.isPresent()) {
+            getLogger().info("No streaming parser for " + getOntologyResource() +
+                    ", loading SKOS vocabulary with the OWL API");
+            return super.loadOntology();
+        }
+
+        try {
+            getLogger().debug("Streaming SKOS vocabulary with " + parser.get().getClass().getSimpleName() + "...");
+            ResourceUsage.logUsage(getLogger(), "#### Monitoring ",
+                    getOntologyIRI().getShortForm() + ":Before streaming SKOS", ":");
+
+            ConceptCollector collector = new ConceptCollector();
+            try (InputStream inputStream = getOntologyResource().getInputStream()) {
+                parser.get().parse(inputStream, collector);
+            }
+            if (getOntologyName() == null) {
+                setOntologyName(extractShortForm(getOntologyIRI()).orElse(getOntologyIRI().toString()));
+            }
+            ResourceUsage.logUsage(getLogger(), "#### Monitoring ", getOntologyName() +
+                    ":After streaming SKOS", ":");
+
+            collector.index();
+            indexOntologyAnnotations(Collections.emptySet());
+            getLogger().info("#### Monitoring " + getOntologyName() + ":SKOS hierarchy:" +
+                    hierarchy.getTerms().size() + " concepts, " + hierarchy.getEdgeCount() + " edges");
+            ResourceUsage.logUsage(getLogger(), "#### Monitoring ", getOntologyName() +
+                    ":After index terms", ":");
+
+            return getManager().createOntology(getOntologyIRI());
+        }
+        catch (IOException e) {
+            OWLOntologyCreationException exception =
+                    new OWLOntologyCreationException("Failed to stream " + getOntologyResource(), e);
+            setInitializationException(exception);
+            getLogger().error("Failed to parse " + getOntologyName() + " : " + e.getMessage(), e);
+            throw exception;
+        }
+        catch (OWLOntologyCreationException | RuntimeException e) {
+            setInitializationException(e);
+            getLogger().error("Failed to parse " + getOntologyName() + " : " + e.getMessage(), e);
+            throw e;
+        }
+        finally {
+            setReady(true);
+        }
+    }
+
+    @Override
+    public Map<IRI, Collection<IRI>> getDirectParentTerms() {
+        return hierarchy == null ? super.getDirectParentTerms() : hierarchy.getParentsView();
+    }
+
+    @Override
+    public Collection<IRI> getDirectParentTerms(IRI iri) {
+        return hierarchy == null ? super.getDirectParentTerms(iri) : hierarchy.getParents(iri);
+    }
+
+    @Override
+    public Map<IRI, Collection<IRI>> getAllParentTerms() {
+        return hierarchy == null ? super.getAllParentTerms() : hierarchy.getAncestorsView();
+    }
+
+    @Override
+    public Map<IRI, Collection<IRI>> getDirectChildTerms() {
+        return hierarchy == null ? super.getDirectChildTerms() : hierarchy.getChildrenView();
+    }
+
     @Override
-    protected void discardReasoner(OWLOntology ontology) throws OWLOntologyCreationException {
-        System.gc();
+    public Collection<IRI> getDirectChildTerms(IRI iri) {
+        return hierarchy == null ? super.getDirectChildTerms(iri) : hierarchy.getChildren(iri);
     }
+
     @Override
-    protected OWLReasoner getOWLReasoner(OWLOntology owlOntology) {
-        return null;
+    public Map<IRI, Collection<IRI>> getAllChildTerms() {
+        return hierarchy == null ? super.getAllChildTerms() : hierarchy.getDescendantsView();
+    }
+
+    /**
+     * Concepts have no related parents, so these are the broader concepts and their ancestors
+     */
+    @Override
+    public Collection<IRI> getAllRelatedParentTerms(IRI entityIRI) {
+        return hierarchy == null ? super.getAllRelatedParentTerms(entityIRI) : hierarchy.getAncestors(entityIRI);
+    }
+
+    /**
+     * Collects concepts, their labels and their broader/narrower links while the vocabulary is streamed. Only the
+     * per-concept label, synonym and definition caches and the compact hierarchy are kept in memory.
+     */
+    private class ConceptCollector implements OntologyTermHandler {
+
+        private final CompactHierarchy concepts = new CompactHierarchy();
+        private final Map<IRI, Set<String>> synonyms = new HashMap<>();
+        private final Map<IRI, Set<String>> definitions = new HashMap<>();
+
+        @Override
+        public void handleOntologyIRI(IRI ontologyIRI) {
+            setOntologyIRI(ontologyIRI);
+        }
+
+        @Override
+        public void handleVersionIRI(IRI versionIRI) {
+            setOntologyVersionIRI(versionIRI);
+        }
+
+        @Override
+        public void handleClass(IRI classIRI) {
+            // SKOS vocabularies are made of concepts, OWL classes in the document aren't indexed
+        }
+
+        @Override
+        public void handleObjectProperty(IRI propertyIRI) {
+        }
+
+        @Override
+        public void handleType(IRI subject, IRI type) {
+            if (CONCEPT.equals(type)) {
+                concepts.add(subject);
+            }
+        }
+
+        @Override
+        public void handleAnnotation(IRI subject, IRI annotationProperty, String value, String language) {
+            if (PREF_LABEL.equals(annotationProperty) || getLabelIRI().equals(annotationProperty)) {
+                if (!hasClassLabel(subject) || "en".equalsIgnoreCase(language)) {
+                    addClassLabel(subject, value);
+                }
+            }
+            else if (ALT_LABEL.equals(annotationProperty) || getSynonymIRIs().contains(annotationProperty)) {
+                synonyms.computeIfAbsent(subject, k -> new HashSet<>()).add(value);
+            }
+            else if (DEFINITION.equals(annotationProperty) || getDefinitionIRIs().contains(annotationProperty)) {
+                definitions.computeIfAbsent(subject, k -> new HashSet<>()).add(value);
+            }
+            else {
+                addTermAnnotation(subject, annotationProperty, value);
+            }
+        }
+
+        @Override
+        public void handleAnnotation(IRI subject, IRI annotationProperty, IRI value) {
+            if (BROADER.equals(annotationProperty)) {
+                concepts.addEdge(subject, value);
+            }
+            else if (NARROWER.equals(annotationProperty)) {
+                concepts.addEdge(value, subject);
+            }
+            else {
+                addTermAnnotation(subject, annotationProperty, value.toString());
+            }
+        }
+
+        @Override
+        public void handleSubClassOf(IRI child, IRI parent) {
+        }
+
+        @Override
+        public void handleRelationship(IRI subject, IRI property, IRI filler) {
+        }
+
+        void index() {
+            concepts.freeze();
+            synonyms.forEach(SKOSLoader.this::addSynonyms);
+            definitions.forEach(SKOSLoader.this::addDefinitions);
+
+            for (IRI concept : concepts.getTerms()) {
+                addClass(concept);
+                indexEntityIRI(concept);
+                if (!concepts.hasParents(concept)) {
+                    addRootsTerms(concept);
+                }
+            }
+            hierarchy = concepts;
+        }
     }
 }
@@ -0,0 +1,418 @@
+package uk.ac.ebi.spot.ols.loader;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAnnotation;
+import org.semanticweb.owlapi.model.OWLAnnotationValue;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+import uk.ac.ebi.spot.ols.config.OntologyLoadingConfiguration;
+import uk.ac.ebi.spot.ols.config.OntologyResourceConfig;
+import uk.ac.ebi.spot.ols.exception.OntologyLoadingException;
+import uk.ac.ebi.spot.ols.parser.OntologyTermHandler;
+import uk.ac.ebi.spot.ols.parser.OntologyTermParser;
+import uk.ac.ebi.spot.ols.parser.OntologyTermParsers;
+import uk.ac.ebi.spot.ols.util.Namespaces;
+import uk.ac.ebi.spot.ols.xrefs.DatabaseService;
+import uk.ac.ebi.spot.usage.ResourceUsage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Loader for ontologies that opt in to streaming and don't need a reasoner. If a streaming {@link OntologyTermParser}
+ * is registered for the format of the ontology document the term records are read straight into the loader caches,
+ * without building the OWL API object model. Any other format, and any document that uses a construct the parser
+ * can't translate into the same records as the OWL API (imports, individuals, logical definitions, ...), is loaded
+ * through the OWL API with the structural reasoner.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class StreamingOntologyLoader extends StructuralOWLOntologyLoader {
+
+    private static final IRI TEMP_ONTOLOGY_IRI = IRI.create("http://purl.obolibrary.org/obo/TEMP");
+
+    // the annotations of the document being streamed, null when the OWL API model is used
+    private Map<IRI, List<OWLAnnotation>> streamedAnnotations;
+
+    public StreamingOntologyLoader(OntologyResourceConfig config) throws OntologyLoadingException {
+        super(config);
+    }
+
+    public StreamingOntologyLoader(OntologyResourceConfig config, DatabaseService databaseService,
+                                   OntologyLoadingConfiguration ontologyLoadingConfiguration)
+            throws OntologyLoadingException {
+        super(config, databaseService, ontologyLoadingConfiguration);
+    }
+
+    @Override
+    protected OWLOntology loadOntology() throws OWLOntologyCreationException {
+        Optional<OntologyTermParser> parser = OntologyTermParsers.getParser(getOntologyResource());
+        if (!parser.isPresent()) {
+            return super.loadOntology();
+        }
+
+        try {
+            getLogger().debug("Streaming ontology with " + parser.get().getClass().getSimpleName() + "...");
+            ResourceUsage.logUsage(getLogger(), "#### Monitoring ",
+                    getOntologyIRI().getShortForm() + ":Before streaming ontology", ":");
+
+            // nothing is written to the loader until the whole document has been read, so a fallback to the OWL API
+            // starts from a clean loader
+            TermCollector collector = new TermCollector();
+            try (InputStream inputStream = getOntologyResource().getInputStream()) {
+                parser.get().parse(inputStream, collector);
+            }
+            collector.indexOntology();
+            if (getOntologyName() == null) {
+                setOntologyName(extractShortForm(getOntologyIRI()).orElse(getOntologyIRI().toString()));
+            }
+            ResourceUsage.logUsage(getLogger(), "#### Monitoring ", getOntologyName() +
+                    ":After streaming ontology", ":");
+
+            collector.index();
+            ResourceUsage.logUsage(getLogger(), "#### Monitoring ", getOntologyName() +
+                    ":After index terms", ":");
+
+            // an empty ontology stands in for the OWL API model that was never built
+            return getManager().createOntology(getOntologyIRI());
+        }
+        catch (UnsupportedConstructException e) {
+            getLogger().info("Can't stream " + getOntologyIRI() + " as it contains " + e.getMessage() +
+                    ", loading it with the OWL API instead");
+            return super.loadOntology();
+        }
+        catch (IOException e) {
+            OWLOntologyCreationException exception =
+                    new OWLOntologyCreationException("Failed to stream " + getOntologyResource(), e);
+            setInitializationException(exception);
+            getLogger().error("Failed to parse " + getOntologyName() + " : " + e.getMessage(), e);
+            throw exception;
+        }
+        catch (OWLOntologyCreationException | RuntimeException e) {
+            setInitializationException(e);
+            getLogger().error("Failed to parse " + getOntologyName() + " : " + e.getMessage(), e);
+            throw e;
+        }
+        finally {
+            streamedAnnotations = null;
+            setReady(true);
+        }
+    }
+
+    /**
+     * Synonym types are annotation properties of the streamed document, so their labels are looked up in the
+     * streamed annotations rather than in the OWL API model
+     */
+    @Override
+    protected Optional<String> getSynonymType(IRI synonymTypeIRI) {
+        if (streamedAnnotations == null) {
+            return super.getSynonymType(synonymTypeIRI);
+        }
+        return streamedAnnotations.getOrDefault(synonymTypeIRI, Collections.emptyList()).stream()
+                .filter(annotation -> annotation.getProperty().getIRI().equals(OWLRDFVocabulary.RDFS_LABEL.getIRI()))
+                .map(annotation -> annotation.getValue().asLiteral().map(OWLLiteral::getLiteral)
+                        .orElse(annotation.getValue().toString()))
+                .reduce((first, last) -> last);
+    }
+
+    /**
+     * Thrown to stop the parse when the document uses a construct that the streamed records can't represent
+     */
+    private static class UnsupportedConstructException extends RuntimeException {
+        UnsupportedConstructException(String construct) {
+            super(construct);
+        }
+    }
+
+    /**
+     * Collects the term records from the parser and, once the whole document has been read, fills the loader caches
+     * in the same way the OWL API based indexing does. The annotations of each entity are kept as OWL annotations
+     * with their axiom annotations, so they are indexed by the same code as a full OWL load.
+     */
+    private class TermCollector implements OntologyTermHandler {
+
+        private final IRI thing = Namespaces.OWL.createIRI("Thing");
+
+        private IRI ontologyIRI;
+        private IRI versionIRI;
+        private final Set<IRI> classes = new HashSet<>();
+        private final Set<IRI> objectProperties = new HashSet<>();
+        private final Set<IRI> dataProperties = new HashSet<>();
+        private final Set<IRI> annotationProperties = new HashSet<>();
+        private final Map<IRI, Set<IRI>> parents = new HashMap<>();
+        private final Map<IRI, Set<IRI>> superProperties = new HashMap<>();
+        private final Map<IRI, Map<IRI, Collection<IRI>>> relationships = new HashMap<>();
+        private final Map<IRI, List<OWLAnnotation>> annotations = new HashMap<>();
+
+        @Override
+        public void handleOntologyIRI(IRI ontologyIRI) {
+            this.ontologyIRI = ontologyIRI;
+        }
+
+        @Override
+        public void handleVersionIRI(IRI versionIRI) {
+            this.versionIRI = versionIRI;
+        }
+
+        @Override
+        public void handleClass(IRI classIRI) {
+            classes.add(classIRI);
+        }
+
+        @Override
+        public void handleObjectProperty(IRI propertyIRI) {
+            objectProperties.add(propertyIRI);
+        }
+
+        @Override
+        public void handleDataProperty(IRI propertyIRI) {
+            dataProperties.add(propertyIRI);
+        }
+
+        @Override
+        public void handleAnnotationProperty(IRI propertyIRI) {
+            annotationProperties.add(propertyIRI);
+        }
+
+        @Override
+        public void handleType(IRI subject, IRI type) {
+            // individuals and their property assertions are only indexed by the OWL API
+            if (type.equals(Namespaces.OWL.createIRI("NamedIndividual")) || type.equals(thing)
+                    || !(type.toString().startsWith(Namespaces.OWL.toString())
+                    || type.toString().startsWith(Namespaces.RDFS.toString())
+                    || type.toString().startsWith(Namespaces.RDF.toString()))) {
+                throw new UnsupportedConstructException("individual " + subject + " of type " + type);
+            }
+        }
+
+        @Override
+        public void handleUnsupported(String construct) {
+            throw new UnsupportedConstructException(construct);
+        }
+
+        @Override
+        public void handleAnnotation(IRI subject, IRI annotationProperty, String value, String language) {
+            addAnnotation(subject, annotationProperty,
+                    getFactory().getOWLLiteral(value, language == null ? "" : language));
+        }
+
+        @Override
+        public void handleAnnotation(IRI subject, IRI annotationProperty, IRI value) {
+            addAnnotation(subject, annotationProperty, value);
+        }
+
+        @Override
+        public void handleAxiomAnnotation(IRI subject, IRI annotationProperty, String value,
+                                          IRI axiomAnnotationProperty, String axiomAnnotationValue) {
+            addAxiomAnnotation(subject, annotationProperty, value, axiomAnnotationProperty,
+                    getFactory().getOWLLiteral(axiomAnnotationValue));
+        }
+
+        @Override
+        public void handleAxiomAnnotation(IRI subject, IRI annotationProperty, String value,
+                                          IRI axiomAnnotationProperty, IRI axiomAnnotationValue) {
+            addAxiomAnnotation(subject, annotationProperty, value, axiomAnnotationProperty, axiomAnnotationValue);
+        }
+
+        @Override
+        public void handleSubClassOf(IRI child, IRI parent) {
+            if (!parent.equals(thing) && !parent.equals(child)) {
+                parents.computeIfAbsent(child, k -> new HashSet<>()).add(parent);
+            }
+        }
+
+        @Override
+        public void handleSubPropertyOf(IRI child, IRI parent) {
+            superProperties.computeIfAbsent(child, k -> new HashSet<>()).add(parent);
+        }
+
+        @Override
+        public void handleRelationship(IRI subject, IRI property, IRI filler) {
+            relationships.computeIfAbsent(subject, k -> new HashMap<>())
+                    .computeIfAbsent(property, k -> new HashSet<>())
+                    .add(filler);
+        }
+
+        private void addAnnotation(IRI subject, IRI property, OWLAnnotationValue value) {
+            List<OWLAnnotation> subjectAnnotations = annotations.computeIfAbsent(subject, k -> new ArrayList<>());
+            // the axiom annotations of this assertion may have been read first
+            for (OWLAnnotation annotation : subjectAnnotations) {
+                if (annotation.getProperty().getIRI().equals(property) && annotation.getValue().equals(value)) {
+                    return;
+                }
+            }
+            subjectAnnotations.add(getFactory().getOWLAnnotation(getFactory().getOWLAnnotationProperty(property),
+                    value));
+        }
+
+        private void addAxiomAnnotation(IRI subject, IRI property, String value, IRI axiomAnnotationProperty,
+                                        OWLAnnotationValue axiomAnnotationValue) {
+            List<OWLAnnotation> subjectAnnotations = annotations.computeIfAbsent(subject, k -> new ArrayList<>());
+            OWLAnnotation axiomAnnotation = getFactory().getOWLAnnotation(
+                    getFactory().getOWLAnnotationProperty(axiomAnnotationProperty), axiomAnnotationValue);
+
+            for (int i = 0; i < subjectAnnotations.size(); i++) {
+                OWLAnnotation annotation = subjectAnnotations.get(i);
+                if (annotation.getProperty().getIRI().equals(property) && valueOf(annotation).equals(value)) {
+                    Set<OWLAnnotation> axiomAnnotations = new HashSet<>(annotation.getAnnotations());
+                    axiomAnnotations.add(axiomAnnotation);
+                    subjectAnnotations.set(i, getFactory().getOWLAnnotation(annotation.getProperty(),
+                            annotation.getValue(), axiomAnnotations));
+                    return;
+                }
+            }
+            subjectAnnotations.add(getFactory().getOWLAnnotation(getFactory().getOWLAnnotationProperty(property),
+                    getFactory().getOWLLiteral(value), Collections.singleton(axiomAnnotation)));
+        }
+
+        private String valueOf(OWLAnnotation annotation) {
+            return annotation.getValue().asLiteral().map(OWLLiteral::getLiteral)
+                    .orElse(annotation.getValue().toString());
+        }
+
+        /**
+         * Sets the ontology IRI, version and annotations
+         */
+        void indexOntology() {
+            if (ontologyIRI != null && !ontologyIRI.equals(TEMP_ONTOLOGY_IRI)) {
+                setOntologyIRI(ontologyIRI);
+            }
+            if (versionIRI != null) {
+                setOntologyVersionIRI(versionIRI);
+                String oboVersion = parseOboVersion(versionIRI);
+                if (oboVersion != null) {
+                    setOntologyVersion(oboVersion);
+                }
+            }
+            List<OWLAnnotation> ontologyAnnotations = ontologyIRI == null ? null : annotations.remove(ontologyIRI);
+            indexOntologyAnnotations(ontologyAnnotations == null ?
+                    Collections.emptySet() : new HashSet<>(ontologyAnnotations));
+        }
+
+        void index() {
+            // the signature also holds the terms and properties that are only referenced
+            parents.values().forEach(classes::addAll);
+            relationships.values().forEach(related -> related.forEach((property, fillers) -> {
+                objectProperties.add(property);
+                classes.addAll(fillers);
+            }));
+            classes.removeIf(cls -> cls.toString().contains(Namespaces.OWL.toString()));
+            annotations.forEach((subject, subjectAnnotations) -> subjectAnnotations.forEach(annotation -> {
+                annotationProperties.add(annotation.getProperty().getIRI());
+                annotation.getAnnotations().forEach(axiomAnnotation ->
+                        annotationProperties.add(axiomAnnotation.getProperty().getIRI()));
+            }));
+            annotationProperties.removeAll(objectProperties);
+            annotationProperties.removeAll(dataProperties);
+
+            streamedAnnotations = annotations;
+            Set<IRI> entities = new HashSet<>(classes);
+            entities.addAll(objectProperties);
+            entities.addAll(dataProperties);
+            entities.addAll(annotationProperties);
+            for (IRI entity : entities) {
+                evaluateAnnotationValues(entity, annotations.getOrDefault(entity, Collections.emptyList()));
+                indexEntityIRI(entity);
+            }
+
+            indexProperties();
+            indexClasses();
+        }
+
+        private void indexProperties() {
+            Map<IRI, Set<IRI>> subProperties = new HashMap<>();
+            superProperties.forEach((child, childParents) -> childParents.forEach(parent ->
+                    subProperties.computeIfAbsent(parent, k -> new HashSet<>()).add(child)));
+
+            Map<IRI, Set<IRI>> ancestors = new HashMap<>();
+            for (IRI property : objectProperties) {
+                addObjectProperty(property);
+                addDirectParents(property, superProperties.getOrDefault(property, new HashSet<>()));
+                addAllParents(property, closure(property, superProperties, ancestors, new HashSet<>()));
+                addDirectChildren(property, subProperties.getOrDefault(property, new HashSet<>()));
+            }
+            dataProperties.forEach(StreamingOntologyLoader.this::addDataProperty);
+            for (IRI property : annotationProperties) {
+                addAnnotationProperty(property);
+                addDirectParents(property, superProperties.getOrDefault(property, new HashSet<>()));
+                addDirectChildren(property, subProperties.getOrDefault(property, new HashSet<>()));
+            }
+        }
+
+        private void indexClasses() {
+            Map<IRI, Set<IRI>> children = new HashMap<>();
+            parents.forEach((child, childParents) -> childParents.forEach(parent ->
+                    children.computeIfAbsent(parent, k -> new HashSet<>()).add(child)));
+
+            Map<IRI, Set<IRI>> ancestors = new HashMap<>();
+            Map<IRI, Set<IRI>> descendants = new HashMap<>();
+
+            for (IRI cls : classes) {
+                addClass(cls);
+
+                Set<IRI> directParents = parents.get(cls);
+                if (directParents == null || directParents.isEmpty()) {
+                    addRootsTerms(cls);
+                }
+                else {
+                    addDirectParents(cls, directParents);
+                    Set<IRI> allParents = closure(cls, parents, ancestors, new HashSet<>());
+                    if (!allParents.isEmpty()) {
+                        addAllParents(cls, allParents);
+                    }
+                }
+
+                Set<IRI> directChildren = children.get(cls);
+                if (directChildren != null) {
+                    addDirectChildren(cls, directChildren);
+                    addAllChildren(cls, closure(cls, children, descendants, new HashSet<>()));
+                }
+
+                Map<IRI, Collection<IRI>> relatedParents = new HashMap<>();
+                Map<IRI, Collection<IRI>> related = relationships.get(cls);
+                if (related != null) {
+                    addRelatedTerms(cls, related);
+                    related.forEach((property, fillers) -> {
+                        if (isHierarchicalRelation(property)) {
+                            for (IRI filler : fillers) {
+                                if (filler.equals(cls)) {
+                                    getLogger().warn("Ignoring Iri that is related to itself: " + cls);
+                                    continue;
+                                }
+                                relatedParents.computeIfAbsent(property, k -> new HashSet<>()).add(filler);
+                                addRelatedChildTerm(filler, cls);
+                            }
+                        }
+                    });
+                }
+                addRelatedParentTerms(cls, relatedParents);
+            }
+        }
+
+        /**
+         * Transitive closure over a parent or child map. Results are memoised so shared ancestors are only walked
+         * once, and the visiting set breaks any cycles in the asserted hierarchy.
+         */
+        private Set<IRI> closure(IRI iri, Map<IRI, Set<IRI>> edges, Map<IRI, Set<IRI>> memo, Set<IRI> visiting) {
+            Set<IRI> cached = memo.get(iri);
+            if (cached != null) {
+                return cached;
+            }
+            Set<IRI> result = new HashSet<>();
+            visiting.add(iri);
+            for (IRI next : edges.getOrDefault(iri, Collections.emptySet())) {
+                result.add(next);
+                if (!visiting.contains(next)) {
+                    result.addAll(closure(next, edges, memo, visiting));
+                }
+            }
+            visiting.remove(iri);
+            result.remove(iri);
+            memo.put(iri, result);
+            return result;
+        }
+    }
+}
@@ -42,8 +42,10 @@ public class StructuralOWLOntologyLoader extends AbstractOWLOntologyLoader {
 
     @Override
     protected void discardReasoner(OWLOntology ontology) throws OWLOntologyCreationException {
-        reasoner = null;
-        System.gc();
+        if (reasoner != null) {
+            reasoner.dispose();
+            reasoner = null;
+        }
     }
 }
 
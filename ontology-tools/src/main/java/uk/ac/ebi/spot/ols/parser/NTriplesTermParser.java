@@ -0,0 +1,366 @@
+package uk.ac.ebi.spot.ols.parser;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.springframework.core.io.Resource;
+import uk.ac.ebi.spot.ols.util.Namespaces;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming parser for N-Triples documents. Each triple is translated into a term record as it is read. The only
+ * state kept between lines is for blank nodes, restrictions (subClassOf property some filler) and axiom annotations
+ * (owl:Axiom), which are resolved once the whole document has been read. Imports, equivalent classes and other class
+ * expressions are reported with {@link OntologyTermHandler#handleUnsupported(String)}, entities that aren't classes
+ * or properties, such as individuals, are reported with their type.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class NTriplesTermParser implements OntologyTermParser {
+
+    private static final String RDF_TYPE = Namespaces.RDF + "type";
+    private static final String OWL_CLASS = Namespaces.OWL + "Class";
+    private static final String OWL_OBJECT_PROPERTY = Namespaces.OWL + "ObjectProperty";
+    private static final String OWL_DATATYPE_PROPERTY = Namespaces.OWL + "DatatypeProperty";
+    private static final String OWL_ANNOTATION_PROPERTY = Namespaces.OWL + "AnnotationProperty";
+    private static final String OWL_ONTOLOGY = Namespaces.OWL + "Ontology";
+    private static final String OWL_VERSION_IRI = Namespaces.OWL + "versionIRI";
+    private static final String OWL_ON_PROPERTY = Namespaces.OWL + "onProperty";
+    private static final String OWL_SOME_VALUES_FROM = Namespaces.OWL + "someValuesFrom";
+    private static final String RDFS_SUBCLASS_OF = Namespaces.RDFS + "subClassOf";
+    private static final String RDFS_SUBPROPERTY_OF = Namespaces.RDFS + "subPropertyOf";
+    private static final String OWL_ANNOTATED_SOURCE = Namespaces.OWL + "annotatedSource";
+    private static final String OWL_ANNOTATED_PROPERTY = Namespaces.OWL + "annotatedProperty";
+    private static final String OWL_ANNOTATED_TARGET = Namespaces.OWL + "annotatedTarget";
+
+    // statements about named entities that add axioms the term records can't hold
+    private static final Set<String> UNSUPPORTED_PREDICATES = new HashSet<>(Arrays.asList(
+            Namespaces.OWL + "imports", Namespaces.OWL + "equivalentClass"));
+
+    // class expressions other than an existential restriction to a named class
+    private static final Set<String> UNSUPPORTED_BLANK_NODE_PREDICATES = new HashSet<>(Arrays.asList(
+            Namespaces.OWL + "intersectionOf", Namespaces.OWL + "unionOf", Namespaces.OWL + "complementOf",
+            Namespaces.OWL + "oneOf", Namespaces.OWL + "allValuesFrom", Namespaces.OWL + "hasValue",
+            Namespaces.OWL + "hasSelf", Namespaces.OWL + "onClass", Namespaces.OWL + "cardinality",
+            Namespaces.OWL + "minCardinality", Namespaces.OWL + "maxCardinality",
+            Namespaces.OWL + "qualifiedCardinality", Namespaces.OWL + "minQualifiedCardinality",
+            Namespaces.OWL + "maxQualifiedCardinality"));
+
+    @Override
+    public boolean canParse(Resource resource) {
+        return OntologyTermParsers.hasExtension(resource, ".nt");
+    }
+
+    @Override
+    public void parse(InputStream inputStream, OntologyTermHandler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        Map<String, Collection<String>> restrictionSubClasses = new HashMap<>();
+        Map<String, String> restrictionProperties = new HashMap<>();
+        Map<String, String> restrictionFillers = new HashMap<>();
+        Map<String, Triple[]> annotatedAxioms = new HashMap<>();
+        Map<String, List<Triple>> axiomAnnotations = new HashMap<>();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Triple triple = Triple.parse(line);
+            if (triple == null) {
+                continue;
+            }
+
+            if (triple.subject.startsWith("_:")) {
+                if (triple.predicate.equals(OWL_ON_PROPERTY) && triple.isIRI()) {
+                    restrictionProperties.put(triple.subject, triple.object);
+                }
+                else if (triple.predicate.equals(OWL_SOME_VALUES_FROM) && triple.isIRI()) {
+                    restrictionFillers.put(triple.subject, triple.object);
+                }
+                else if (UNSUPPORTED_BLANK_NODE_PREDICATES.contains(triple.predicate)) {
+                    handler.handleUnsupported("class expression with " + triple.predicate);
+                }
+                else if (triple.predicate.equals(OWL_ANNOTATED_SOURCE)) {
+                    annotatedAxioms.computeIfAbsent(triple.subject, k -> new Triple[3])[0] = triple;
+                }
+                else if (triple.predicate.equals(OWL_ANNOTATED_PROPERTY)) {
+                    annotatedAxioms.computeIfAbsent(triple.subject, k -> new Triple[3])[1] = triple;
+                }
+                else if (triple.predicate.equals(OWL_ANNOTATED_TARGET)) {
+                    annotatedAxioms.computeIfAbsent(triple.subject, k -> new Triple[3])[2] = triple;
+                }
+                else if (triple.isLiteral() || (triple.isIRI() && !isBuiltIn(triple.predicate))) {
+                    axiomAnnotations.computeIfAbsent(triple.subject, k -> new ArrayList<>()).add(triple);
+                }
+                continue;
+            }
+
+            IRI subject = IRI.create(triple.subject);
+            if (UNSUPPORTED_PREDICATES.contains(triple.predicate)) {
+                handler.handleUnsupported(triple.predicate + " of " + triple.subject);
+            }
+            else if (triple.predicate.equals(RDF_TYPE)) {
+                if (triple.object.equals(OWL_CLASS)) {
+                    handler.handleClass(subject);
+                }
+                else if (triple.object.equals(OWL_OBJECT_PROPERTY)) {
+                    handler.handleObjectProperty(subject);
+                }
+                else if (triple.object.equals(OWL_DATATYPE_PROPERTY)) {
+                    handler.handleDataProperty(subject);
+                }
+                else if (triple.object.equals(OWL_ANNOTATION_PROPERTY)) {
+                    handler.handleAnnotationProperty(subject);
+                }
+                else if (triple.object.equals(OWL_ONTOLOGY)) {
+                    handler.handleOntologyIRI(subject);
+                }
+                else if (triple.isIRI()) {
+                    handler.handleType(subject, IRI.create(triple.object));
+                }
+            }
+            else if (triple.predicate.equals(OWL_VERSION_IRI) && triple.isIRI()) {
+                handler.handleVersionIRI(IRI.create(triple.object));
+            }
+            else if (triple.predicate.equals(RDFS_SUBCLASS_OF)) {
+                if (triple.isIRI()) {
+                    handler.handleSubClassOf(subject, IRI.create(triple.object));
+                }
+                else if (triple.isBlankNode()) {
+                    restrictionSubClasses.computeIfAbsent(triple.object, k -> new ArrayList<>()).add(triple.subject);
+                }
+            }
+            else if (triple.predicate.equals(RDFS_SUBPROPERTY_OF)) {
+                if (triple.isIRI()) {
+                    handler.handleSubPropertyOf(subject, IRI.create(triple.object));
+                }
+                else {
+                    handler.handleUnsupported("property expression in " + triple.predicate + " of " + triple.subject);
+                }
+            }
+            else if (triple.isLiteral()) {
+                handler.handleAnnotation(subject, IRI.create(triple.predicate), triple.object, triple.language);
+            }
+            else if (triple.isIRI() && !isBuiltIn(triple.predicate)) {
+                handler.handleAnnotation(subject, IRI.create(triple.predicate), IRI.create(triple.object));
+            }
+        }
+
+        for (Map.Entry<String, Collection<String>> entry : restrictionSubClasses.entrySet()) {
+            String property = restrictionProperties.get(entry.getKey());
+            String filler = restrictionFillers.get(entry.getKey());
+            if (property != null && filler != null) {
+                for (String subClass : entry.getValue()) {
+                    handler.handleRelationship(IRI.create(subClass), IRI.create(property), IRI.create(filler));
+                }
+            }
+        }
+
+        for (Map.Entry<String, Triple[]> entry : annotatedAxioms.entrySet()) {
+            Triple[] axiom = entry.getValue();
+            List<Triple> annotations = axiomAnnotations.get(entry.getKey());
+            if (axiom[0] == null || axiom[1] == null || axiom[2] == null || annotations == null
+                    || !axiom[0].isIRI() || !axiom[1].isIRI()) {
+                continue;
+            }
+            IRI source = IRI.create(axiom[0].object);
+            IRI property = IRI.create(axiom[1].object);
+            for (Triple annotation : annotations) {
+                if (annotation.isLiteral()) {
+                    handler.handleAxiomAnnotation(source, property, axiom[2].object,
+                            IRI.create(annotation.predicate), annotation.object);
+                }
+                else {
+                    handler.handleAxiomAnnotation(source, property, axiom[2].object,
+                            IRI.create(annotation.predicate), IRI.create(annotation.object));
+                }
+            }
+        }
+    }
+
+    /**
+     * Logical vocabulary carries no annotations, with the exception of the rdfs annotation properties
+     */
+    private boolean isBuiltIn(String predicate) {
+        if (predicate.startsWith(Namespaces.RDFS.toString())) {
+            return !predicate.endsWith("#seeAlso") && !predicate.endsWith("#isDefinedBy");
+        }
+        return predicate.startsWith(Namespaces.OWL.toString()) || predicate.startsWith(Namespaces.RDF.toString());
+    }
+
+    static class Triple {
+        String subject;
+        String predicate;
+        String object;
+        String language;
+        private int objectType;
+
+        private static final int IRI_OBJECT = 0;
+        private static final int BLANK_OBJECT = 1;
+        private static final int LITERAL_OBJECT = 2;
+
+        boolean isIRI() {
+            return objectType == IRI_OBJECT;
+        }
+
+        boolean isBlankNode() {
+            return objectType == BLANK_OBJECT;
+        }
+
+        boolean isLiteral() {
+            return objectType == LITERAL_OBJECT;
+        }
+
+        /**
+         * @return the triple on the line, or null for blank lines, comments and lines that can't be read
+         */
+        static Triple parse(String line) {
+            Cursor cursor = new Cursor(line);
+            cursor.skipWhitespace();
+            if (cursor.atEnd() || cursor.peek() == '#') {
+                return null;
+            }
+            Triple triple = new Triple();
+            triple.subject = cursor.readResource();
+            cursor.skipWhitespace();
+            triple.predicate = cursor.readResource();
+            cursor.skipWhitespace();
+            if (triple.subject == null || triple.predicate == null || cursor.atEnd()) {
+                return null;
+            }
+
+            if (cursor.peek() == '"') {
+                triple.object = cursor.readLiteral();
+                triple.objectType = LITERAL_OBJECT;
+                if (!cursor.atEnd() && cursor.peek() == '@') {
+                    triple.language = cursor.readLanguage();
+                }
+            }
+            else {
+                triple.objectType = cursor.peek() == '_' ? BLANK_OBJECT : IRI_OBJECT;
+                triple.object = cursor.readResource();
+            }
+            return triple.object == null ? null : triple;
+        }
+    }
+
+    private static class Cursor {
+        private final String line;
+        private int position = 0;
+
+        Cursor(String line) {
+            this.line = line;
+        }
+
+        boolean atEnd() {
+            return position >= line.length();
+        }
+
+        char peek() {
+            return line.charAt(position);
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(peek())) {
+                position++;
+            }
+        }
+
+        /**
+         * Reads an &lt;IRI&gt; or a _:blank node label
+         */
+        String readResource() {
+            if (atEnd()) {
+                return null;
+            }
+            if (peek() == '<') {
+                int end = line.indexOf('>', position);
+                if (end < 0) {
+                    return null;
+                }
+                String iri = unescape(line.substring(position + 1, end));
+                position = end + 1;
+                return iri;
+            }
+            if (peek() == '_') {
+                int start = position;
+                while (!atEnd() && !Character.isWhitespace(peek())) {
+                    position++;
+                }
+                return line.substring(start, position);
+            }
+            return null;
+        }
+
+        String readLiteral() {
+            StringBuilder builder = new StringBuilder();
+            position++;
+            while (!atEnd()) {
+                char c = line.charAt(position++);
+                if (c == '"') {
+                    skipDatatype();
+                    return unescape(builder.toString());
+                }
+                builder.append(c);
+                if (c == '\\' && !atEnd()) {
+                    builder.append(line.charAt(position++));
+                }
+            }
+            return null;
+        }
+
+        private void skipDatatype() {
+            if (line.startsWith("^^", position)) {
+                position += 2;
+                readResource();
+            }
+        }
+
+        String readLanguage() {
+            int start = ++position;
+            while (!atEnd() && !Character.isWhitespace(peek()) && peek() != '.') {
+                position++;
+            }
+            return line.substring(start, position);
+        }
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 >= value.length()) {
+                builder.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 't': builder.append('\t'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 'u':
+                    builder.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                case 'U':
+                    builder.appendCodePoint(Integer.parseInt(value.substring(i + 1, i + 9), 16));
+                    i += 8;
+                    break;
+                default: builder.append(next);
+            }
+        }
+        return builder.toString();
+    }
+}
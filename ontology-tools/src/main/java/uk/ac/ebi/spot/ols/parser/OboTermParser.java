@@ -0,0 +1,521 @@
+package uk.ac.ebi.spot.ols.parser;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.OBODocumentFormat;
+import org.semanticweb.owlapi.io.StringDocumentSource;
+import org.semanticweb.owlapi.model.*;
+import org.springframework.core.io.Resource;
+import uk.ac.ebi.spot.ols.config.OboDefaults;
+import uk.ac.ebi.spot.ols.util.Namespaces;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Streaming parser for OBO flat file format 1.2/1.4. Stanzas are read one at a time and translated to the same IRIs
+ * and annotations the OWL API OBO parser would produce, so the resulting term records match those of a full OWL load.
+ * The header is small and is translated with the OWL API itself, so the ontology annotations are the same too.
+ *
+ * Term and Typedef stanzas are read with their labels, definitions and their xrefs, synonyms with their types and
+ * xrefs, is_a, relationship, subsets, xrefs, obsoletion and replacement tags. Anything that would add axioms or
+ * annotations the parser can't translate, such as imports, [Instance] stanzas, logical definitions (intersection_of,
+ * equivalent_to, ...) or property_value, is reported with
+ * {@link OntologyTermHandler#handleUnsupported(String)}.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class OboTermParser implements OntologyTermParser {
+
+    private static final IRI LABEL = Namespaces.RDFS.createIRI("label");
+    private static final IRI COMMENT = Namespaces.RDFS.createIRI("comment");
+    private static final IRI DEPRECATED = Namespaces.OWL.createIRI("deprecated");
+    private static final IRI DEFINITION = IRI.create(OboDefaults.DEFINITION);
+    private static final IRI REPLACED_BY = Namespaces.OBO.createIRI("IAO_0100001");
+    private static final IRI IN_SUBSET = Namespaces.OBOINOWL.createIRI("inSubset");
+    private static final IRI CONSIDER = Namespaces.OBOINOWL.createIRI("consider");
+    private static final IRI DBXREF = IRI.create(OboDefaults.DBXREF);
+    private static final IRI SYNONYM_TYPE = IRI.create(OboDefaults.SYNONYM_TYPE);
+    private static final IRI ALT_ID = Namespaces.OBOINOWL.createIRI("hasAlternativeId");
+    private static final IRI NAMESPACE = Namespaces.OBOINOWL.createIRI("hasOBONamespace");
+    private static final IRI OBO_ID = Namespaces.OBOINOWL.createIRI("id");
+    private static final IRI SHORTHAND = Namespaces.OBOINOWL.createIRI("shorthand");
+    private static final IRI CREATED_BY = Namespaces.OBOINOWL.createIRI("created_by");
+    private static final IRI CREATION_DATE = Namespaces.OBOINOWL.createIRI("creation_date");
+
+    private static final Map<String, IRI> SYNONYM_SCOPES = new HashMap<>();
+    static {
+        SYNONYM_SCOPES.put("EXACT", IRI.create(OboDefaults.EXACT_SYNONYM));
+        SYNONYM_SCOPES.put("RELATED", IRI.create(OboDefaults.RELATED_SYNONYM));
+        SYNONYM_SCOPES.put("BROAD", IRI.create(OboDefaults.BROAD_SYNONYM));
+        SYNONYM_SCOPES.put("NARROW", IRI.create(OboDefaults.NARROW_SYNONYM));
+    }
+
+    // header tags that import or generate axioms
+    private static final Set<String> UNSUPPORTED_HEADER_TAGS = new HashSet<>(Arrays.asList(
+            "import", "owl-axioms", "idspace", "id-mapping"));
+
+    // typedef tags that only add axioms which aren't indexed, such as property characteristics
+    private static final Set<String> IGNORED_TYPEDEF_TAGS = new HashSet<>(Arrays.asList(
+            "domain", "range", "inverse_of", "transitive_over", "holds_over_chain", "equivalent_to_chain",
+            "disjoint_over", "is_transitive", "is_symmetric", "is_asymmetric", "is_anti_symmetric", "is_reflexive",
+            "is_functional", "is_inverse_functional"));
+
+    @Override
+    public boolean canParse(Resource resource) {
+        return OntologyTermParsers.hasExtension(resource, ".obo");
+    }
+
+    @Override
+    public void parse(InputStream inputStream, OntologyTermHandler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        String ontologyId = null;
+        String dataVersion = null;
+        List<String> header = new ArrayList<>();
+
+        // relations that use an un-prefixed typedef id can only be resolved once the typedef stanzas, which usually
+        // come last, have been read
+        Map<String, IRI> typedefIRIs = new HashMap<>();
+        List<String[]> unresolvedRelationships = new ArrayList<>();
+        List<String[]> unresolvedSubProperties = new ArrayList<>();
+
+        String stanzaType = null;
+        List<String[]> stanza = new ArrayList<>();
+        boolean headerRead = false;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("!")) {
+                continue;
+            }
+            if (line.startsWith("[") && line.endsWith("]")) {
+                if (!headerRead) {
+                    headerRead = true;
+                    reportHeader(ontologyId, dataVersion, header, handler);
+                }
+                else {
+                    processStanza(stanzaType, stanza, ontologyId, typedefIRIs, unresolvedRelationships,
+                            unresolvedSubProperties, handler);
+                }
+                stanzaType = line.substring(1, line.length() - 1);
+                stanza.clear();
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String tag = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+
+            if (!headerRead) {
+                if (tag.equals("ontology")) {
+                    ontologyId = value;
+                }
+                else if (tag.equals("data-version")) {
+                    dataVersion = value;
+                }
+                else if (UNSUPPORTED_HEADER_TAGS.contains(tag) || tag.startsWith("treat-xrefs-as-")) {
+                    handler.handleUnsupported("OBO header tag " + tag + ": " + value);
+                    continue;
+                }
+                header.add(line);
+            }
+            else {
+                stanza.add(new String[]{tag, value});
+            }
+        }
+        if (!headerRead) {
+            reportHeader(ontologyId, dataVersion, header, handler);
+        }
+        processStanza(stanzaType, stanza, ontologyId, typedefIRIs, unresolvedRelationships, unresolvedSubProperties,
+                handler);
+
+        for (String[] relationship : unresolvedRelationships) {
+            IRI property = typedefIRIs.get(relationship[1]);
+            if (property == null) {
+                property = toIRI(relationship[1], ontologyId);
+            }
+            handler.handleRelationship(IRI.create(relationship[0]), property, IRI.create(relationship[2]));
+        }
+        for (String[] subProperty : unresolvedSubProperties) {
+            IRI parent = typedefIRIs.get(subProperty[1]);
+            if (parent == null) {
+                parent = toIRI(subProperty[1], ontologyId);
+            }
+            handler.handleSubPropertyOf(IRI.create(subProperty[0]), parent);
+        }
+    }
+
+    private void reportHeader(String ontologyId, String dataVersion, List<String> header,
+                              OntologyTermHandler handler) throws IOException {
+        if (ontologyId == null) {
+            handler.handleUnsupported("OBO header without an ontology tag");
+            return;
+        }
+        IRI ontologyIRI = Namespaces.OBO.createIRI(ontologyId + ".owl");
+        handler.handleOntologyIRI(ontologyIRI);
+        if (dataVersion != null) {
+            handler.handleVersionIRI(Namespaces.OBO.createIRI(ontologyId + "/" + dataVersion + "/" + ontologyId + ".owl"));
+        }
+
+        // the ontology annotations (remark, property_value, ...) and the labels of the subset and synonym types
+        OWLOntology headerOntology;
+        try {
+            headerOntology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(
+                    new StringDocumentSource(String.join("\n", header) + "\n", ontologyIRI,
+                            new OBODocumentFormat(), null));
+        }
+        catch (OWLOntologyCreationException e) {
+            throw new IOException("Failed to read the header of OBO ontology " + ontologyId, e);
+        }
+        for (OWLAnnotation annotation : headerOntology.getAnnotations()) {
+            reportAnnotation(ontologyIRI, annotation.getProperty().getIRI(), annotation.getValue(), handler);
+        }
+        for (OWLAnnotationProperty property : headerOntology.getAnnotationPropertiesInSignature()) {
+            handler.handleAnnotationProperty(property.getIRI());
+        }
+        for (OWLSubAnnotationPropertyOfAxiom axiom : headerOntology.getAxioms(AxiomType.SUB_ANNOTATION_PROPERTY_OF)) {
+            handler.handleSubPropertyOf(axiom.getSubProperty().getIRI(), axiom.getSuperProperty().getIRI());
+        }
+        for (OWLAnnotationAssertionAxiom axiom : headerOntology.getAxioms(AxiomType.ANNOTATION_ASSERTION)) {
+            if (axiom.getSubject() instanceof IRI) {
+                reportAnnotation((IRI) axiom.getSubject(), axiom.getProperty().getIRI(), axiom.getValue(), handler);
+            }
+        }
+    }
+
+    private void reportAnnotation(IRI subject, IRI property, OWLAnnotationValue value, OntologyTermHandler handler) {
+        if (value instanceof IRI) {
+            handler.handleAnnotation(subject, property, (IRI) value);
+        }
+        else if (value instanceof OWLLiteral) {
+            OWLLiteral literal = (OWLLiteral) value;
+            handler.handleAnnotation(subject, property, literal.getLiteral(),
+                    literal.hasLang() ? literal.getLang() : null);
+        }
+    }
+
+    private void processStanza(String stanzaType, List<String[]> stanza, String ontologyId,
+                               Map<String, IRI> typedefIRIs, List<String[]> unresolvedRelationships,
+                               List<String[]> unresolvedSubProperties, OntologyTermHandler handler) {
+        if (stanzaType == null || stanza.isEmpty()) {
+            return;
+        }
+
+        String id = null;
+        for (String[] tagValue : stanza) {
+            if (tagValue[0].equals("id")) {
+                id = firstToken(tagValue[1]);
+                break;
+            }
+        }
+        if (id == null) {
+            return;
+        }
+
+        if (stanzaType.equals("Typedef")) {
+            processTypedef(id, stanza, ontologyId, typedefIRIs, unresolvedSubProperties, handler);
+        }
+        else if (stanzaType.equals("Term")) {
+            processTerm(id, stanza, ontologyId, unresolvedRelationships, handler);
+        }
+        else {
+            handler.handleUnsupported("OBO [" + stanzaType + "] stanza " + id);
+        }
+    }
+
+    private void processTypedef(String id, List<String[]> stanza, String ontologyId, Map<String, IRI> typedefIRIs,
+                                List<String[]> unresolvedSubProperties, OntologyTermHandler handler) {
+        IRI propertyIRI = null;
+        if (!id.contains(":")) {
+            // shorthand ids such as part_of are translated to the IRI of their xref, e.g. BFO:0000050
+            for (String[] tagValue : stanza) {
+                if (tagValue[0].equals("xref")) {
+                    String xref = firstToken(tagValue[1]);
+                    if (xref.contains(":") && !xref.startsWith("http")) {
+                        propertyIRI = toIRI(xref, ontologyId);
+                        break;
+                    }
+                }
+            }
+        }
+        if (propertyIRI == null) {
+            propertyIRI = toIRI(id, ontologyId);
+        }
+        typedefIRIs.put(id, propertyIRI);
+
+        handler.handleObjectProperty(propertyIRI);
+        handler.handleAnnotation(propertyIRI, OBO_ID, id, null);
+        if (!id.contains(":") && !propertyIRI.equals(toIRI(id, ontologyId))) {
+            handler.handleAnnotation(propertyIRI, SHORTHAND, id, null);
+        }
+        for (String[] tagValue : stanza) {
+            String tag = tagValue[0];
+            if (tag.equals("is_a")) {
+                String parent = firstToken(tagValue[1]);
+                if (parent.contains(":")) {
+                    handler.handleSubPropertyOf(propertyIRI, toIRI(parent, ontologyId));
+                }
+                else {
+                    unresolvedSubProperties.add(new String[]{propertyIRI.toString(), parent});
+                }
+            }
+            else if (!tag.equals("id") && !IGNORED_TYPEDEF_TAGS.contains(tag)
+                    && !processAnnotation(propertyIRI, tag, tagValue[1], ontologyId, handler)) {
+                handler.handleUnsupported("OBO tag " + tag + " in Typedef " + id);
+            }
+        }
+    }
+
+    private void processTerm(String id, List<String[]> stanza, String ontologyId,
+                             List<String[]> unresolvedRelationships, OntologyTermHandler handler) {
+        IRI termIRI = toIRI(id, ontologyId);
+        handler.handleClass(termIRI);
+
+        for (String[] tagValue : stanza) {
+            String tag = tagValue[0];
+            String value = tagValue[1];
+
+            switch (tag) {
+                case "id":
+                    handler.handleAnnotation(termIRI, OBO_ID, id, null);
+                    break;
+                case "is_a":
+                    handler.handleSubClassOf(termIRI, toIRI(firstToken(value), ontologyId));
+                    break;
+                case "relationship":
+                    String[] relation = stripComment(value).split("\\s+");
+                    if (relation.length >= 2) {
+                        IRI filler = toIRI(relation[1], ontologyId);
+                        if (relation[0].contains(":")) {
+                            handler.handleRelationship(termIRI, toIRI(relation[0], ontologyId), filler);
+                        }
+                        else {
+                            unresolvedRelationships.add(
+                                    new String[]{termIRI.toString(), relation[0], filler.toString()});
+                        }
+                    }
+                    break;
+                default:
+                    if (!processAnnotation(termIRI, tag, value, ontologyId, handler)) {
+                        handler.handleUnsupported("OBO tag " + tag + " in Term " + id);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Reports the annotation tags shared by terms and typedefs
+     *
+     * @return false if the tag isn't an annotation the parser knows how to translate
+     */
+    private boolean processAnnotation(IRI subject, String tag, String value, String ontologyId,
+                                      OntologyTermHandler handler) {
+        switch (tag) {
+            case "name":
+                handler.handleAnnotation(subject, LABEL, stripComment(value), null);
+                return true;
+            case "def":
+                String definition = unquote(value);
+                handler.handleAnnotation(subject, DEFINITION, definition, null);
+                for (String xref : xrefList(stripComment(value.substring(quotedLength(value))))) {
+                    handler.handleAxiomAnnotation(subject, DEFINITION, definition, DBXREF, xref);
+                }
+                return true;
+            case "comment":
+                handler.handleAnnotation(subject, COMMENT, stripComment(value), null);
+                return true;
+            case "synonym":
+                String synonym = unquote(value);
+                String[] qualifiers = stripComment(value.substring(quotedLength(value))).split("\\s+");
+                IRI scopeIRI = SYNONYM_SCOPES.getOrDefault(qualifiers[0], IRI.create(OboDefaults.RELATED_SYNONYM));
+                handler.handleAnnotation(subject, scopeIRI, synonym, null);
+                if (qualifiers.length > 1 && !qualifiers[1].startsWith("[")) {
+                    handler.handleAxiomAnnotation(subject, scopeIRI, synonym, SYNONYM_TYPE,
+                            toIRI(qualifiers[1], ontologyId));
+                }
+                for (String xref : xrefList(stripComment(value.substring(quotedLength(value))))) {
+                    handler.handleAxiomAnnotation(subject, scopeIRI, synonym, DBXREF, xref);
+                }
+                return true;
+            case "subset":
+                handler.handleAnnotation(subject, IN_SUBSET,
+                        Namespaces.OBO.createIRI(ontologyId + "#" + firstToken(value)));
+                return true;
+            case "is_obsolete":
+                if (firstToken(value).equals("true")) {
+                    handler.handleAnnotation(subject, DEPRECATED, "true", null);
+                }
+                return true;
+            case "replaced_by":
+                handler.handleAnnotation(subject, REPLACED_BY, toIRI(firstToken(value), ontologyId));
+                return true;
+            case "consider":
+                handler.handleAnnotation(subject, CONSIDER, firstToken(value), null);
+                return true;
+            case "xref":
+                String xref = firstToken(value);
+                handler.handleAnnotation(subject, DBXREF, xref, null);
+                String remainder = stripComment(value).substring(xref.length()).trim();
+                if (remainder.startsWith("\"")) {
+                    handler.handleAxiomAnnotation(subject, DBXREF, xref, LABEL, unquote(remainder));
+                }
+                return true;
+            case "alt_id":
+                handler.handleAnnotation(subject, ALT_ID, firstToken(value), null);
+                return true;
+            case "namespace":
+                handler.handleAnnotation(subject, NAMESPACE, firstToken(value), null);
+                return true;
+            case "created_by":
+                handler.handleAnnotation(subject, CREATED_BY, stripComment(value), null);
+                return true;
+            case "creation_date":
+                handler.handleAnnotation(subject, CREATION_DATE, stripComment(value), null);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Translates an OBO identifier into an IRI following the OBO to OWL mapping, e.g. GO:0008150 becomes
+     * http://purl.obolibrary.org/obo/GO_0008150 and an un-prefixed id such as part_of becomes
+     * http://purl.obolibrary.org/obo/go#part_of
+     */
+    static IRI toIRI(String id, String ontologyId) {
+        if (id.startsWith("http://") || id.startsWith("https://")) {
+            return IRI.create(id);
+        }
+        int colon = id.indexOf(':');
+        if (colon > 0) {
+            return Namespaces.OBO.createIRI(id.substring(0, colon) + "_" + id.substring(colon + 1));
+        }
+        return Namespaces.OBO.createIRI((ontologyId == null ? "" : ontologyId) + "#" + id);
+    }
+
+    private static String firstToken(String value) {
+        String stripped = stripComment(value);
+        int space = stripped.indexOf(' ');
+        return space < 0 ? stripped : stripped.substring(0, space);
+    }
+
+    /**
+     * Removes trailing modifiers ({...}) and comments (! ...) from a tag value
+     */
+    private static String stripComment(String value) {
+        int end = value.length();
+        boolean quoted = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') {
+                i++;
+            }
+            else if (c == '"') {
+                quoted = !quoted;
+            }
+            else if (!quoted && (c == '!' || c == '{')) {
+                end = i;
+                break;
+            }
+        }
+        return value.substring(0, end).trim();
+    }
+
+    /**
+     * @return the unescaped content of the leading quoted string of a tag value such as def or synonym
+     */
+    private static String unquote(String value) {
+        if (!value.startsWith("\"")) {
+            return stripComment(value);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                builder.append(next == 'n' ? '\n' : next == 't' ? '\t' : next);
+            }
+            else if (c == '"') {
+                break;
+            }
+            else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the number of characters taken up by the leading quoted string, including the quotes
+     */
+    private static int quotedLength(String value) {
+        if (!value.startsWith("\"")) {
+            return 0;
+        }
+        for (int i = 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') {
+                i++;
+            }
+            else if (c == '"') {
+                return i + 1;
+            }
+        }
+        return value.length();
+    }
+
+    /**
+     * Reads the ids of a bracketed xref list such as [GOC:go_curators, PMID:123 "a description"], the descriptions
+     * are dropped
+     */
+    static List<String> xrefList(String value) {
+        int start = value.indexOf('[');
+        if (start < 0) {
+            return Collections.emptyList();
+        }
+        List<String> xrefs = new ArrayList<>();
+        StringBuilder xref = new StringBuilder();
+        boolean quoted = false;
+        boolean inId = true;
+        for (int i = start + 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                if (inId && !quoted) {
+                    xref.append(value.charAt(i + 1));
+                }
+                i++;
+            }
+            else if (c == '"') {
+                quoted = !quoted;
+                inId = false;
+            }
+            else if (!quoted && (c == ',' || c == ']')) {
+                if (xref.length() > 0) {
+                    xrefs.add(xref.toString());
+                }
+                xref.setLength(0);
+                inId = true;
+                if (c == ']') {
+                    break;
+                }
+            }
+            else if (!quoted && Character.isWhitespace(c)) {
+                if (xref.length() > 0) {
+                    inId = false;
+                }
+            }
+            else if (inId && !quoted) {
+                xref.append(c);
+            }
+        }
+        return xrefs;
+    }
+}
@@ -0,0 +1,86 @@
+package uk.ac.ebi.spot.ols.parser;
+
+import org.semanticweb.owlapi.model.IRI;
+
+/**
+ * Receives the term records found by an {@link OntologyTermParser}. Records are reported in document order, so an
+ * implementation must not assume that a term has been declared before it is annotated or related.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public interface OntologyTermHandler {
+
+    void handleOntologyIRI(IRI ontologyIRI);
+
+    void handleVersionIRI(IRI versionIRI);
+
+    void handleClass(IRI classIRI);
+
+    void handleObjectProperty(IRI propertyIRI);
+
+    default void handleDataProperty(IRI propertyIRI) {
+    }
+
+    default void handleAnnotationProperty(IRI propertyIRI) {
+    }
+
+    /**
+     * An rdf:type of an entity that isn't an OWL class or property, such as a skos:Concept. Handlers that only deal
+     * with OWL terms can ignore these.
+     */
+    default void handleType(IRI subject, IRI type) {
+    }
+
+    /**
+     * A literal annotation such as a label, synonym or definition
+     * @param language the language tag of the literal, or null
+     */
+    void handleAnnotation(IRI subject, IRI annotationProperty, String value, String language);
+
+    /**
+     * An annotation whose value is another entity, such as a subset or a replacement term
+     */
+    void handleAnnotation(IRI subject, IRI annotationProperty, IRI value);
+
+    /**
+     * An annotation on an annotation, such as an xref of an OBO definition or synonym, the type of a synonym or the
+     * description of an xref. The annotated annotation is reported on its own as well.
+     *
+     * @param value the value of the annotated annotation
+     */
+    default void handleAxiomAnnotation(IRI subject, IRI annotationProperty, String value,
+                                       IRI axiomAnnotationProperty, String axiomAnnotationValue) {
+    }
+
+    /**
+     * An annotation on an annotation whose value is another entity, such as the type of an OBO synonym
+     */
+    default void handleAxiomAnnotation(IRI subject, IRI annotationProperty, String value,
+                                       IRI axiomAnnotationProperty, IRI axiomAnnotationValue) {
+    }
+
+    /**
+     * A construct the parser can't translate into term records, such as an import, a logical definition or an
+     * [Instance] stanza. Handlers that need the same records as the OWL API would produce can stop the parse by throwing.
+     *
+     * @param construct what was found and where, for the log
+     */
+    default void handleUnsupported(String construct) {
+    }
+
+    /**
+     * An asserted is_a (rdfs:subClassOf) between two named classes
+     */
+    void handleSubClassOf(IRI child, IRI parent);
+
+    /**
+     * An asserted rdfs:subPropertyOf between two named properties
+     */
+    default void handleSubPropertyOf(IRI child, IRI parent) {
+    }
+
+    /**
+     * An existential relationship (subClassOf property some filler) to a named class
+     */
+    void handleRelationship(IRI subject, IRI property, IRI filler);
+}
@@ -0,0 +1,28 @@
+package uk.ac.ebi.spot.ols.parser;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A parser that reads an ontology document as a stream and reports the terms it finds to an
+ * {@link OntologyTermHandler}, without building an OWL API object model. Parsers are discovered with a
+ * {@link java.util.ServiceLoader}, so additional formats can be plugged in by listing an implementation in
+ * <code>META-INF/services/uk.ac.ebi.spot.ols.parser.OntologyTermParser</code>.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public interface OntologyTermParser {
+
+    /**
+     * @param resource the location of the ontology document
+     * @return true if this parser understands the format of the resource
+     */
+    boolean canParse(Resource resource);
+
+    /**
+     * Reads the whole document, reporting every term record to the handler. The stream is not closed.
+     */
+    void parse(InputStream inputStream, OntologyTermHandler handler) throws IOException;
+}
@@ -0,0 +1,44 @@
+package uk.ac.ebi.spot.ols.parser;
+
+import org.springframework.core.io.Resource;
+
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * Looks up the registered {@link OntologyTermParser} implementations
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class OntologyTermParsers {
+
+    /**
+     * @return the first registered parser that can read the resource, or empty if the resource has to be loaded
+     * with the OWL API
+     */
+    public static Optional<OntologyTermParser> getParser(Resource resource) {
+        if (resource == null) {
+            return Optional.empty();
+        }
+        for (OntologyTermParser parser : ServiceLoader.load(OntologyTermParser.class)) {
+            if (parser.canParse(resource)) {
+                return Optional.of(parser);
+            }
+        }
+        return Optional.empty();
+    }
+
+    static boolean hasExtension(Resource resource, String... extensions) {
+        String filename = resource.getFilename();
+        if (filename == null) {
+            return false;
+        }
+        filename = filename.toLowerCase();
+        for (String extension : extensions) {
+            if (filename.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
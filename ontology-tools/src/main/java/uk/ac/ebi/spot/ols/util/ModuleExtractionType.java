@@ -0,0 +1,16 @@
+package uk.ac.ebi.spot.ols.util;
+
+/**
+ * The type of syntactic locality module to extract around the signature of an ontology before it is handed to the
+ * reasoner. Only the axioms in the module, rather than the whole imports closure, are then classified.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public enum ModuleExtractionType {
+    // reason over the whole imports closure
+    NONE,
+    // bottom locality module, contains all the superclasses of the signature
+    BOT,
+    // nested top/bottom locality module, the smallest of the syntactic locality modules
+    STAR
+}
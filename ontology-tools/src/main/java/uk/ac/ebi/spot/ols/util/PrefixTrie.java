@@ -0,0 +1,96 @@
+package uk.ac.ebi.spot.ols.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable character trie over a set of prefixes, such as the base URIs of an ontology. Checking whether a string
+ * starts with any of the prefixes costs one walk down the trie, however many prefixes there are.
+ *
+ * Samples, Phenotypes and Ontologies Team, EMBL-EBI
+ */
+public class PrefixTrie {
+
+    private final Node root = new Node();
+    private final boolean empty;
+
+    public PrefixTrie(Collection<String> prefixes) {
+        boolean anyPrefix = false;
+        if (prefixes != null) {
+            for (String prefix : prefixes) {
+                if (prefix != null) {
+                    add(prefix);
+                    anyPrefix = true;
+                }
+            }
+        }
+        this.empty = !anyPrefix;
+    }
+
+    private void add(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.getOrAddChild(prefix.charAt(i));
+        }
+        node.terminal = true;
+    }
+
+    /**
+     * @return true if the value starts with at least one of the prefixes
+     */
+    public boolean matchesPrefixOf(String value) {
+        if (empty) {
+            return false;
+        }
+        Node node = root;
+        for (int i = 0; ; i++) {
+            if (node.terminal) {
+                return true;
+            }
+            if (i == value.length()) {
+                return false;
+            }
+            node = node.getChild(value.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Children are kept in a sorted char array rather than a map, base URIs share long prefixes so most nodes only
+     * have a single child.
+     */
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal = false;
+
+        Node getChild(char c) {
+            if (keys.length == 1) {
+                return keys[0] == c ? children[0] : null;
+            }
+            int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+
+        Node getOrAddChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            newKeys[insert] = c;
+            newChildren[insert] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insert];
+        }
+    }
+}
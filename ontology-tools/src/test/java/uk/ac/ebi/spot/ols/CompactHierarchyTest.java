@@ -0,0 +1,81 @@
+package uk.ac.ebi.spot.ols;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.IRI;
+import uk.ac.ebi.spot.ols.loader.CompactHierarchy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactHierarchyTest {
+
+    private static final IRI ANIMAL = IRI.create("http://example.org/animal");
+    private static final IRI MAMMAL = IRI.create("http://example.org/mammal");
+    private static final IRI BIRD = IRI.create("http://example.org/bird");
+    private static final IRI DOG = IRI.create("http://example.org/dog");
+    private static final IRI LONELY = IRI.create("http://example.org/lonely");
+
+    private CompactHierarchy hierarchy;
+
+    @BeforeEach
+    public void setUp() {
+        hierarchy = new CompactHierarchy();
+        hierarchy.add(LONELY);
+        hierarchy.addEdge(MAMMAL, ANIMAL);
+        hierarchy.addEdge(BIRD, ANIMAL);
+        hierarchy.addEdge(DOG, MAMMAL);
+        // asserted again from the other side, e.g. skos:narrower
+        hierarchy.addEdge(DOG, MAMMAL);
+        hierarchy.addEdge(DOG, DOG);
+        hierarchy.freeze();
+    }
+
+    @Test
+    public void testDirectEdges() {
+        assertEquals(5, hierarchy.getTerms().size());
+        assertEquals(3, hierarchy.getEdgeCount());
+        assertEquals(new HashSet<>(Arrays.asList(MAMMAL, BIRD)), hierarchy.getChildren(ANIMAL));
+        assertEquals(new HashSet<>(Arrays.asList(MAMMAL)), hierarchy.getParents(DOG));
+        assertTrue(hierarchy.getParents(ANIMAL).isEmpty());
+        assertFalse(hierarchy.hasParents(LONELY));
+        assertFalse(hierarchy.hasChildren(LONELY));
+    }
+
+    @Test
+    public void testClosure() {
+        assertEquals(new HashSet<>(Arrays.asList(MAMMAL, ANIMAL)), hierarchy.getAncestors(DOG));
+        assertEquals(new HashSet<>(Arrays.asList(MAMMAL, BIRD, DOG)), hierarchy.getDescendants(ANIMAL));
+    }
+
+    @Test
+    public void testViews() {
+        Map<IRI, Collection<IRI>> ancestors = hierarchy.getAncestorsView();
+        assertEquals(3, ancestors.size());
+        assertTrue(ancestors.containsKey(DOG));
+        assertFalse(ancestors.containsKey(ANIMAL));
+        assertNull(ancestors.get(LONELY));
+        assertEquals(new HashSet<>(Arrays.asList(MAMMAL, ANIMAL)), ancestors.get(DOG));
+
+        Map<IRI, Collection<IRI>> children = hierarchy.getChildrenView();
+        assertEquals(new HashSet<>(Arrays.asList(ANIMAL, MAMMAL)), children.keySet());
+    }
+
+    @Test
+    public void testCycle() {
+        CompactHierarchy cyclic = new CompactHierarchy();
+        cyclic.addEdge(DOG, MAMMAL);
+        cyclic.addEdge(MAMMAL, DOG);
+        cyclic.freeze();
+        assertEquals(new HashSet<>(Arrays.asList(MAMMAL)), cyclic.getAncestors(DOG));
+    }
+
+    @Test
+    public void testFrozen() {
+        assertThrows(IllegalStateException.class, () -> hierarchy.addEdge(DOG, BIRD));
+    }
+}
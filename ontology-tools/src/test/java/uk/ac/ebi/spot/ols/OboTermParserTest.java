@@ -0,0 +1,120 @@
+package uk.ac.ebi.spot.ols;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.IRI;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import uk.ac.ebi.spot.ols.config.OboDefaults;
+import uk.ac.ebi.spot.ols.parser.OboTermParser;
+import uk.ac.ebi.spot.ols.parser.OntologyTermHandler;
+import uk.ac.ebi.spot.ols.parser.OntologyTermParsers;
+
+import java.io.InputStream;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OboTermParserTest {
+
+    private static final String OBO = "http://purl.obolibrary.org/obo/";
+
+    private RecordingHandler handler;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Resource resource = new ClassPathResource("test.obo");
+        handler = new RecordingHandler();
+        try (InputStream inputStream = resource.getInputStream()) {
+            new OboTermParser().parse(inputStream, handler);
+        }
+    }
+
+    @Test
+    public void testParserLookup() {
+        assertTrue(OntologyTermParsers.getParser(new ClassPathResource("test.obo")).isPresent());
+        assertFalse(OntologyTermParsers.getParser(new ClassPathResource("test1.owl")).isPresent());
+    }
+
+    @Test
+    public void testHeader() {
+        assertEquals(IRI.create(OBO + "test.owl"), handler.ontologyIRI);
+        assertEquals(IRI.create(OBO + "test/2020-01-01/test.owl"), handler.versionIRI);
+    }
+
+    @Test
+    public void testTerms() {
+        assertEquals(4, handler.classes.size());
+        assertTrue(handler.classes.contains(IRI.create(OBO + "TEST_0000001")));
+        assertEquals(Collections.singleton(IRI.create(OBO + "BFO_0000050")), handler.properties);
+    }
+
+    @Test
+    public void testAnnotations() {
+        IRI child = IRI.create(OBO + "TEST_0000002");
+        assertTrue(handler.annotations.contains(child + " http://www.w3.org/2000/01/rdf-schema#label child term"));
+        assertTrue(handler.annotations.contains(child + " " + OboDefaults.EXACT_SYNONYM + " kid term"));
+        assertTrue(handler.annotations.contains(child + " " + OboDefaults.RELATED_SYNONYM + " young term"));
+        assertTrue(handler.annotations.contains(OBO + "TEST_0000001 " + OboDefaults.DEFINITION +
+                " The root of the \"test\" ontology."));
+        assertTrue(handler.annotations.contains(OBO + "TEST_0000004 http://www.w3.org/2002/07/owl#deprecated true"));
+    }
+
+    @Test
+    public void testHierarchy() {
+        assertTrue(handler.subClassOf.contains(OBO + "TEST_0000002 " + OBO + "TEST_0000001"));
+        assertTrue(handler.subClassOf.contains(OBO + "TEST_0000003 " + OBO + "TEST_0000002"));
+        assertEquals(Collections.singletonList(OBO + "TEST_0000003 " + OBO + "BFO_0000050 " + OBO + "TEST_0000001"),
+                handler.relationships);
+    }
+
+    private static class RecordingHandler implements OntologyTermHandler {
+        IRI ontologyIRI;
+        IRI versionIRI;
+        Set<IRI> classes = new HashSet<>();
+        Set<IRI> properties = new HashSet<>();
+        Set<String> annotations = new HashSet<>();
+        Set<String> subClassOf = new HashSet<>();
+        List<String> relationships = new ArrayList<>();
+
+        @Override
+        public void handleOntologyIRI(IRI ontologyIRI) {
+            this.ontologyIRI = ontologyIRI;
+        }
+
+        @Override
+        public void handleVersionIRI(IRI versionIRI) {
+            this.versionIRI = versionIRI;
+        }
+
+        @Override
+        public void handleClass(IRI classIRI) {
+            classes.add(classIRI);
+        }
+
+        @Override
+        public void handleObjectProperty(IRI propertyIRI) {
+            properties.add(propertyIRI);
+        }
+
+        @Override
+        public void handleAnnotation(IRI subject, IRI annotationProperty, String value, String language) {
+            annotations.add(subject + " " + annotationProperty + " " + value);
+        }
+
+        @Override
+        public void handleAnnotation(IRI subject, IRI annotationProperty, IRI value) {
+            annotations.add(subject + " " + annotationProperty + " " + value);
+        }
+
+        @Override
+        public void handleSubClassOf(IRI child, IRI parent) {
+            subClassOf.add(child + " " + parent);
+        }
+
+        @Override
+        public void handleRelationship(IRI subject, IRI property, IRI filler) {
+            relationships.add(subject + " " + property + " " + filler);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package uk.ac.ebi.spot.ols;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.spot.ols.util.PrefixTrie;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixTrieTest {
+
+    @Test
+    public void testMatchesBaseUris() {
+        PrefixTrie trie = new PrefixTrie(Arrays.asList(
+                "http://purl.obolibrary.org/obo/DUO_",
+                "http://purl.obolibrary.org/obo/GO_",
+                "http://www.ebi.ac.uk/efo/EFO_"));
+
+        assertTrue(trie.matchesPrefixOf("http://purl.obolibrary.org/obo/DUO_0000001"));
+        assertTrue(trie.matchesPrefixOf("http://purl.obolibrary.org/obo/GO_0008150"));
+        assertTrue(trie.matchesPrefixOf("http://www.ebi.ac.uk/efo/EFO_"));
+        assertFalse(trie.matchesPrefixOf("http://purl.obolibrary.org/obo/BFO_0000050"));
+        assertFalse(trie.matchesPrefixOf("http://purl.obolibrary.org/obo/DUO"));
+        assertFalse(trie.matchesPrefixOf(""));
+    }
+
+    @Test
+    public void testNestedPrefixes() {
+        PrefixTrie trie = new PrefixTrie(Arrays.asList("http://example.org/a/b", "http://example.org/a"));
+        assertTrue(trie.matchesPrefixOf("http://example.org/a"));
+        assertTrue(trie.matchesPrefixOf("http://example.org/ab"));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertFalse(new PrefixTrie(Collections.emptySet()).matchesPrefixOf("http://example.org/a"));
+        assertFalse(new PrefixTrie(null).matchesPrefixOf("http://example.org/a"));
+    }
+}
@@ -0,0 +1,60 @@
+package uk.ac.ebi.spot.ols;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.IRI;
+import org.springframework.core.io.ClassPathResource;
+import uk.ac.ebi.spot.ols.config.OntologyResourceConfig;
+import uk.ac.ebi.spot.ols.loader.OntologyLoader;
+import uk.ac.ebi.spot.ols.loader.SKOSLoader;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SKOSLoaderTest {
+
+    private static final IRI ANIMAL = IRI.create("http://example.org/animal");
+    private static final IRI MAMMAL = IRI.create("http://example.org/mammal");
+    private static final IRI BIRD = IRI.create("http://example.org/bird");
+    private static final IRI DOG = IRI.create("http://example.org/dog");
+
+    private static OntologyLoader loader;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        OntologyResourceConfig.OntologyResourceConfigBuilder builder =
+                new OntologyResourceConfig.OntologyResourceConfigBuilder(
+                        "http://example.org/animals",
+                        "animals",
+                        "animals",
+                        new ClassPathResource("test-skos.nt").getURI());
+        builder.setBaseUris(Collections.singleton("http://example.org/"));
+        builder.setIsSkos(true);
+        loader = new SKOSLoader(builder.build());
+    }
+
+    @Test
+    public void testConcepts() {
+        assertEquals(new HashSet<>(Arrays.asList(ANIMAL, MAMMAL, BIRD, DOG)), new HashSet<>(loader.getAllClasses()));
+        assertEquals("dog", loader.getTermLabels().get(DOG));
+        assertEquals(Collections.singleton("hound"), new HashSet<>(loader.getTermSynonyms().get(DOG)));
+    }
+
+    @Test
+    public void testHierarchy() {
+        assertEquals(Collections.singleton(MAMMAL), new HashSet<>(loader.getDirectParentTerms(DOG)));
+        assertEquals(Collections.singleton(ANIMAL), new HashSet<>(loader.getDirectParentTerms(BIRD)));
+        assertEquals(new HashSet<>(Arrays.asList(MAMMAL, ANIMAL)), new HashSet<>(loader.getAllParentTerms().get(DOG)));
+    }
+
+    @Test
+    public void testAllRelatedParentTerms() {
+        assertEquals(new HashSet<>(Arrays.asList(MAMMAL, ANIMAL)),
+                new HashSet<>(loader.getAllRelatedParentTerms(DOG)));
+        assertEquals(Collections.singleton(ANIMAL), new HashSet<>(loader.getAllRelatedParentTerms(BIRD)));
+        assertTrue(loader.getAllRelatedParentTerms(ANIMAL).isEmpty());
+    }
+}
@@ -0,0 +1,155 @@
+package uk.ac.ebi.spot.ols;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.semanticweb.owlapi.model.IRI;
+import org.springframework.core.io.ClassPathResource;
+import uk.ac.ebi.spot.ols.config.OntologyResourceConfig;
+import uk.ac.ebi.spot.ols.loader.OntologyLoader;
+import uk.ac.ebi.spot.ols.loader.StreamingOntologyLoader;
+import uk.ac.ebi.spot.ols.loader.StructuralOWLOntologyLoader;
+import uk.ac.ebi.spot.ols.util.OBOXref;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads test.obo with the streaming parser and with the OWL API and checks that both produce the same term records
+ */
+public class StreamingOntologyLoaderParityTest {
+
+    private static OntologyLoader owlLoader;
+    private static OntologyLoader streamingLoader;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        owlLoader = new StructuralOWLOntologyLoader(config(false));
+        streamingLoader = new StreamingOntologyLoader(config(true));
+    }
+
+    private static OntologyResourceConfig config(boolean streaming) throws Exception {
+        OntologyResourceConfig.OntologyResourceConfigBuilder builder =
+                new OntologyResourceConfig.OntologyResourceConfigBuilder(
+                        "http://purl.obolibrary.org/obo/test.owl",
+                        "test",
+                        "test",
+                        new ClassPathResource("test.obo").getURI());
+        builder.setBaseUris(Collections.singleton("http://purl.obolibrary.org/obo/TEST_"));
+        builder.setStreaming(streaming);
+        return builder.build();
+    }
+
+    @Test
+    public void testSignature() {
+        assertEquals(new HashSet<>(owlLoader.getAllClasses()), new HashSet<>(streamingLoader.getAllClasses()));
+        assertFalse(streamingLoader.getAllClasses().isEmpty());
+        assertEquals(new HashSet<>(owlLoader.getAllObjectPropertyIRIs()),
+                new HashSet<>(streamingLoader.getAllObjectPropertyIRIs()));
+    }
+
+    @Test
+    public void testOntology() {
+        assertEquals(owlLoader.getOntologyIRI(), streamingLoader.getOntologyIRI());
+        assertEquals(owlLoader.getOntologyVersionIRI(), streamingLoader.getOntologyVersionIRI());
+        assertEquals(owlLoader.getVersionNumber(), streamingLoader.getVersionNumber());
+        assertEquals(owlLoader.getOntologyAnnotations(), streamingLoader.getOntologyAnnotations());
+    }
+
+    @Test
+    public void testAnnotations() {
+        for (IRI term : owlLoader.getAllClasses()) {
+            assertEquals(owlLoader.getTermLabels().get(term), streamingLoader.getTermLabels().get(term),
+                    "label of " + term);
+            assertEquals(owlLoader.getOboId(term), streamingLoader.getOboId(term), "OBO id of " + term);
+            assertEquals(owlLoader.getAnnotations(term), streamingLoader.getAnnotations(term),
+                    "annotations of " + term);
+            assertEquals(set(owlLoader.getTermSynonyms().get(term)), set(streamingLoader.getTermSynonyms().get(term)),
+                    "synonyms of " + term);
+            assertEquals(set(owlLoader.getTermDefinitions().get(term)),
+                    set(streamingLoader.getTermDefinitions().get(term)), "definitions of " + term);
+            assertEquals(set(owlLoader.getSubsets(term)), set(streamingLoader.getSubsets(term)), "subsets of " + term);
+            assertEquals(owlLoader.getTermReplacedBy(term), streamingLoader.getTermReplacedBy(term),
+                    "replacement of " + term);
+            assertEquals(owlLoader.isObsoleteTerm(term), streamingLoader.isObsoleteTerm(term),
+                    "obsoletion of " + term);
+        }
+    }
+
+    @Test
+    public void testHierarchy() {
+        for (IRI term : owlLoader.getAllClasses()) {
+            assertEquals(set(owlLoader.getDirectParentTerms(term)), set(streamingLoader.getDirectParentTerms(term)),
+                    "parents of " + term);
+            assertEquals(set(owlLoader.getAllParentTerms().get(term)),
+                    set(streamingLoader.getAllParentTerms().get(term)), "ancestors of " + term);
+            assertEquals(set(owlLoader.getDirectChildTerms(term)), set(streamingLoader.getDirectChildTerms(term)),
+                    "children of " + term);
+        }
+    }
+
+    @Test
+    public void testRelatedTerms() {
+        for (IRI term : owlLoader.getAllClasses()) {
+            assertEquals(map(owlLoader.getRelatedTerms(term)), map(streamingLoader.getRelatedTerms(term)),
+                    "related terms of " + term);
+            assertEquals(map(owlLoader.getRelatedParentTerms(term)), map(streamingLoader.getRelatedParentTerms(term)),
+                    "related parents of " + term);
+        }
+        assertFalse(streamingLoader.getRelatedTerms(IRI.create("http://purl.obolibrary.org/obo/TEST_0000003"))
+                .isEmpty());
+    }
+
+    @Test
+    public void testOboCitations() {
+        for (IRI term : owlLoader.getAllClasses()) {
+            assertEquals(definitions(owlLoader, term), definitions(streamingLoader, term),
+                    "definition citations of " + term);
+            assertEquals(synonyms(owlLoader, term), synonyms(streamingLoader, term), "synonym citations of " + term);
+            assertEquals(xrefs(owlLoader.getOBOXrefs(term)), xrefs(streamingLoader.getOBOXrefs(term)),
+                    "xrefs of " + term);
+        }
+        assertEquals(Collections.singleton("The root of the \"test\" ontology. [TEST:curator]"),
+                definitions(streamingLoader, IRI.create("http://purl.obolibrary.org/obo/TEST_0000001")));
+    }
+
+    private static <T> Set<T> set(Collection<T> values) {
+        return values == null ? Collections.emptySet() : new HashSet<>(values);
+    }
+
+    private static Map<IRI, Set<IRI>> map(Map<IRI, Collection<IRI>> values) {
+        if (values == null) {
+            return Collections.emptyMap();
+        }
+        Map<IRI, Set<IRI>> copy = new HashMap<>();
+        values.forEach((property, related) -> {
+            if (!related.isEmpty()) {
+                copy.put(property, new HashSet<>(related));
+            }
+        });
+        return copy;
+    }
+
+    private static Set<String> definitions(OntologyLoader loader, IRI term) {
+        return set(loader.getOBODefinitionCitations(term)).stream()
+                .map(citation -> citation.getDefinition() + " " + xrefs(citation.getOboXrefs()))
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> synonyms(OntologyLoader loader, IRI term) {
+        return set(loader.getOBOSynonyms(term)).stream()
+                .map(synonym -> synonym.getName() + " " + synonym.getScope() + " " + synonym.getType() + " " +
+                        xrefs(synonym.getXrefs()))
+                .collect(Collectors.toSet());
+    }
+
+    private static String xrefs(Collection<OBOXref> xrefs) {
+        return set(xrefs).stream()
+                .map(xref -> xref.getDatabase() + ":" + xref.getId() +
+                        (xref.getDescription() == null ? "" : " " + xref.getDescription()) +
+                        (xref.getUrl() == null ? "" : " " + xref.getUrl()))
+                .sorted()
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+}
@@ -7,6 +7,7 @@ import uk.ac.ebi.spot.ols.config.OboDefaults;
 import uk.ac.ebi.spot.ols.config.YamlBasedLoadingService;
 import uk.ac.ebi.spot.ols.exception.ConfigParsingException;
 import uk.ac.ebi.spot.ols.loader.AbstractOWLOntologyLoader;
+import uk.ac.ebi.spot.ols.util.ModuleExtractionType;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -220,6 +221,29 @@ public class YamlBasedLoadingServiceTest {
         }
     }
 
+    @Test
+    public void testModuleExtractionEmpty () {
+
+        yamlBasedLoadingService = new YamlBasedLoadingService(ontology, "http://foobar.com/", false);
+        try {
+            assertEquals(ModuleExtractionType.NONE, yamlBasedLoadingService.getConfiguration().getModuleExtractionType());
+        } catch (ConfigParsingException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void testModuleExtraction () {
+
+        ontology.put("module_extraction", "star");
+        yamlBasedLoadingService = new YamlBasedLoadingService(ontology, "http://foobar.com/", false);
+        try {
+            assertEquals(ModuleExtractionType.STAR, yamlBasedLoadingService.getConfiguration().getModuleExtractionType());
+        } catch (ConfigParsingException e) {
+            fail();
+        }
+    }
+
     @Test
     public static void testOboVersionIriDate ( ) {
 
@@ -0,0 +1,48 @@
+package uk.ac.ebi.spot.usage;
+
+import org.slf4j.Logger;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+public class GcUtils {
+
+    /** Get the accumulated time in milliseconds spent in garbage collection by all collectors. */
+    public static long getGcTime() {
+        long total = 0L;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long time = bean.getCollectionTime();
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+
+    /** Get the accumulated number of garbage collections performed by all collectors. */
+    public static long getGcCount() {
+        long total = 0L;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long count = bean.getCollectionCount();
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    public static void logGcTime(Logger logger, String marker, String msg, String separator) {
+        logger.info(marker + msg + separator + "GC time" + separator +
+                getGcTime() + " ms in " + getGcCount() + " collections.");
+    }
+
+    /**
+     * Logs the garbage collection time and count accumulated since the given snapshot values were taken with
+     * {@link #getGcTime()} and {@link #getGcCount()}.
+     */
+    public static void logGcPause(Logger logger, String marker, String msg, String separator,
+                                  long gcTimeBefore, long gcCountBefore) {
+        logger.info(marker + msg + separator + "GC pause" + separator +
+                (getGcTime() - gcTimeBefore) + " ms in " + (getGcCount() - gcCountBefore) + " collections.");
+    }
+}
@@ -7,5 +7,6 @@ public class ResourceUsage {
         MemoryUtils.logHeapAndNonHeapMemoryUsage(logger, marker, msg, separator);
         MemoryUtils.logRuntimeMemoryUsage(logger, marker, msg, separator);
         CpuUtils.logAllTime(logger, marker, msg, separator);
+        GcUtils.logGcTime(logger, marker, msg, separator);
     }
 }